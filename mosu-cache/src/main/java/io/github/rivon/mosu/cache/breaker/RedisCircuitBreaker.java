@@ -0,0 +1,174 @@
+package io.github.rivon.mosu.cache.breaker;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 熔断器
+ * <p>
+ * 连续 failureThreshold 次 Redis 读取失败或耗时超过 slowCallThreshold 时熔断，熔断期间 {@link #allowRequest()} 返回 false，
+ * 调用方跳过 Redis 直接降级，请求线程不再阻塞到 Redisson 的超时时间。熔断 openDuration 之后进入半开状态，
+ * 只放行一个探测请求：探测成功则恢复，失败则重新熔断。
+ * </p>
+ * <p>
+ * 调用方在放行的请求结束后必须调用 {@link #onSuccess(long)} 或 {@link #onError(Throwable)} 报告结果，否则半开状态不会结束。
+ * </p>
+ */
+@Slf4j
+public class RedisCircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED,    // 正常放行
+        OPEN,      // 熔断，拒绝全部请求
+        HALF_OPEN  // 半开，只放行一个探测请求
+    }
+
+    private final int failureThreshold;   // 触发熔断的连续失败次数
+    private final long slowCallThreshold; // 超过该耗时的调用视为失败，0 表示不按耗时判断 单位纳秒
+    private final long openDuration;      // 熔断持续时间 单位纳秒
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean(); // 半开状态下是否已放行探测请求
+    private volatile long openedAt; // 最近一次熔断的时刻，System.nanoTime() 时间基准
+
+    // 指标
+    private final LongAdder openCount = new LongAdder();     // 熔断次数
+    private final LongAdder rejectedCount = new LongAdder(); // 熔断期间被拒绝的请求数
+    private final LongAdder failureCount = new LongAdder();  // 失败的调用数
+    private final LongAdder slowCallCount = new LongAdder(); // 超时的调用数
+
+    /**
+     * 构造函数
+     *
+     * @param failureThreshold  触发熔断的连续失败次数
+     * @param slowCallThreshold 超过该耗时的调用视为失败，0 表示不按耗时判断 单位毫秒
+     * @param openDuration      熔断持续时间，之后放行探测请求 单位毫秒
+     */
+    public RedisCircuitBreaker(int failureThreshold, long slowCallThreshold, long openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.slowCallThreshold = TimeUnit.MILLISECONDS.toNanos(slowCallThreshold);
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(openDuration);
+    }
+
+    /**
+     * 判断是否允许访问 Redis，熔断持续时间结束后第一个调用方作为探测请求放行
+     *
+     * @return 允许时返回 true
+     */
+    public boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDuration) {
+                rejectedCount.increment();
+                return false;
+            }
+            state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        if (probing.compareAndSet(false, true)) {
+            return true; // 探测请求
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    /**
+     * 报告一次成功的调用，耗时超过 slowCallThreshold 时按失败处理
+     *
+     * @param elapsedNanos 调用耗时 单位纳秒
+     */
+    public void onSuccess(long elapsedNanos) {
+        if (slowCallThreshold > 0 && elapsedNanos >= slowCallThreshold) {
+            slowCallCount.increment();
+            recordFailure();
+            return;
+        }
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            probing.set(false);
+            log.info("Redis circuit breaker closed");
+        }
+    }
+
+    /**
+     * 报告一次失败的调用
+     *
+     * @param error 调用抛出的异常
+     */
+    public void onError(Throwable error) {
+        failureCount.increment();
+        if (state.get() == State.CLOSED) {
+            log.debug("Redis call failed", error);
+        }
+        recordFailure();
+    }
+
+    /**
+     * @return 当前状态
+     */
+    public State getState() {
+        State current = state.get();
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openDuration) {
+            return State.HALF_OPEN; // 下一个请求将作为探测请求放行
+        }
+        return current;
+    }
+
+    /**
+     * @return 熔断次数
+     */
+    public long getOpenCount() {
+        return openCount.sum();
+    }
+
+    /**
+     * @return 熔断期间被拒绝的请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * @return 失败的调用数
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * @return 超时的调用数
+     */
+    public long getSlowCallCount() {
+        return slowCallCount.sum();
+    }
+
+    private void recordFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            trip(State.HALF_OPEN); // 探测失败，重新熔断
+        } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            trip(State.CLOSED);
+        }
+    }
+
+    private void trip(State expected) {
+        openedAt = System.nanoTime(); // 先记录熔断时刻，其他线程看到 OPEN 状态时一定能读到
+        if (state.compareAndSet(expected, State.OPEN)) {
+            consecutiveFailures.set(0);
+            probing.set(false);
+            openCount.increment();
+            log.warn("Redis circuit breaker opened, Redis reads are skipped for {} ms", TimeUnit.NANOSECONDS.toMillis(openDuration));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.rivon.mosu.cache.codec;
+
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.codec.Kryo5Codec;
+import org.redisson.codec.MarshallingCodec;
+import org.redisson.codec.SerializationCodec;
+import org.redisson.codec.SmileJacksonCodec;
+
+/**
+ * Redisson 编解码器工厂
+ * <p>
+ * 根据配置名称创建编解码器，支持的名称如下：
+ * <ul>
+ *     <li>json：JsonJacksonCodec，默认值，可读性好，但体积大、序列化慢</li>
+ *     <li>smile：SmileJacksonCodec，Jackson 的二进制格式，与 json 的对象映射规则一致</li>
+ *     <li>kryo：Kryo5Codec，紧凑的二进制格式，不写入字段名</li>
+ *     <li>marshalling：MarshallingCodec（JBoss Marshalling）</li>
+ *     <li>jdk：SerializationCodec（JDK 序列化）</li>
+ *     <li>string：StringCodec，值只能是字符串</li>
+ * </ul>
+ * 其他名称按 {@link Codec} 实现类的全限定类名处理，要求该类有无参构造函数。
+ * </p>
+ */
+public final class CodecFactory {
+
+    private CodecFactory() {
+    }
+
+    /**
+     * 根据名称创建编解码器
+     *
+     * @param name 编解码器名称或实现类的全限定类名，为空时使用 json
+     * @return 编解码器实例
+     */
+    public static Codec create(String name) {
+        if (name == null || name.isBlank()) {
+            return new JsonJacksonCodec();
+        }
+        switch (name.trim().toLowerCase()) {
+            case "json":
+                return new JsonJacksonCodec();
+            case "smile":
+                return new SmileJacksonCodec();
+            case "kryo":
+                return new Kryo5Codec();
+            case "marshalling":
+                return new MarshallingCodec();
+            case "jdk":
+                return new SerializationCodec();
+            case "string":
+                return new StringCodec();
+            default:
+                return newInstance(name.trim());
+        }
+    }
+
+    private static Codec newInstance(String className) {
+        try {
+            Class<?> codecClass = Class.forName(className, true, CodecFactory.class.getClassLoader());
+            if (!Codec.class.isAssignableFrom(codecClass)) {
+                throw new IllegalArgumentException("Class " + className + " is not a Redisson codec");
+            }
+            return (Codec) codecClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to create Redisson codec: " + className, e);
+        }
+    }
+}
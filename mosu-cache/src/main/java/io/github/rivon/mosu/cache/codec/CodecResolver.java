@@ -0,0 +1,54 @@
+package io.github.rivon.mosu.cache.codec;
+
+import org.redisson.client.codec.Codec;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 key 前缀选择编解码器
+ * <p>
+ * 为不同前缀的 key 指定不同的编解码器，多个前缀同时匹配时使用最长的那个；
+ * 没有匹配的前缀时返回 null，表示使用 RedissonClient 的默认编解码器。
+ * </p>
+ */
+public class CodecResolver {
+
+    private final List<Map.Entry<String, Codec>> overrides = new ArrayList<>(); // 按前缀长度降序排列
+
+    /**
+     * 构造函数
+     *
+     * @param overrides key 前缀与编解码器的映射
+     */
+    public CodecResolver(Map<String, Codec> overrides) {
+        this.overrides.addAll(overrides.entrySet());
+        this.overrides.sort(Comparator.comparingInt((Map.Entry<String, Codec> entry) -> entry.getKey().length()).reversed());
+    }
+
+    /**
+     * 获取 key 对应的编解码器
+     *
+     * @param key 缓存key
+     * @return 编解码器，没有为该 key 指定时返回 null
+     */
+    public Codec resolve(String key) {
+        for (Map.Entry<String, Codec> entry : overrides) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否没有任何前缀覆盖
+     *
+     * @return true:所有 key 都使用默认编解码器
+     */
+    public boolean isEmpty() {
+        return overrides.isEmpty();
+    }
+}
@@ -0,0 +1,205 @@
+package io.github.rivon.mosu.cache.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.codec.SmileJacksonCodec;
+
+import java.io.IOException;
+
+/**
+ * 按阈值压缩的编解码器
+ * <p>
+ * 包装另一个编解码器，值编码后的字节数达到阈值时使用 LZ4 压缩。每个值前写入一个标记字节：
+ * {@link #RAW} 表示未压缩，{@link #LZ4} 表示已压缩，其后是 4 字节的原始长度与压缩数据。
+ * 读取时根据标记字节决定是否解压，因此阈值可以随时调整。
+ * </p>
+ * <p>
+ * 兼容存量数据时，不以标记字节开头的值按启用压缩前写入的未压缩数据处理。标记字节不是合法的 UTF-8 首字节，
+ * 只有 json、string 等文本格式的存量数据不会被误认；kryo、smile、marshalling、jdk 等二进制格式的数据可能以
+ * 标记字节开头而被错误解析，因此二进制编解码器只能在不兼容存量数据时包装，此时没有标记字节的值解码失败。
+ * </p>
+ * <p>
+ * 适用于 bucket、list、set 以及 map 的值；map 的 key 不压缩，以保证按 field 读取时编码一致。
+ * </p>
+ */
+public class CompressionCodec extends BaseCodec {
+
+    public static final byte RAW = (byte) 0xC0; // 未压缩标记，不是合法的 UTF-8 首字节，不会与文本格式的旧数据冲突
+    public static final byte LZ4 = (byte) 0xC1; // LZ4 压缩标记
+
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+
+    private final Codec innerCodec;     // 被包装的编解码器
+    private final int threshold;        // 压缩阈值 单位字节
+    private final CompressionStats stats;
+    private final boolean legacyData;   // 是否兼容没有标记字节的存量数据
+    private final LZ4Compressor compressor = FACTORY.fastCompressor();
+    private final LZ4FastDecompressor decompressor = FACTORY.fastDecompressor();
+
+    private final Encoder encoder = this::encode;
+    private final Decoder<Object> decoder = this::decode;
+
+    /**
+     * 构造函数
+     *
+     * @param innerCodec 被包装的编解码器
+     * @param threshold  压缩阈值 单位字节，编码后达到该长度的值才压缩
+     * @param stats      压缩统计
+     */
+    public CompressionCodec(Codec innerCodec, int threshold, CompressionStats stats) {
+        this(innerCodec, threshold, stats, true);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param innerCodec 被包装的编解码器
+     * @param threshold  压缩阈值 单位字节，编码后达到该长度的值才压缩
+     * @param stats      压缩统计
+     * @param legacyData 是否兼容没有标记字节的存量数据，为 true 时只能包装文本格式的编解码器
+     * @throws IllegalArgumentException 兼容存量数据但被包装的是二进制编解码器
+     */
+    public CompressionCodec(Codec innerCodec, int threshold, CompressionStats stats, boolean legacyData) {
+        if (legacyData && !isTextCodec(innerCodec)) {
+            throw new IllegalArgumentException("Compression over binary codec " + innerCodec.getClass().getName()
+                    + " cannot detect legacy uncompressed data, disable legacy data support after migrating");
+        }
+        this.innerCodec = innerCodec;
+        this.threshold = threshold;
+        this.stats = stats;
+        this.legacyData = legacyData;
+    }
+
+    /**
+     * Redisson 复制编解码器时使用的构造函数
+     *
+     * @param classLoader 类加载器
+     * @param codec       被复制的编解码器
+     */
+    public CompressionCodec(ClassLoader classLoader, CompressionCodec codec) throws ReflectiveOperationException {
+        this(copy(classLoader, codec.innerCodec), codec.threshold, codec.stats, codec.legacyData);
+    }
+
+    /**
+     * 判断编解码器是否输出文本格式，文本格式的数据不会以标记字节开头
+     *
+     * @param codec 编解码器
+     * @return 是否为 json 或 string 编解码器
+     */
+    public static boolean isTextCodec(Codec codec) {
+        return codec instanceof StringCodec || (codec instanceof JsonJacksonCodec && !(codec instanceof SmileJacksonCodec));
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public Decoder<Object> getMapKeyDecoder() {
+        return innerCodec.getMapKeyDecoder();
+    }
+
+    @Override
+    public Encoder getMapKeyEncoder() {
+        return innerCodec.getMapKeyEncoder();
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return innerCodec.getClassLoader();
+    }
+
+    /**
+     * @return 被包装的编解码器
+     */
+    public Codec getInnerCodec() {
+        return innerCodec;
+    }
+
+    private ByteBuf encode(Object in) throws IOException {
+        ByteBuf encoded = innerCodec.getValueEncoder().encode(in);
+        try {
+            int length = encoded.readableBytes();
+            if (length >= threshold) {
+                ByteBuf compressed = compress(encoded, length);
+                if (compressed != null) {
+                    return compressed;
+                }
+            }
+            stats.recordSkip();
+            ByteBuf out = ByteBufAllocator.DEFAULT.buffer(length + 1);
+            out.writeByte(RAW);
+            out.writeBytes(encoded);
+            return out;
+        } finally {
+            encoded.release();
+        }
+    }
+
+    private Object decode(ByteBuf buf, State state) throws IOException {
+        byte header = buf.getByte(buf.readerIndex());
+        if (header == RAW) {
+            buf.skipBytes(1);
+            return innerCodec.getValueDecoder().decode(buf, state);
+        }
+        if (header != LZ4) {
+            if (!legacyData) {
+                throw new IOException("Value is not written by CompressionCodec, header " + (header & 0xFF));
+            }
+            return innerCodec.getValueDecoder().decode(buf, state); // 没有标记字节的旧数据
+        }
+
+        long start = System.nanoTime();
+        buf.skipBytes(1);
+        int length = buf.readInt();
+        byte[] source = new byte[buf.readableBytes()];
+        buf.readBytes(source);
+        byte[] restored = decompressor.decompress(source, length);
+        stats.recordDecompress(System.nanoTime() - start);
+
+        ByteBuf restoredBuf = Unpooled.wrappedBuffer(restored);
+        try {
+            return innerCodec.getValueDecoder().decode(restoredBuf, state);
+        } finally {
+            restoredBuf.release();
+        }
+    }
+
+    /**
+     * 压缩编码后的数据，压缩无收益时返回 null
+     */
+    private ByteBuf compress(ByteBuf encoded, int length) {
+        long start = System.nanoTime();
+        byte[] source = new byte[length];
+        encoded.getBytes(encoded.readerIndex(), source);
+        byte[] target = new byte[compressor.maxCompressedLength(length)];
+        int compressedLength = compressor.compress(source, 0, length, target, 0, target.length);
+        if (compressedLength + 5 >= length + 1) {
+            return null;
+        }
+
+        ByteBuf out = ByteBufAllocator.DEFAULT.buffer(compressedLength + 5);
+        out.writeByte(LZ4);
+        out.writeInt(length);
+        out.writeBytes(target, 0, compressedLength);
+        stats.recordCompress(length, compressedLength + 5, System.nanoTime() - start);
+        return out;
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.rivon.mosu.cache.codec;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压缩统计
+ * <p>
+ * 记录 {@link CompressionCodec} 的压缩次数、压缩前后字节数以及压缩、解压耗时，用于调整压缩阈值。
+ * 同一个实例可以被多个 CompressionCodec 共享。
+ * </p>
+ */
+public class CompressionStats {
+
+    private final LongAdder compressedCount = new LongAdder();    // 压缩的值个数
+    private final LongAdder skippedCount = new LongAdder();       // 低于阈值或压缩无收益而未压缩的值个数
+    private final LongAdder originalBytes = new LongAdder();      // 被压缩的值压缩前的总字节数
+    private final LongAdder compressedBytes = new LongAdder();    // 被压缩的值压缩后的总字节数
+    private final LongAdder compressNanos = new LongAdder();      // 压缩累计耗时 单位纳秒
+    private final LongAdder decompressedCount = new LongAdder();  // 解压的值个数
+    private final LongAdder decompressNanos = new LongAdder();    // 解压累计耗时 单位纳秒
+
+    void recordCompress(int original, int compressed, long nanos) {
+        compressedCount.increment();
+        originalBytes.add(original);
+        compressedBytes.add(compressed);
+        compressNanos.add(nanos);
+    }
+
+    void recordSkip() {
+        skippedCount.increment();
+    }
+
+    void recordDecompress(long nanos) {
+        decompressedCount.increment();
+        decompressNanos.add(nanos);
+    }
+
+    /**
+     * 压缩率，压缩后字节数与压缩前字节数之比，越小压缩效果越好
+     *
+     * @return 压缩率，没有压缩过任何值时返回 1
+     */
+    public double getRatio() {
+        long original = originalBytes.sum();
+        return original == 0 ? 1d : (double) compressedBytes.sum() / original;
+    }
+
+    /**
+     * @return 压缩的值个数
+     */
+    public long getCompressedCount() {
+        return compressedCount.sum();
+    }
+
+    /**
+     * @return 未压缩的值个数
+     */
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    /**
+     * @return 被压缩的值压缩前的总字节数
+     */
+    public long getOriginalBytes() {
+        return originalBytes.sum();
+    }
+
+    /**
+     * @return 被压缩的值压缩后的总字节数
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * @return 压缩累计耗时 单位纳秒
+     */
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    /**
+     * @return 解压的值个数
+     */
+    public long getDecompressedCount() {
+        return decompressedCount.sum();
+    }
+
+    /**
+     * @return 解压累计耗时 单位纳秒
+     */
+    public long getDecompressNanos() {
+        return decompressNanos.sum();
+    }
+}
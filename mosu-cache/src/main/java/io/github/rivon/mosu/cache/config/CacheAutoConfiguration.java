@@ -1,20 +1,50 @@
 package io.github.rivon.mosu.cache.config;
 
+import io.github.rivon.mosu.cache.breaker.RedisCircuitBreaker;
+import io.github.rivon.mosu.cache.codec.CodecFactory;
+import io.github.rivon.mosu.cache.codec.CodecResolver;
+import io.github.rivon.mosu.cache.codec.CompressionCodec;
+import io.github.rivon.mosu.cache.codec.CompressionStats;
+import io.github.rivon.mosu.cache.estimator.JacksonSizeEstimator;
+import io.github.rivon.mosu.cache.estimator.SizeEstimator;
+import io.github.rivon.mosu.cache.hotkey.HotKeyDetector;
+import io.github.rivon.mosu.cache.lock.LockTemplate;
+import io.github.rivon.mosu.cache.metrics.MosuCacheMetrics;
+import io.github.rivon.mosu.cache.service.BloomFilterService;
+import io.github.rivon.mosu.cache.service.CacheSyncService;
 import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
 import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.LocalCachedMapService;
+import io.github.rivon.mosu.cache.service.OffHeapCacheService;
 import io.github.rivon.mosu.cache.service.RedissionService;
+import io.github.rivon.mosu.cache.service.TtlPolicy;
+import io.github.rivon.mosu.cache.service.WriteBehindService;
+import io.github.rivon.mosu.cache.spring.MosuCacheManager;
+import io.github.rivon.mosu.cache.warmup.CacheWarmUpService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
-import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.client.codec.Codec;
 import org.redisson.config.Config;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
 
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,6 +53,7 @@ import java.util.concurrent.TimeUnit;
  * @author allen
  **/
 @Configuration
+@AutoConfigureBefore(name = "org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration")
 @RequiredArgsConstructor
 @EnableConfigurationProperties({CacheProperties.class})
 public class CacheAutoConfiguration {
@@ -31,78 +62,398 @@ public class CacheAutoConfiguration {
 
     /**
      * 配置 RedissonClient，用于 Redis 缓存操作
+     * <p>
+     * 按 mode 配置使用单节点、集群、哨兵或主从模式，见 {@link RedissonConfigFactory}。
+     * 只在启用 Redis 时创建，并且延迟到第一次访问 Redis（或后台连接预热）时才创建并建立连接，
+     * 其他 Bean 注入的是延迟解析的代理，启动过程不会因为建立连接或 Redis 不可达而阻塞。
+     * </p>
      *
      * @return RedissonClient 实例
      */
     @Bean
+    @Lazy
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.redission", name = "enable", havingValue = "true")
     RedissonClient redissonClient() {
-        Config config = new Config();
-        String prefix = "redis://";
+        // 设置值的序列化策略，默认使用 Jackson 序列化器
+        Config config = RedissonConfigFactory.create(properties.getRedission(), createCodec(properties.getRedission().getCodec()));
+        return Redisson.create(config);
+    }
 
-        // 判断是否启用 SSL
-        if (properties.getRedission().isSsl()) {
-            prefix = "rediss://";  // 加密模式
-        }
+    /**
+     * 配置 RedissonClient 连接预热，所有单例初始化完成后在后台创建 RedissonClient，应用就绪前等待其完成。
+     * 连接建立后在同一后台线程中订阅失效同步主题、加载布隆过滤器位图
+     *
+     * @param redissonClient     延迟创建的 RedissonClient
+     * @param cacheSyncService   本地缓存失效同步服务
+     * @param bloomFilterService 布隆过滤器服务
+     * @return RedissonConnectionWarmUp 实例
+     */
+    @Bean
+    @ConditionalOnBean(RedissonClient.class)
+    @ConditionalOnProperty(prefix = "mosu.cache.redission", name = "connect-warm-up", havingValue = "true", matchIfMissing = true)
+    public RedissonConnectionWarmUp redissonConnectionWarmUp(ObjectProvider<RedissonClient> redissonClient,
+                                                             ObjectProvider<CacheSyncService> cacheSyncService,
+                                                             ObjectProvider<BloomFilterService> bloomFilterService) {
+        RedissonConnectionWarmUp warmUp = new RedissonConnectionWarmUp(redissonClient, properties.getRedission().getConnectWarmUpTimeout());
+        cacheSyncService.ifAvailable(service -> warmUp.onConnected(service::start));
+        bloomFilterService.ifAvailable(service -> warmUp.onConnected(service::start));
+        return warmUp;
+    }
 
-        config.useSingleServer() // 使用单节点模式
-                .setAddress(prefix + properties.getRedission().getHost() + ":" + properties.getRedission().getPort()) // 设置 Redis 连接地址，包含协议（redis 或 rediss）以及主机和端口
-                .setConnectTimeout(properties.getRedission().getTimeOut()) // 设置连接超时时间，单位为毫秒
-                .setPassword(properties.getRedission().getPassword()) // 设置 Redis 连接的密码
-                .setDatabase(properties.getRedission().getDatabase()); // 设置 Redis 数据库索引，默认为 0
+    /**
+     * 配置 CompressionStats，记录值压缩的压缩率与耗时
+     *
+     * @return CompressionStats 实例
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mosu.cache.redission.compression", name = "enable", havingValue = "true")
+    public CompressionStats compressionStats() {
+        return new CompressionStats();
+    }
 
-        // 设置值的序列化策略（使用 Jackson 序列化器）
-        config.setCodec(new JsonJacksonCodec());
+    /**
+     * 根据名称创建 Redis 使用的编解码器，启用值压缩时使用 CompressionCodec 包装
+     *
+     * @param name 编解码器名称
+     * @return 编解码器实例
+     */
+    private Codec createCodec(String name) {
+        return createCodec(name, properties.getRedission().getCompression().isEnable() ? compressionStats() : null);
+    }
 
-        return Redisson.create(config);
+    /**
+     * 根据名称创建编解码器，启用值压缩时使用 CompressionCodec 包装
+     *
+     * @param name  编解码器名称
+     * @param stats 压缩统计，堆外缓存与快照等本地存储使用独立的实例，不计入 Redis 的压缩指标
+     * @return 编解码器实例
+     */
+    private Codec createCodec(String name, CompressionStats stats) {
+        Codec codec = CodecFactory.create(name);
+        CacheProperties.Compression compressionConfig = properties.getRedission().getCompression();
+        if (compressionConfig.isEnable()) {
+            codec = new CompressionCodec(codec, compressionConfig.getThreshold(), stats, compressionConfig.isLegacyData());
+        }
+        return codec;
+    }
+
+    /**
+     * 根据二级缓存配置创建过期时间策略，每个区域使用独立的实例
+     *
+     * @param multilevelConfig 二级缓存配置
+     * @return TtlPolicy 实例
+     */
+    private TtlPolicy ttlPolicy(CacheProperties.Multilevel multilevelConfig) {
+        TtlPolicy ttlPolicy = new TtlPolicy();
+        ttlPolicy.setJitter(multilevelConfig.getTtlJitter());
+        ttlPolicy.setCapLocalTtl(multilevelConfig.isCapLocalTtl());
+        return ttlPolicy;
+    }
+
+    /**
+     * 配置 HotKeyDetector，探测读取最频繁的 key 并提升到短期本地缓存
+     *
+     * @return HotKeyDetector 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.redission.hot-key", name = "enable", havingValue = "true")
+    public HotKeyDetector hotKeyDetector() {
+        CacheProperties.HotKey hotKeyConfig = properties.getRedission().getHotKey();
+        return new HotKeyDetector(hotKeyConfig.getCapacity(), hotKeyConfig.getSampleRate(), hotKeyConfig.getThreshold(),
+                hotKeyConfig.getDecayInterval(), hotKeyConfig.getPromoteTtl(), hotKeyConfig.getPromoteMaxSize());
     }
 
     /**
      * 配置 RedissionService，用于 Redis 缓存服务
      *
-     * @param redissonClient RedissonClient 实例
+     * @param redissonClient RedissonClient 的延迟解析代理，未启用 Redis 时不会被访问
+     * @param hotKeyDetector 热点 key 探测器，未启用时不探测
      * @return RedissionService 实例
      */
     @Bean
     @ConditionalOnMissingBean
-    public RedissionService redissionService(RedissonClient redissonClient) {
+    public RedissionService redissionService(@Lazy RedissonClient redissonClient, ObjectProvider<HotKeyDetector> hotKeyDetector) {
         RedissionService redissionService = new RedissionService();
 
         CacheProperties.Redission redissionConfig = properties.getRedission();
         if (redissionConfig.isEnable()) {
             // 如果启用 Redis，设置 RedissonClient
             redissionService.setRedissonClient(redissonClient);
+
+            // 按 key 前缀覆盖编解码器
+            if (!redissionConfig.getCodecOverrides().isEmpty()) {
+                Map<String, Codec> overrides = new LinkedHashMap<>();
+                redissionConfig.getCodecOverrides().forEach((prefix, codec) -> overrides.put(prefix, createCodec(codec)));
+                redissionService.setCodecResolver(new CodecResolver(overrides));
+            }
+            redissionService.setBatchOptions(RedissonConfigFactory.createBatchOptions(redissionConfig.getPipeline()));
+            redissionService.setReadBatchOptions(RedissonConfigFactory.createReadBatchOptions(redissionConfig.getPipeline()));
+            redissionService.setPageSize(redissionConfig.getPageSize());
+            redissionService.setChunkSize(redissionConfig.getChunkSize());
+            hotKeyDetector.ifAvailable(redissionService::setHotKeyDetector);
         }
 
         return redissionService;
     }
 
+    /**
+     * 配置 LockTemplate，在本地分段锁与分布式锁的保护下执行回调
+     *
+     * @param redissionService Redis 缓存服务
+     * @return LockTemplate 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LockTemplate lockTemplate(RedissionService redissionService) {
+        CacheProperties.Lock lockConfig = properties.getRedission().getLock();
+        LockTemplate lockTemplate = new LockTemplate(redissionService, lockConfig.getStripes());
+        lockTemplate.setDefaultWaitTime(lockConfig.getWaitTime());
+        lockTemplate.setDefaultLeaseTime(lockConfig.getLeaseTime());
+        return lockTemplate;
+    }
+
+    /**
+     * 配置 LocalCachedMapService，Hash 类型数据按字段在本地缓存
+     *
+     * @param redissionService Redis 缓存服务
+     * @return LocalCachedMapService 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.redission.local-cached-map", name = "enable", havingValue = "true")
+    public LocalCachedMapService localCachedMapService(RedissionService redissionService) {
+        return new LocalCachedMapService(redissionService,
+                RedissonConfigFactory.createLocalCachedMapOptions(properties.getRedission().getLocalCachedMap()));
+    }
+
     /**
      * 配置 LocalCacheService，用于本地缓存服务
      *
+     * @param sizeEstimator 自定义的缓存项大小估算器，未提供时按 Jackson 序列化长度估算
      * @return LocalCacheService 实例
      */
     @Bean
     @ConditionalOnMissingBean
-    public LocalCacheService localCacheService() {
+    public LocalCacheService localCacheService(ObjectProvider<SizeEstimator> sizeEstimator) {
         LocalCacheService localCacheService = new LocalCacheService();
+        SizeEstimator estimator = sizeEstimator.getIfAvailable(JacksonSizeEstimator::new);
 
         CacheProperties.LocalCache localCacheConfig = properties.getLocalCache();
         if (localCacheConfig.isEnable()) {
             localCacheService.setMaximumSize(localCacheConfig.getMaximumSize());
+            localCacheService.setMaximumWeight(localCacheConfig.getMaximumWeight());
+            localCacheService.setSizeEstimator(estimator);
             localCacheService.setExpireAfterWrite(localCacheConfig.getExpireAfterWrite());
             localCacheService.setExpireAfterAccess(localCacheConfig.getExpireAfterAccess());
+            localCacheService.setRefreshAfterWrite(localCacheConfig.getRefreshAfterWrite());
+            localCacheService.setStaleTtl(localCacheConfig.getStaleTtl());
             localCacheService.setTimeUnit(TimeUnit.SECONDS);
             localCacheService.initCache(); // 启用缓存时初始化缓存
         }
 
+        // 命名区域，未启用本地缓存的区域不初始化，读取时直接返回空
+        properties.getRegions().forEach((name, regionConfig) -> {
+            LocalCacheService region = new LocalCacheService();
+            region.setName(name);
+            if (regionConfig.isLocalEnable()) {
+                region.setMaximumSize(regionConfig.getMaximumSize());
+                region.setMaximumWeight(regionConfig.getMaximumWeight());
+                region.setSizeEstimator(estimator);
+                region.setExpireAfterWrite(regionConfig.getExpireAfterWrite());
+                region.setExpireAfterAccess(regionConfig.getExpireAfterAccess());
+                region.setRefreshAfterWrite(regionConfig.getRefreshAfterWrite());
+                region.setStaleTtl(regionConfig.getStaleTtl());
+                region.setTimeUnit(TimeUnit.SECONDS);
+                region.initCache();
+            }
+            localCacheService.addRegion(region);
+        });
+
         return localCacheService;
     }
 
+    /**
+     * 配置 CacheWarmUpService，关闭时保存本地缓存快照，启动时加载快照并从 Redis 预加载
+     *
+     * @param localCacheService 本地缓存服务
+     * @param redissionService  Redis 缓存服务，未启用 Redis 时不预加载
+     * @return CacheWarmUpService 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.warm-up", name = "enable", havingValue = "true")
+    public CacheWarmUpService cacheWarmUpService(LocalCacheService localCacheService, ObjectProvider<RedissionService> redissionService) {
+        CacheProperties.WarmUp warmUpConfig = properties.getWarmUp();
+        CacheWarmUpService cacheWarmUpService = new CacheWarmUpService(localCacheService,
+                createCodec(properties.getRedission().getCodec(), new CompressionStats()));
+        if (warmUpConfig.isSnapshotEnable()) {
+            cacheWarmUpService.setSnapshotPath(Paths.get(warmUpConfig.getSnapshotPath()));
+        }
+        cacheWarmUpService.setSnapshotSize(warmUpConfig.getSnapshotSize());
+        cacheWarmUpService.setSnapshotMaxAge(TimeUnit.SECONDS.toMillis(warmUpConfig.getSnapshotMaxAge()));
+        cacheWarmUpService.setLoadThreads(warmUpConfig.getLoadThreads());
+        cacheWarmUpService.setPreloadPrefixes(warmUpConfig.getPreloadPrefixes());
+        cacheWarmUpService.setPreloadMaxKeys(warmUpConfig.getPreloadMaxKeys());
+        cacheWarmUpService.setScanBatchSize(warmUpConfig.getScanBatchSize());
+        redissionService.ifAvailable(service -> {
+            if (service.getRedissonClient() != null) {
+                cacheWarmUpService.setRedissionService(service);
+            }
+        });
+        return cacheWarmUpService;
+    }
+
+    /**
+     * 在应用开始接收请求之前预热本地缓存，所有 ApplicationRunner 执行完成后应用才进入就绪状态
+     *
+     * @param cacheWarmUpService 本地缓存预热服务
+     * @return 启动回调
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mosu.cache.warm-up", name = "enable", havingValue = "true")
+    public ApplicationRunner mosuCacheWarmUpRunner(CacheWarmUpService cacheWarmUpService) {
+        return args -> cacheWarmUpService.warmUp();
+    }
+
+    /**
+     * 配置 CacheSyncService，用于多节点之间的本地缓存失效同步
+     * <p>
+     * 创建时不访问 Redis，由连接预热线程或第一次发布消息时订阅，Redis 不可达不影响启动。
+     * </p>
+     *
+     * @param redissonClient 延迟创建的 RedissonClient
+     * @return CacheSyncService 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(RedissonClient.class)
+    @ConditionalOnProperty(prefix = "mosu.cache.multilevel", name = "sync-enable", havingValue = "true")
+    public CacheSyncService cacheSyncService(ObjectProvider<RedissonClient> redissonClient) {
+        return new CacheSyncService(redissonClient::getObject, properties.getMultilevel().getSyncTopic());
+    }
+
+    /**
+     * 配置 WriteBehindService，用于二级缓存的延迟批量写入
+     *
+     * @param redissionService Redis 缓存服务
+     * @return WriteBehindService 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.multilevel.write-behind", name = "enable", havingValue = "true")
+    public WriteBehindService writeBehindService(RedissionService redissionService) {
+        CacheProperties.WriteBehind writeBehindConfig = properties.getMultilevel().getWriteBehind();
+        return new WriteBehindService(redissionService, writeBehindConfig.getFlushInterval(), writeBehindConfig.getBatchSize(),
+                writeBehindConfig.getMaxPending(), writeBehindConfig.getOfferTimeout());
+    }
+
+    /**
+     * 配置 OffHeapCacheService，作为本地缓存与 Redis 之间的堆外缓存层
+     *
+     * @return OffHeapCacheService 实例，与 RedissonClient 使用相同的编解码器序列化缓存值
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.multilevel.off-heap", name = "enable", havingValue = "true")
+    public OffHeapCacheService offHeapCacheService() {
+        CacheProperties.OffHeap offHeapConfig = properties.getMultilevel().getOffHeap();
+        OffHeapCacheService offHeapCacheService = new OffHeapCacheService(offHeapConfig.getCapacity() * 1024 * 1024,
+                offHeapConfig.getSegmentSize() * 1024, offHeapConfig.getShards(),
+                createCodec(properties.getRedission().getCodec(), new CompressionStats()));
+        offHeapCacheService.setTtl(TimeUnit.SECONDS.toMillis(offHeapConfig.getTtl()));
+        return offHeapCacheService;
+    }
+
+    /**
+     * 配置 BloomFilterService，在访问 Redis 与数据源之前过滤一定不存在的 key
+     * <p>
+     * 创建时不访问 Redis，由连接预热线程、定期同步或第一次使用时订阅并加载位图，加载之前不做过滤。
+     * </p>
+     *
+     * @param redissonClient 延迟创建的 RedissonClient
+     * @return BloomFilterService 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(RedissonClient.class)
+    @ConditionalOnProperty(prefix = "mosu.cache.multilevel.bloom-filter", name = "enable", havingValue = "true")
+    public BloomFilterService bloomFilterService(ObjectProvider<RedissonClient> redissonClient) {
+        CacheProperties.BloomFilter bloomFilterConfig = properties.getMultilevel().getBloomFilter();
+        return new BloomFilterService(redissonClient::getObject, bloomFilterConfig.getName(), bloomFilterConfig.getExpectedInsertions(),
+                bloomFilterConfig.getFalseProbability(), bloomFilterConfig.getResyncInterval());
+    }
+
+    /**
+     * 配置 RedisCircuitBreaker，Redis 读取连续失败或过慢时熔断，二级缓存降级为只读本地缓存
+     *
+     * @return RedisCircuitBreaker 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mosu.cache.multilevel.circuit-breaker", name = "enable", havingValue = "true")
+    public RedisCircuitBreaker redisCircuitBreaker() {
+        CacheProperties.CircuitBreaker breakerConfig = properties.getMultilevel().getCircuitBreaker();
+        return new RedisCircuitBreaker(breakerConfig.getFailureThreshold(), breakerConfig.getSlowCallThreshold(),
+                breakerConfig.getOpenDuration());
+    }
+
     @Bean
     @ConditionalOnBean({RedissionService.class, LocalCacheService.class})
     @ConditionalOnMissingBean
-    public LocalCacheAndRedissonService localCacheAndRedissonService(LocalCacheService localCacheService, RedissionService redissonService) {
-        return new LocalCacheAndRedissonService(localCacheService, redissonService);
+    public LocalCacheAndRedissonService localCacheAndRedissonService(LocalCacheService localCacheService, RedissionService redissonService,
+                                                                     ObjectProvider<CacheSyncService> cacheSyncService,
+                                                                     ObjectProvider<WriteBehindService> writeBehindService,
+                                                                     ObjectProvider<OffHeapCacheService> offHeapCacheService,
+                                                                     ObjectProvider<BloomFilterService> bloomFilterService,
+                                                                     ObjectProvider<RedisCircuitBreaker> circuitBreaker) {
+        LocalCacheAndRedissonService localCacheAndRedissonService = new LocalCacheAndRedissonService(localCacheService, redissonService);
+        CacheProperties.Multilevel multilevelConfig = properties.getMultilevel();
+        localCacheAndRedissonService.setLoadLockWaitTime(multilevelConfig.getLoadLockWaitTime());
+        localCacheAndRedissonService.setLoadLockLeaseTime(multilevelConfig.getLoadLockLeaseTime());
+        localCacheAndRedissonService.setRedisTtl(multilevelConfig.getRedisTtl());
+        localCacheAndRedissonService.setTtlPolicy(ttlPolicy(multilevelConfig));
+        if (multilevelConfig.getNegativeTtl() > 0) {
+            localCacheAndRedissonService.enableNegativeCache(multilevelConfig.getNegativeTtl(), multilevelConfig.getNegativeMaximumSize());
+        }
+
+        // 每个命名区域使用各自的本地缓存与 Redis 过期策略
+        properties.getRegions().forEach((name, regionConfig) -> {
+            LocalCacheAndRedissonService region = new LocalCacheAndRedissonService(localCacheService.region(name), redissonService);
+            region.setLoadLockWaitTime(multilevelConfig.getLoadLockWaitTime());
+            region.setLoadLockLeaseTime(multilevelConfig.getLoadLockLeaseTime());
+            region.setRedisEnable(regionConfig.isRedisEnable() && properties.getRedission().isEnable());
+            region.setRedisTtl(regionConfig.getRedisTtl());
+            region.setTtlPolicy(ttlPolicy(multilevelConfig));
+            region.setLocalCacheExclusive(true); // 命名区域的本地缓存只由二级缓存写入
+            circuitBreaker.ifAvailable(region::setCircuitBreaker); // 所有区域共用同一个 Redis 连接，熔断状态也共用
+            if (multilevelConfig.getNegativeTtl() > 0) {
+                region.enableNegativeCache(multilevelConfig.getNegativeTtl(), multilevelConfig.getNegativeMaximumSize());
+            }
+            localCacheAndRedissonService.addRegion(region);
+        });
+        cacheSyncService.ifAvailable(localCacheAndRedissonService::setCacheSyncService);
+        writeBehindService.ifAvailable(localCacheAndRedissonService::setWriteBehindService);
+        offHeapCacheService.ifAvailable(localCacheAndRedissonService::setOffHeapCacheService);
+        bloomFilterService.ifAvailable(localCacheAndRedissonService::setBloomFilterService);
+        circuitBreaker.ifAvailable(localCacheAndRedissonService::setCircuitBreaker);
+        return localCacheAndRedissonService;
+    }
+
+    /**
+     * 配置 CacheManager，使 Spring Cache 注解使用二级缓存，缓存名称对应同名的缓存区域
+     *
+     * @param localCacheAndRedissonService 二级缓存服务
+     * @return CacheManager 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean(CacheManager.class)
+    @ConditionalOnBean(LocalCacheAndRedissonService.class)
+    @ConditionalOnProperty(prefix = "mosu.cache.spring-cache", name = "enable", havingValue = "true")
+    public MosuCacheManager cacheManager(LocalCacheAndRedissonService localCacheAndRedissonService) {
+        CacheProperties.SpringCache springCacheConfig = properties.getSpringCache();
+        return new MosuCacheManager(localCacheAndRedissonService, springCacheConfig.isAllowNullValues(), springCacheConfig.isDynamic());
     }
 
     /**
@@ -110,12 +461,14 @@ public class CacheAutoConfiguration {
      *
      * @param redissonService  Redis 缓存服务
      * @param localCacheService 本地缓存服务
+     * @param localCacheAndRedissonService 二级缓存服务
      * @return 缓存服务实例
      */
     @Bean
     @Primary
     @ConditionalOnMissingBean
-    public Object cacheService(RedissionService redissonService, LocalCacheService localCacheService) {
+    public Object cacheService(RedissionService redissonService, LocalCacheService localCacheService,
+                               LocalCacheAndRedissonService localCacheAndRedissonService) {
         CacheProperties.LocalCache localCacheConfig = properties.getLocalCache();
         CacheProperties.Redission redissionConfig = properties.getRedission();
 
@@ -123,7 +476,7 @@ public class CacheAutoConfiguration {
         if (localCacheConfig.isEnable()) {
             if (redissionConfig.isEnable()) {
                 // 二级缓存启用，优先使用本地缓存，再使用 Redis
-                return new LocalCacheAndRedissonService(localCacheService, redissonService);
+                return localCacheAndRedissonService;
             }
             // 只有本地缓存启用
             return localCacheService;
@@ -137,4 +490,57 @@ public class CacheAutoConfiguration {
         // 如果都未启用，返回 null
         return null;
     }
+
+    /**
+     * 指标配置，classpath 中存在 Micrometer 时生效，容器中存在 MeterRegistry 时注册缓存指标
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "mosu.cache.metrics", name = "enable", havingValue = "true", matchIfMissing = true)
+    static class MetricsConfiguration {
+
+        /**
+         * 配置 MosuCacheMetrics，汇总各层缓存的统计信息
+         *
+         * @return MosuCacheMetrics 实例
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public MosuCacheMetrics mosuCacheMetrics(CacheProperties properties, LocalCacheService localCacheService,
+                                                 ObjectProvider<LocalCacheAndRedissonService> localCacheAndRedissonService,
+                                                 ObjectProvider<RedissionService> redissionService,
+                                                 ObjectProvider<WriteBehindService> writeBehindService,
+                                                 ObjectProvider<OffHeapCacheService> offHeapCacheService,
+                                                 ObjectProvider<CompressionStats> compressionStats,
+                                                 ObjectProvider<HotKeyDetector> hotKeyDetector,
+                                                 ObjectProvider<LockTemplate> lockTemplate,
+                                                 ObjectProvider<RedisCircuitBreaker> circuitBreaker,
+                                                 ObjectProvider<CacheWarmUpService> cacheWarmUpService) {
+            MosuCacheMetrics metrics = new MosuCacheMetrics(localCacheService);
+            localCacheAndRedissonService.ifAvailable(metrics::setLocalCacheAndRedissonService);
+            redissionService.ifAvailable(metrics::setRedissionService);
+            writeBehindService.ifAvailable(metrics::setWriteBehindService);
+            offHeapCacheService.ifAvailable(metrics::setOffHeapCacheService);
+            compressionStats.ifAvailable(metrics::setCompressionStats);
+            hotKeyDetector.ifAvailable(metrics::setHotKeyDetector);
+            lockTemplate.ifAvailable(metrics::setLockTemplate);
+            circuitBreaker.ifAvailable(metrics::setCircuitBreaker);
+            cacheWarmUpService.ifAvailable(metrics::setCacheWarmUpService);
+            metrics.setPercentileHistogram(properties.getMetrics().isPercentileHistogram());
+            return metrics;
+        }
+
+        /**
+         * 所有单例初始化完成后，将缓存指标注册到 MeterRegistry
+         *
+         * @param meterRegistry    指标注册表，不存在时不注册
+         * @param mosuCacheMetrics 缓存指标
+         * @return 初始化回调
+         */
+        @Bean
+        public SmartInitializingSingleton mosuCacheMetricsBinder(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                 MosuCacheMetrics mosuCacheMetrics) {
+            return () -> meterRegistry.ifAvailable(mosuCacheMetrics::bindTo);
+        }
+    }
 }
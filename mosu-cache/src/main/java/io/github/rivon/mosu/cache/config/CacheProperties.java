@@ -3,30 +3,219 @@ package io.github.rivon.mosu.cache.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @ConfigurationProperties(prefix = "mosu.cache")
 public class CacheProperties {
 
-    private LocalCache localCache;
-    private Redission redission;
+    private LocalCache localCache = new LocalCache(); // 本地缓存配置
+    private Redission redission = new Redission(); // Redis 配置，未配置时不启用 Redis
+    private Multilevel multilevel = new Multilevel();
+    private Map<String, Region> regions = new LinkedHashMap<>(); // 命名缓存区域，key 为区域名称
+    private SpringCache springCache = new SpringCache(); // Spring Cache 注解支持
+    private Metrics metrics = new Metrics(); // 指标配置
+    private WarmUp warmUp = new WarmUp(); // 本地缓存预热配置
+
+    @Data
+    public static class WarmUp {
+        private boolean enable; // 是否在启动时预热本地缓存 默认不启用 false
+        private boolean snapshotEnable = true; // 是否在关闭时保存本地缓存快照并在启动时加载 默认 true
+        private String snapshotPath = "mosu-cache.snapshot"; // 快照文件路径，同一主机上的多个应用需分别配置
+        private int snapshotSize = 10000; // 每个区域写入快照的最大缓存项数
+        private long snapshotMaxAge = 3600; // 快照的最长有效期，超过后不再加载 单位秒
+        private int loadThreads = Runtime.getRuntime().availableProcessors(); // 加载快照的并行线程数 默认CPU核数
+        private List<String> preloadPrefixes = new ArrayList<>(); // 启动时从 Redis 预加载到默认区域的 key 前缀
+        private int preloadMaxKeys = 10000; // 每个前缀最多预加载的 key 数
+        private int scanBatchSize = 500; // 预加载时每次 SCAN 与 MGET 的 key 数
+    }
+
+    @Data
+    public static class Metrics {
+        private boolean enable = true; // 存在 MeterRegistry 时是否注册缓存指标 默认 true
+        private boolean percentileHistogram = true; // Redis 命令耗时是否发布直方图 默认 true
+    }
+
+    @Data
+    public static class SpringCache {
+        private boolean enable; // 是否注册基于二级缓存的 CacheManager 默认不启用 false
+        private boolean allowNullValues = true; // 是否缓存 null 值 默认 true
+        private boolean dynamic = true; // 是否允许使用未配置区域的缓存名称，这些缓存使用默认区域 默认 true
+    }
+
+    @Data
+    public static class Region {
+        private boolean localEnable = true; // 是否启用本区域的本地缓存 默认启用 true
+        private int maximumSize = 10000; // 本地缓存最大容量 默认10000
+        private long maximumWeight; // 本地缓存内存预算，大于0时按估算字节数淘汰 默认0按条数淘汰 单位MB
+        private long expireAfterWrite; // 本地缓存写入后过期时间 默认0不过期 单位秒
+        private long expireAfterAccess; // 本地缓存最后一次访问后过期时间 默认0不过期 单位秒
+        private long refreshAfterWrite; // 本地缓存写入后多久在后台异步刷新 默认0不刷新 单位秒
+        private long staleTtl; // 本地缓存逻辑过期后继续保留的时间，Redis 熔断时返回旧值，需同时设置 expireAfterWrite 默认0不保留 单位秒
+        private boolean redisEnable = true; // 是否使用 Redis 作为二级缓存 默认启用 true
+        private long redisTtl; // Redis 中数据的过期时间 默认0不过期 单位秒
+    }
 
     @Data
     public static class LocalCache {
         private boolean enable; // 是否启用 默认不启用 false
         private int maximumSize; // 最大容量 默认10000
+        private long maximumWeight; // 内存预算，大于0时按估算字节数淘汰，maximumSize 不再生效 默认0按条数淘汰 单位MB
         private long expireAfterWrite; // 写入后过期时间 默认1天 单位毫秒
         private long expireAfterAccess; // 最后一次访问后过期时间 默认30分钟 单位毫秒
+        private long refreshAfterWrite; // 写入后多久在后台异步刷新，刷新期间继续返回旧值，需小于 expireAfterWrite 默认0不刷新 单位秒
+        private long staleTtl; // 逻辑过期后继续保留的时间，Redis 熔断时返回旧值，需同时设置 expireAfterWrite 默认0不保留 单位秒
     }
 
     @Data
     public static class Redission {
-        private boolean enable; // 是否启用 默认不启用 false
-        private String host;  // 连接地址
+        private boolean enable; // 是否启用 默认不启用 false，不启用时不创建 RedissonClient，也不连接 Redis
+        private boolean connectWarmUp = true; // 是否在启动时于后台创建 RedissonClient 并预热连接池，否则在第一次访问 Redis 时创建 默认 true
+        private long connectWarmUpTimeout = 10000; // 应用就绪前等待连接预热的最长时间，超时后连接在后台继续建立 单位毫秒
+        private String mode = "single"; // 部署方式 single/cluster/sentinel/master-slave 默认single
+        private String host;  // 连接地址，主从模式下为主节点地址
         private int port; // 连接端口号
+        private List<String> nodes = new ArrayList<>(); // 节点地址列表 host:port，集群模式为种子节点，哨兵模式为哨兵节点，主从模式为从节点
+        private String masterName; // 哨兵模式下的主节点名称
+        private String readMode = "MASTER"; // 读取模式 MASTER/SLAVE/MASTER_SLAVE，SLAVE 表示从从节点读取 默认MASTER
+        private int scanInterval = 1000; // 集群与哨兵模式下拓扑扫描间隔 单位毫秒
         private int database; // 数据库索引 默认0
         private String password; // 连接密码
         private int timeOut; // 超时时间 单位毫秒 默认3000毫秒
         private boolean ssl; // 是否加密 默认不加密 false
+        private String codec = "json"; // 值的编解码器 json/smile/kryo/marshalling/jdk/string 或 Codec 实现类全限定名 默认json
+        private Map<String, String> codecOverrides = new LinkedHashMap<>(); // 按 key 前缀覆盖编解码器，key 为前缀，value 为编解码器名称
+        private Compression compression = new Compression(); // 值压缩配置
+        private HotKey hotKey = new HotKey(); // 热点 key 探测配置
+        private Pool pool = new Pool(); // 连接池配置，集群与主从模式下作用于每个节点
+        private Pipeline pipeline = new Pipeline(); // 批量命令的管道配置
+        private Lock lock = new Lock(); // 分布式锁模板配置
+        private int pageSize = 1000; // 流式读取 List/Set/Map 时每页的元素数
+        private int chunkSize = 1000; // 写入 List/Set/Map 时每条命令携带的元素数
+        private LocalCachedMap localCachedMap = new LocalCachedMap(); // 本地缓存 Map 配置
+    }
+
+    @Data
+    public static class LocalCachedMap {
+        private boolean enable; // 是否启用本地缓存 Map 默认不启用 false
+        private int cacheSize = 1000; // 每个 Map 本地副本的最大字段数 0表示不限制
+        private String evictionPolicy = "LRU"; // 本地副本的淘汰策略 NONE/LRU/LFU/SOFT/WEAK 默认LRU
+        private String syncStrategy = "INVALIDATE"; // 字段修改后其他节点本地副本的同步方式 NONE/INVALIDATE/UPDATE 默认INVALIDATE
+        private String reconnectionStrategy = "CLEAR"; // 断线重连后本地副本的处理方式 NONE/CLEAR/LOAD 默认CLEAR
+        private long timeToLive; // 本地副本中字段的存活时间 默认0不过期 单位毫秒
+        private long maxIdle; // 本地副本中字段的最大空闲时间 默认0不过期 单位毫秒
+        private boolean storeCacheMiss; // 是否在本地副本中记录不存在的字段 默认false
+    }
+
+    @Data
+    public static class Lock {
+        private int stripes = 1024; // 本地分段锁的分段数
+        private long waitTime = 5000; // 默认等待时间，包括本地排队时间 单位毫秒
+        private long leaseTime = -1; // 默认持有时间，小于0时由看门狗自动续期 单位毫秒
+    }
+
+    @Data
+    public static class Pool {
+        private int connectionPoolSize = 64; // 单节点或主节点的连接池大小
+        private int connectionMinimumIdleSize = 24; // 单节点或主节点的最小空闲连接数
+        private int slaveConnectionPoolSize = 64; // 每个从节点的连接池大小
+        private int slaveConnectionMinimumIdleSize = 24; // 每个从节点的最小空闲连接数
+        private int subscriptionConnectionPoolSize = 50; // 发布订阅连接池大小
+        private int timeout = 3000; // 命令响应超时时间 单位毫秒
+        private int retryAttempts = 3; // 命令发送失败的重试次数
+        private int retryInterval = 1500; // 命令重试间隔 单位毫秒
+        private int idleConnectionTimeout = 10000; // 空闲连接的关闭时间 单位毫秒
+        private int pingConnectionInterval = 30000; // 连接心跳间隔 0表示不发送心跳 单位毫秒
+    }
+
+    @Data
+    public static class Pipeline {
+        private String executionMode = "IN_MEMORY"; // 执行方式 IN_MEMORY/IN_MEMORY_ATOMIC/REDIS_READ_ATOMIC/REDIS_WRITE_ATOMIC 默认IN_MEMORY
+        private long responseTimeout; // 批量命令的响应超时时间 默认0使用命令超时时间 单位毫秒
+        private int retryAttempts = -1; // 批量命令的重试次数 默认-1使用连接池配置
+        private long retryInterval; // 批量命令的重试间隔 默认0使用连接池配置 单位毫秒
+        private boolean skipResult; // 批量写入是否不返回执行结果，可减少响应流量，只作用于写入 默认false
+    }
+
+    @Data
+    public static class HotKey {
+        private boolean enable; // 是否启用热点 key 探测 默认不启用 false
+        private int capacity = 1000; // 最多跟踪的 key 数
+        private int sampleRate = 16; // 采样率，每 sampleRate 次读取采样一次
+        private long threshold = 1000; // 热点阈值，衰减周期内估计的访问次数
+        private long decayInterval = 60000; // 衰减周期，计数每经过一个周期减半 单位毫秒
+        private long promoteTtl = 2000; // 热点 key 提升到本地缓存后的过期时间，0 表示只探测不提升 单位毫秒
+        private int promoteMaxSize = 1000; // 提升到本地缓存的最大 key 数
+    }
+
+    @Data
+    public static class Compression {
+        private boolean enable; // 是否启用值压缩 默认不启用 false
+        private int threshold = 4096; // 压缩阈值，编码后达到该字节数的值才压缩 默认4096字节
+        /**
+         * Redis 中是否可能存在启用压缩前写入的存量数据 默认true
+         * <p>
+         * 为 true 时没有标记字节的值按未压缩的存量数据解码，只支持 json、string 等文本格式的编解码器；
+         * 使用 kryo、smile、marshalling、jdk 等二进制编解码器时，二进制数据可能恰好以标记字节开头而无法区分，
+         * 必须在清空或迁移存量数据后设为 false 才能启用压缩，否则启动失败。
+         * </p>
+         */
+        private boolean legacyData = true;
+    }
+
+    @Data
+    public static class Multilevel {
+        private boolean syncEnable; // 是否启用多节点本地缓存失效同步 默认不启用 false
+        private String syncTopic = "mosu:cache:invalidate"; // 失效消息广播的主题名称
+        private long loadLockWaitTime = 3000; // 缓存加载时等待分布式锁的最长时间 单位毫秒
+        private long loadLockLeaseTime = 10000; // 缓存加载分布式锁的自动释放时间 单位毫秒
+        private WriteBehind writeBehind = new WriteBehind(); // 延迟写入配置
+        private OffHeap offHeap = new OffHeap(); // 堆外缓存配置
+        private long negativeTtl; // 空结果缓存的过期时间，加载函数返回 null 时缓存空结果 默认0不缓存 单位秒
+        private long negativeMaximumSize = 10000; // 本地空结果缓存的最大容量
+        private BloomFilter bloomFilter = new BloomFilter(); // 布隆过滤器配置
+        private long redisTtl; // 默认区域 Redis 中数据的过期时间 默认0不过期 单位秒
+        private double ttlJitter; // Redis 过期时间的随机抖动比例，0.1 表示最多增加 10% 默认0不抖动
+        private boolean capLocalTtl; // 本地缓存的过期时间是否不超过 Redis 中的剩余过期时间，开启后读取 Redis 时同时读取 PTTL 默认false
+        private CircuitBreaker circuitBreaker = new CircuitBreaker(); // Redis 熔断配置
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enable; // 是否启用 Redis 熔断与降级读取 默认不启用 false
+        private int failureThreshold = 5; // 触发熔断的连续失败次数
+        private long slowCallThreshold = 500; // 超过该耗时的读取视为失败 0表示不按耗时判断 单位毫秒
+        private long openDuration = 5000; // 熔断持续时间，之后放行一个探测请求 单位毫秒
+    }
+
+    @Data
+    public static class BloomFilter {
+        private boolean enable; // 是否启用布隆过滤器，需要预先将已存在的 key 全部加入 默认不启用 false
+        private String name = "mosu:cache:bloom"; // 位图在 Redis 中的 key
+        private long expectedInsertions = 1000000; // 预期元素数量
+        private double falseProbability = 0.01; // 误判率
+        private long resyncInterval = 60000; // 从 Redis 全量同步位图到本地的间隔 0表示不定期同步 单位毫秒
+    }
+
+    @Data
+    public static class OffHeap {
+        private boolean enable; // 是否启用堆外缓存，本地缓存淘汰的数据降级存入堆外缓存 默认不启用 false
+        private long capacity = 256; // 直接内存预算，需小于 -XX:MaxDirectMemorySize 单位MB
+        private int segmentSize = 1024; // 段大小，同时也是单个值序列化后的大小上限 单位KB
+        private int shards = 16; // 分片数，分片之间读写互不阻塞
+        private long ttl; // 缓存项存活时间 默认0不过期 单位秒
+    }
+
+    @Data
+    public static class WriteBehind {
+        private boolean enable; // 是否启用延迟写入 默认不启用 false
+        private long flushInterval = 100; // 刷新间隔 单位毫秒
+        private int batchSize = 500; // 每批写入 Redis 的最大 key 数
+        private int maxPending = 10000; // 队列中待写入 key 的上限
+        private long offerTimeout = 50; // 队列已满时写入线程等待的最长时间，超时后同步写入 单位毫秒
     }
 }
 
@@ -0,0 +1,182 @@
+package io.github.rivon.mosu.cache.config;
+
+import org.redisson.api.BatchOptions;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.client.codec.Codec;
+import org.redisson.config.BaseConfig;
+import org.redisson.config.BaseMasterSlaveServersConfig;
+import org.redisson.config.ClusterServersConfig;
+import org.redisson.config.Config;
+import org.redisson.config.MasterSlaveServersConfig;
+import org.redisson.config.ReadMode;
+import org.redisson.config.SentinelServersConfig;
+import org.redisson.config.SingleServerConfig;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redisson 配置工厂
+ * <p>
+ * 根据 {@link CacheProperties.Redission} 的 mode 创建对应部署方式的配置，支持的模式如下：
+ * <ul>
+ *     <li>single：单节点，默认值，使用 host 与 port</li>
+ *     <li>cluster：Redis Cluster，nodes 为种子节点地址，其余节点通过拓扑扫描发现</li>
+ *     <li>sentinel：哨兵模式，nodes 为哨兵地址，masterName 为主节点名称</li>
+ *     <li>master-slave：主从模式，host 与 port 为主节点地址，nodes 为从节点地址</li>
+ * </ul>
+ * 非单节点模式下 readMode 决定读取命令发往主节点还是从节点，从节点与主节点分别使用独立的连接池。
+ * 节点地址格式为 host:port，未指定协议时按 ssl 配置补全 redis:// 或 rediss://。
+ * </p>
+ */
+public final class RedissonConfigFactory {
+
+    private RedissonConfigFactory() {
+    }
+
+    /**
+     * 创建 Redisson 配置
+     *
+     * @param redission Redis 连接配置
+     * @param codec     值的编解码器
+     * @return Redisson 配置
+     */
+    public static Config create(CacheProperties.Redission redission, Codec codec) {
+        Config config = new Config();
+        config.setCodec(codec);
+        CacheProperties.Pool pool = redission.getPool();
+        String mode = redission.getMode() == null ? "single" : redission.getMode().trim().toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case "single":
+                SingleServerConfig single = config.useSingleServer()
+                        .setAddress(address(redission, redission.getHost() + ":" + redission.getPort()))
+                        .setDatabase(redission.getDatabase())
+                        .setConnectionPoolSize(pool.getConnectionPoolSize())
+                        .setConnectionMinimumIdleSize(pool.getConnectionMinimumIdleSize())
+                        .setSubscriptionConnectionPoolSize(pool.getSubscriptionConnectionPoolSize());
+                applyBase(single, redission);
+                break;
+            case "cluster":
+                ClusterServersConfig cluster = config.useClusterServers()
+                        .setScanInterval(redission.getScanInterval());
+                requireNodes(redission, mode).forEach(node -> cluster.addNodeAddress(address(redission, node)));
+                applyMasterSlave(cluster, redission);
+                break;
+            case "sentinel":
+                if (redission.getMasterName() == null || redission.getMasterName().isBlank()) {
+                    throw new IllegalArgumentException("mosu.cache.redission.master-name is required in sentinel mode");
+                }
+                SentinelServersConfig sentinel = config.useSentinelServers()
+                        .setMasterName(redission.getMasterName())
+                        .setDatabase(redission.getDatabase())
+                        .setScanInterval(redission.getScanInterval());
+                requireNodes(redission, mode).forEach(node -> sentinel.addSentinelAddress(address(redission, node)));
+                applyMasterSlave(sentinel, redission);
+                break;
+            case "master-slave":
+                MasterSlaveServersConfig masterSlave = config.useMasterSlaveServers()
+                        .setMasterAddress(address(redission, redission.getHost() + ":" + redission.getPort()))
+                        .setDatabase(redission.getDatabase());
+                requireNodes(redission, mode).forEach(node -> masterSlave.addSlaveAddress(address(redission, node)));
+                applyMasterSlave(masterSlave, redission);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported redis mode: " + redission.getMode());
+        }
+        return config;
+    }
+
+    /**
+     * 创建批量命令的管道选项
+     *
+     * @param pipeline 管道配置
+     * @return 管道选项
+     */
+    public static BatchOptions createBatchOptions(CacheProperties.Pipeline pipeline) {
+        BatchOptions options = createReadBatchOptions(pipeline);
+        if (pipeline.isSkipResult()) {
+            options.skipResult();
+        }
+        return options;
+    }
+
+    /**
+     * 创建批量读取使用的管道选项，与写入使用相同的执行方式、超时与重试配置，但始终返回执行结果
+     *
+     * @param pipeline 管道配置
+     * @return 批量读取的管道选项
+     */
+    public static BatchOptions createReadBatchOptions(CacheProperties.Pipeline pipeline) {
+        BatchOptions options = BatchOptions.defaults()
+                .executionMode(BatchOptions.ExecutionMode.valueOf(upper(pipeline.getExecutionMode())));
+        if (pipeline.getResponseTimeout() > 0) {
+            options.responseTimeout(pipeline.getResponseTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (pipeline.getRetryAttempts() >= 0) {
+            options.retryAttempts(pipeline.getRetryAttempts());
+        }
+        if (pipeline.getRetryInterval() > 0) {
+            options.retryInterval(pipeline.getRetryInterval(), TimeUnit.MILLISECONDS);
+        }
+        return options;
+    }
+
+    /**
+     * 创建本地缓存 Map 的选项
+     *
+     * @param localCachedMap 本地缓存 Map 配置
+     * @return 本地缓存 Map 选项
+     */
+    public static LocalCachedMapOptions<Object, Object> createLocalCachedMapOptions(CacheProperties.LocalCachedMap localCachedMap) {
+        return LocalCachedMapOptions.<Object, Object>defaults()
+                .cacheSize(localCachedMap.getCacheSize())
+                .evictionPolicy(LocalCachedMapOptions.EvictionPolicy.valueOf(upper(localCachedMap.getEvictionPolicy())))
+                .syncStrategy(LocalCachedMapOptions.SyncStrategy.valueOf(upper(localCachedMap.getSyncStrategy())))
+                .reconnectionStrategy(LocalCachedMapOptions.ReconnectionStrategy.valueOf(upper(localCachedMap.getReconnectionStrategy())))
+                .timeToLive(localCachedMap.getTimeToLive())
+                .maxIdle(localCachedMap.getMaxIdle())
+                .storeCacheMiss(localCachedMap.isStoreCacheMiss());
+    }
+
+    private static <T extends BaseMasterSlaveServersConfig<T>> void applyMasterSlave(T serversConfig, CacheProperties.Redission redission) {
+        CacheProperties.Pool pool = redission.getPool();
+        serversConfig.setReadMode(ReadMode.valueOf(upper(redission.getReadMode())))
+                .setMasterConnectionPoolSize(pool.getConnectionPoolSize())
+                .setMasterConnectionMinimumIdleSize(pool.getConnectionMinimumIdleSize())
+                .setSlaveConnectionPoolSize(pool.getSlaveConnectionPoolSize())
+                .setSlaveConnectionMinimumIdleSize(pool.getSlaveConnectionMinimumIdleSize())
+                .setSubscriptionConnectionPoolSize(pool.getSubscriptionConnectionPoolSize());
+        applyBase(serversConfig, redission);
+    }
+
+    private static <T extends BaseConfig<T>> void applyBase(T serversConfig, CacheProperties.Redission redission) {
+        CacheProperties.Pool pool = redission.getPool();
+        serversConfig.setConnectTimeout(redission.getTimeOut())
+                .setPassword(redission.getPassword())
+                .setTimeout(pool.getTimeout())
+                .setRetryAttempts(pool.getRetryAttempts())
+                .setRetryInterval(pool.getRetryInterval())
+                .setIdleConnectionTimeout(pool.getIdleConnectionTimeout())
+                .setPingConnectionInterval(pool.getPingConnectionInterval());
+    }
+
+    private static String upper(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static List<String> requireNodes(CacheProperties.Redission redission, String mode) {
+        if (redission.getNodes() == null || redission.getNodes().isEmpty()) {
+            throw new IllegalArgumentException("mosu.cache.redission.nodes is required in " + mode + " mode");
+        }
+        return redission.getNodes();
+    }
+
+    private static String address(CacheProperties.Redission redission, String node) {
+        String trimmed = node.trim();
+        if (trimmed.contains("://")) {
+            return trimmed;
+        }
+        return (redission.isSsl() ? "rediss://" : "redis://") + trimmed; // 加密模式使用 rediss
+    }
+}
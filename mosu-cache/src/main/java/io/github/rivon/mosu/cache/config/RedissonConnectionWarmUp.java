@@ -0,0 +1,109 @@
+package io.github.rivon.mosu.cache.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * RedissonClient 连接预热
+ * <p>
+ * RedissonClient 是延迟创建的单例，默认在第一次访问 Redis 时才创建并建立连接池。启用预热后，所有单例初始化完成时
+ * 在后台线程中创建 RedissonClient 并 PING 所有节点，与应用其余的启动过程并行执行；应用就绪之前（ApplicationRunner 阶段）
+ * 最多等待 timeout，之后开始接收请求时连接池已经建立。
+ * 连接建立后在同一后台线程中执行通过 {@link #onConnected(Runnable)} 注册的回调，例如订阅主题、加载布隆过滤器位图。
+ * </p>
+ * <p>
+ * Redis 不可达或预热超时时只记录日志，不阻止应用启动；创建失败的单例不会被缓存，之后的第一次访问会重新尝试创建。
+ * </p>
+ */
+@Slf4j
+public class RedissonConnectionWarmUp implements SmartInitializingSingleton, ApplicationRunner {
+
+    private final ObjectProvider<RedissonClient> redissonClient;
+    private final long timeout; // 应用就绪前等待预热完成的最长时间 单位毫秒
+    private volatile CompletableFuture<Void> warmUp;
+    private final List<Runnable> connectedCallbacks = new CopyOnWriteArrayList<>(); // 连接建立后执行的回调
+
+    /**
+     * 构造函数
+     *
+     * @param redissonClient 延迟创建的 RedissonClient
+     * @param timeout        应用就绪前等待预热完成的最长时间，0 表示不等待 单位毫秒
+     */
+    public RedissonConnectionWarmUp(ObjectProvider<RedissonClient> redissonClient, long timeout) {
+        this.redissonClient = redissonClient;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 注册连接建立后在预热线程中执行的回调，需要在所有单例初始化完成之前注册
+     *
+     * @param callback 回调，抛出的异常只记录日志
+     */
+    public void onConnected(Runnable callback) {
+        connectedCallbacks.add(callback);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp = new CompletableFuture<>();
+        Thread thread = new Thread(this::connect, "mosu-cache-redisson-connect");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        CompletableFuture<Void> future = warmUp;
+        if (future == null || timeout <= 0) {
+            return;
+        }
+        try {
+            future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Redisson connection warm-up did not finish in {} ms, continuing startup", timeout);
+        } catch (ExecutionException e) {
+            // 失败原因已在预热线程中记录
+        }
+    }
+
+    /**
+     * @return 预热是否已成功完成
+     */
+    public boolean isDone() {
+        CompletableFuture<Void> future = warmUp;
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    private void connect() {
+        long start = System.nanoTime();
+        try {
+            RedissonClient client = redissonClient.getObject();
+            if (!client.getNodesGroup().pingAll()) {
+                log.warn("Redisson connected, but not all Redis nodes answered PING");
+            }
+            log.info("Redisson connection pool warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            for (Runnable callback : connectedCallbacks) {
+                try {
+                    callback.run();
+                } catch (RuntimeException e) {
+                    log.warn("Redisson connection warm-up callback failed", e);
+                }
+            }
+            warmUp.complete(null);
+        } catch (RuntimeException e) {
+            log.warn("Redisson connection warm-up failed, the client will be created on first use", e);
+            warmUp.completeExceptionally(e);
+        }
+    }
+}
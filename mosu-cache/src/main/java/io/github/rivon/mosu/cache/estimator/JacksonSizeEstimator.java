@@ -0,0 +1,85 @@
+package io.github.rivon.mosu.cache.estimator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 按 Jackson 序列化长度估算缓存项大小
+ * <p>
+ * 字符串与字节数组直接按长度计算，其他对象序列化为 JSON 并统计字节数（只计数，不保留序列化结果），
+ * 再加上固定的对象头开销。无法序列化的对象按 {@link #fallbackSize} 计算。
+ * </p>
+ */
+@Slf4j
+public class JacksonSizeEstimator implements SizeEstimator {
+
+    private static final int ENTRY_OVERHEAD = 64; // 缓存项、key 与值对象头的固定开销 单位字节
+
+    private final ObjectMapper objectMapper;
+    private final long fallbackSize; // 无法序列化时使用的估算值 单位字节
+
+    public JacksonSizeEstimator() {
+        this(new ObjectMapper(), 1024);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param objectMapper 用于序列化的 ObjectMapper
+     * @param fallbackSize 无法序列化时使用的估算值 单位字节
+     */
+    public JacksonSizeEstimator(ObjectMapper objectMapper, long fallbackSize) {
+        this.objectMapper = objectMapper;
+        this.fallbackSize = fallbackSize;
+    }
+
+    @Override
+    public long estimate(String key, Object value) {
+        long keySize = key == null ? 0 : 2L * key.length();
+        return ENTRY_OVERHEAD + keySize + valueSize(value);
+    }
+
+    private long valueSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 16;
+        }
+        CountingOutputStream out = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(out, value);
+            return out.count;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to estimate size of {}, using fallback size", value.getClass().getName(), e);
+            return fallbackSize;
+        }
+    }
+
+    /**
+     * 只统计写入字节数的输出流
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
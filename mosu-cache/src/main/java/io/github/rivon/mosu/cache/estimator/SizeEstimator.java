@@ -0,0 +1,21 @@
+package io.github.rivon.mosu.cache.estimator;
+
+/**
+ * 缓存项大小估算器
+ * <p>
+ * 本地缓存按内存预算淘汰时，用于估算每个缓存项占用的字节数。估算值只用于在各缓存项之间分配预算，
+ * 不要求与实际占用的堆内存完全一致，但应与之成比例，且计算足够快。
+ * </p>
+ */
+@FunctionalInterface
+public interface SizeEstimator {
+
+    /**
+     * 估算缓存项占用的字节数
+     *
+     * @param key   缓存key
+     * @param value 缓存值
+     * @return 估算的字节数
+     */
+    long estimate(String key, Object value);
+}
@@ -0,0 +1,17 @@
+package io.github.rivon.mosu.cache.hotkey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 热点 key 及其访问次数估计
+ */
+@Data
+@AllArgsConstructor
+public class HotKey {
+
+    private String key;         // 缓存key
+    private long count;         // 当前衰减周期内估计的访问次数，已按采样率放大
+    private long error;         // 估计值可能偏大的上限，count - error 为访问次数的下限
+    private boolean promoted;   // 是否已提升到本地缓存
+}
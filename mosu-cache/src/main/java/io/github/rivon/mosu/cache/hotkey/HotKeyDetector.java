@@ -0,0 +1,252 @@
+package io.github.rivon.mosu.cache.hotkey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 热点 key 探测器
+ * <p>
+ * 使用 Space-Saving 算法在固定数量的计数器内统计访问最频繁的 key：key 已有计数器时加一，
+ * 计数器已满时替换计数最小的计数器，新 key 继承其计数并记录为误差。读取路径按 1/sampleRate 的概率采样，
+ * 未采样的读取只有一次随机数开销；计数每经过一个衰减周期减半，使已经变冷的 key 逐渐被替换。
+ * </p>
+ * <p>
+ * 衰减周期内估计访问次数（扣除误差后）达到 threshold 的 key 视为热点。开启提升时，热点 key 的读取结果放入一个短过期时间的
+ * 本地缓存，后续读取直接返回，不再访问 Redis。本节点的写入与删除会清除提升的数据，其他节点的写入最多在 promoteTtl 后可见。
+ * </p>
+ */
+public class HotKeyDetector {
+
+    private final int capacity;             // 计数器个数，即最多跟踪的 key 数
+    private final int sampleRate;           // 采样率，每 sampleRate 次读取采样一次
+    private final long threshold;           // 热点阈值，衰减周期内估计的访问次数
+    private final long decayIntervalNanos;  // 衰减周期 单位纳秒
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(Comparator.comparingLong((Counter c) -> c.count).thenComparingLong(c -> c.seq));
+    private long seq;
+    private long lastDecay = System.nanoTime();
+
+    private final Cache<String, Object> promoted;  // 热点 key 的本地缓存，未开启提升时为 null
+    private final LongAdder sampledCount = new LongAdder();     // 采样次数
+    private final LongAdder promotedHitCount = new LongAdder(); // 读取命中提升数据的次数
+
+    /**
+     * 构造函数
+     *
+     * @param capacity       计数器个数，应明显大于期望得到的热点 key 个数
+     * @param sampleRate     采样率，每 sampleRate 次读取采样一次，1 表示全部采样
+     * @param threshold      热点阈值，衰减周期内估计的访问次数
+     * @param decayInterval  衰减周期 单位毫秒
+     * @param promoteTtl     提升数据的过期时间 单位毫秒，0 表示不提升
+     * @param promoteMaxSize 提升数据的最大个数
+     */
+    public HotKeyDetector(int capacity, int sampleRate, long threshold, long decayInterval, long promoteTtl, int promoteMaxSize) {
+        this.capacity = capacity;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.threshold = threshold;
+        this.decayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(decayInterval);
+        this.promoted = promoteTtl > 0
+                ? Caffeine.newBuilder().expireAfterWrite(promoteTtl, TimeUnit.MILLISECONDS).maximumSize(promoteMaxSize).build()
+                : null;
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @param key 缓存key
+     * @return 本次读取被采样且 key 是热点时返回 true
+     */
+    public boolean record(String key) {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return false;
+        }
+        sampledCount.increment();
+        lock.lock();
+        try {
+            decayIfDue();
+            Counter counter = offer(key);
+            return isHot(counter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取已提升到本地缓存的数据
+     *
+     * @param key 缓存key
+     * @return 提升的数据，未提升或已过期时返回 null
+     */
+    public Object getPromoted(String key) {
+        if (promoted == null) {
+            return null;
+        }
+        Object value = promoted.getIfPresent(key);
+        if (value != null) {
+            promotedHitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 记录一次从 Redis 的读取，key 是热点时将读取结果提升到本地缓存
+     *
+     * @param key   缓存key
+     * @param value 从 Redis 读取的值
+     */
+    public void onRead(String key, Object value) {
+        if (record(key) && promoted != null && value != null) {
+            promoted.put(key, value);
+        }
+    }
+
+    /**
+     * 清除提升的数据，写入或删除时调用
+     *
+     * @param key 缓存key
+     */
+    public void invalidate(String key) {
+        if (promoted != null) {
+            promoted.invalidate(key);
+        }
+    }
+
+    /**
+     * 清除指定前缀的提升数据
+     *
+     * @param prefix key 前缀
+     */
+    public void invalidateByPrefix(String prefix) {
+        if (promoted != null) {
+            promoted.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    /**
+     * 获取访问次数最多的 key
+     *
+     * @param n 返回的个数
+     * @return 按估计访问次数从高到低排列的 key
+     */
+    public List<HotKey> getTopKeys(int n) {
+        List<HotKey> result = new ArrayList<>(n);
+        lock.lock();
+        try {
+            Iterator<Counter> iterator = ordered.descendingIterator();
+            while (iterator.hasNext() && result.size() < n) {
+                Counter counter = iterator.next();
+                boolean isPromoted = promoted != null && promoted.getIfPresent(counter.key) != null;
+                result.add(new HotKey(counter.key, counter.count * sampleRate, counter.error * sampleRate, isPromoted));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * @return 当前达到热点阈值的 key 个数
+     */
+    public int getHotKeyCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (Counter counter : counters.values()) {
+                if (isHot(counter)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前提升到本地缓存的 key 个数
+     */
+    public long getPromotedSize() {
+        return promoted == null ? 0 : promoted.estimatedSize();
+    }
+
+    public long getSampledCount() {
+        return sampledCount.sum();
+    }
+
+    public long getPromotedHitCount() {
+        return promotedHitCount.sum();
+    }
+
+    private Counter offer(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            ordered.remove(counter); // 计数是排序依据，修改前需要先移除
+            counter.count++;
+            ordered.add(counter);
+            return counter;
+        }
+        long inherited = 0;
+        if (counters.size() >= capacity) {
+            // 替换计数最小的 key，新 key 继承其计数，继承部分记为误差
+            Counter min = ordered.pollFirst();
+            counters.remove(min.key);
+            inherited = min.count;
+        }
+        counter = new Counter(key, inherited + 1, inherited, seq++);
+        counters.put(key, counter);
+        ordered.add(counter);
+        return counter;
+    }
+
+    private void decayIfDue() {
+        long now = System.nanoTime();
+        if (now - lastDecay < decayIntervalNanos) {
+            return;
+        }
+        lastDecay = now;
+        ordered.clear();
+        Iterator<Counter> iterator = counters.values().iterator();
+        while (iterator.hasNext()) {
+            Counter counter = iterator.next();
+            counter.count >>= 1;
+            counter.error >>= 1;
+            if (counter.count == 0) {
+                iterator.remove();
+            } else {
+                ordered.add(counter);
+            }
+        }
+    }
+
+    private boolean isHot(Counter counter) {
+        return (counter.count - counter.error) * sampleRate >= threshold;
+    }
+
+    private static final class Counter {
+        final String key;
+        final long seq;     // 计数相同时的排序依据
+        long count;
+        long error;
+
+        Counter(String key, long count, long error, long seq) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package io.github.rivon.mosu.cache.lock;
+
+import io.github.rivon.mosu.cache.service.RedisCommandListener;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 分布式锁模板
+ * <p>
+ * 在锁的保护下执行回调，执行结束后无论是否抛出异常都会释放锁。支持普通锁、读写锁与同时锁定多个 key 的联锁。
+ * </p>
+ * <p>
+ * 获取 Redisson 分布式锁之前先获取本地分段锁：同一 JVM 内争用同一 key 的线程在本地排队，每个节点同一时刻只有一个线程
+ * （读锁为一组读线程）向 Redis 发起加锁请求，其余线程不产生 Redis 往返。本地锁按 key 的哈希分段，不同 key 可能落在
+ * 同一分段上而在本地互相等待，分段数应远大于同时持有锁的 key 数。联锁按分段序号从小到大获取本地锁，避免死锁。
+ * </p>
+ * <p>
+ * 本地分段锁是 {@link ReentrantReadWriteLock}，读锁不能升级为写锁：在 {@link #executeRead} 的回调中嵌套调用
+ * {@link #execute}、{@link #executeWrite} 或 {@link #executeMulti} 时，若其中的 key 与外层 key 落在同一分段，
+ * 当前线程跳过该分段的本地锁，直接获取分布式锁，互斥仍由分布式锁保证。嵌套锁定与外层相同的 key 时分布式读锁同样不能升级，
+ * 会等待到超时，应避免。
+ * </p>
+ * <p>
+ * 等待时间同时覆盖本地排队与获取分布式锁的时间，超时抛出 {@link LockTimeoutException}；
+ * 持有时间小于 0 时由 Redisson 看门狗自动续期，直到回调执行结束。
+ * </p>
+ */
+@Slf4j
+public class LockTemplate {
+
+    private final RedissionService redissionService;
+    private final ReentrantReadWriteLock[] stripes; // 本地分段锁
+    private final int mask;
+    @Setter
+    private long defaultWaitTime = 5000; // 默认等待时间 单位毫秒
+    @Setter
+    private long defaultLeaseTime = -1; // 默认持有时间，小于 0 时由看门狗续期 单位毫秒
+    private final LongAdder localQueuedCount = new LongAdder(); // 在本地排队等待的加锁次数
+    private final LongAdder redisAttemptCount = new LongAdder(); // 向 Redis 发起的加锁次数
+    private final LongAdder timeoutCount = new LongAdder(); // 加锁超时次数
+
+    /**
+     * 构造函数
+     *
+     * @param redissionService Redis 缓存服务
+     * @param stripes          本地分段数，向上取整为 2 的幂
+     */
+    public LockTemplate(RedissionService redissionService, int stripes) {
+        this.redissionService = redissionService;
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 使用默认等待与持有时间，在锁的保护下执行回调
+     *
+     * @param key    锁的 key
+     * @param action 回调
+     * @param <T>    返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T execute(String key, Supplier<T> action) {
+        return execute(key, defaultWaitTime, defaultLeaseTime, TimeUnit.MILLISECONDS, action);
+    }
+
+    /**
+     * 使用默认等待与持有时间，在锁的保护下执行回调
+     *
+     * @param key    锁的 key
+     * @param action 回调
+     */
+    public void execute(String key, Runnable action) {
+        execute(key, toSupplier(action));
+    }
+
+    /**
+     * 在锁的保护下执行回调
+     *
+     * @param key       锁的 key
+     * @param waitTime  等待时间
+     * @param leaseTime 持有时间，小于 0 时由看门狗续期
+     * @param unit      时间单位
+     * @param action    回调
+     * @param <T>       返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T execute(String key, long waitTime, long leaseTime, TimeUnit unit, Supplier<T> action) {
+        return run(key, List.of(stripe(key)), false, client().getLock(key), waitTime, leaseTime, unit, action);
+    }
+
+    /**
+     * 使用默认等待与持有时间，在读锁的保护下执行回调，持有读锁的线程之间互不阻塞
+     *
+     * @param key    锁的 key
+     * @param action 回调
+     * @param <T>    返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T executeRead(String key, Supplier<T> action) {
+        return executeRead(key, defaultWaitTime, defaultLeaseTime, TimeUnit.MILLISECONDS, action);
+    }
+
+    /**
+     * 在读锁的保护下执行回调
+     *
+     * @param key       锁的 key
+     * @param waitTime  等待时间
+     * @param leaseTime 持有时间，小于 0 时由看门狗续期
+     * @param unit      时间单位
+     * @param action    回调
+     * @param <T>       返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T executeRead(String key, long waitTime, long leaseTime, TimeUnit unit, Supplier<T> action) {
+        return run(key, List.of(stripe(key)), true, client().getReadWriteLock(key).readLock(), waitTime, leaseTime, unit, action);
+    }
+
+    /**
+     * 使用默认等待与持有时间，在写锁的保护下执行回调
+     *
+     * @param key    锁的 key
+     * @param action 回调
+     * @param <T>    返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T executeWrite(String key, Supplier<T> action) {
+        return executeWrite(key, defaultWaitTime, defaultLeaseTime, TimeUnit.MILLISECONDS, action);
+    }
+
+    /**
+     * 在写锁的保护下执行回调
+     *
+     * @param key       锁的 key
+     * @param waitTime  等待时间
+     * @param leaseTime 持有时间，小于 0 时由看门狗续期
+     * @param unit      时间单位
+     * @param action    回调
+     * @param <T>       返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T executeWrite(String key, long waitTime, long leaseTime, TimeUnit unit, Supplier<T> action) {
+        return run(key, List.of(stripe(key)), false, client().getReadWriteLock(key).writeLock(), waitTime, leaseTime, unit, action);
+    }
+
+    /**
+     * 使用默认等待与持有时间，同时锁定多个 key 后执行回调
+     *
+     * @param keys   锁的 key 集合
+     * @param action 回调
+     * @param <T>    返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T executeMulti(Collection<String> keys, Supplier<T> action) {
+        return executeMulti(keys, defaultWaitTime, defaultLeaseTime, TimeUnit.MILLISECONDS, action);
+    }
+
+    /**
+     * 同时锁定多个 key 后执行回调，所有 key 全部加锁成功才执行
+     *
+     * @param keys      锁的 key 集合
+     * @param waitTime  等待时间
+     * @param leaseTime 持有时间，小于 0 时由看门狗续期
+     * @param unit      时间单位
+     * @param action    回调
+     * @param <T>       返回值类型
+     * @return 回调的返回值
+     */
+    public <T> T executeMulti(Collection<String> keys, long waitTime, long leaseTime, TimeUnit unit, Supplier<T> action) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("keys must not be empty");
+        }
+        // 按分段序号排序去重，所有线程以相同顺序获取本地锁
+        TreeSet<Integer> indexes = new TreeSet<>();
+        RLock[] locks = new RLock[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            indexes.add(stripeIndex(key));
+            locks[i++] = client().getLock(key);
+        }
+        List<ReentrantReadWriteLock> localLocks = new ArrayList<>(indexes.size());
+        indexes.forEach(index -> localLocks.add(stripes[index]));
+        return run(String.join(",", keys), localLocks, false, client().getMultiLock(locks), waitTime, leaseTime, unit, action);
+    }
+
+    /**
+     * @return 在本地排队等待的加锁次数，这些线程获取本地锁时未能立即成功
+     */
+    public long getLocalQueuedCount() {
+        return localQueuedCount.sum();
+    }
+
+    /**
+     * @return 向 Redis 发起的加锁次数
+     */
+    public long getRedisAttemptCount() {
+        return redisAttemptCount.sum();
+    }
+
+    /**
+     * @return 加锁超时次数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * @param localLocks 需要获取的本地分段锁
+     * @param shared     是否获取分段的读锁，否则获取写锁
+     */
+    private <T> T run(String name, List<ReentrantReadWriteLock> localLocks, boolean shared, RLock lock, long waitTime, long leaseTime,
+                      TimeUnit unit, Supplier<T> action) {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        List<Lock> acquired = new ArrayList<>(localLocks.size());
+        try {
+            for (ReentrantReadWriteLock stripe : localLocks) {
+                if (!shared && stripe.getReadHoldCount() > 0 && !stripe.isWriteLockedByCurrentThread()) {
+                    continue; // 当前线程持有该分段的读锁，无法升级为写锁，跳过本地排队
+                }
+                Lock localLock = shared ? stripe.readLock() : stripe.writeLock();
+                if (!localLock.tryLock()) {
+                    localQueuedCount.increment();
+                    if (!localLock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        throw timeout(name);
+                    }
+                }
+                acquired.add(localLock);
+            }
+
+            // 剩余的等待时间用于获取分布式锁
+            long remaining = TimeUnit.NANOSECONDS.toMillis(Math.max(0, deadline - System.nanoTime()));
+            long lease = leaseTime < 0 ? -1 : unit.toMillis(leaseTime);
+            redisAttemptCount.increment();
+            long start = System.nanoTime();
+            boolean locked = false; // 未获取到锁、被中断或抛出异常时都按失败记录
+            try {
+                locked = lock.tryLock(remaining, lease, TimeUnit.MILLISECONDS);
+            } finally {
+                record(RedissionService.OP_LOCK, start, locked);
+            }
+            if (!locked) {
+                throw timeout(name);
+            }
+            try {
+                return action.get();
+            } finally {
+                unlock(name, lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while acquiring lock " + name, e);
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    private void unlock(String name, RLock lock) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            lock.unlock();
+            success = true;
+        } catch (IllegalMonitorStateException e) {
+            // 持有时间已过，锁已被自动释放
+            log.warn("Lock {} expired before the action completed", name);
+            success = true;
+        } finally {
+            record(RedissionService.OP_UNLOCK, start, success);
+        }
+    }
+
+    private LockTimeoutException timeout(String name) {
+        timeoutCount.increment();
+        return new LockTimeoutException(name);
+    }
+
+    private void record(String operation, long start, boolean success) {
+        RedisCommandListener listener = redissionService.getCommandListener();
+        if (listener != null) {
+            listener.onCommand(operation, System.nanoTime() - start, success);
+        }
+    }
+
+    private RedissonClient client() {
+        return redissionService.getRedissonClient();
+    }
+
+    private ReentrantReadWriteLock stripe(String key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private int stripeIndex(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static Supplier<Void> toSupplier(Runnable action) {
+        return () -> {
+            action.run();
+            return null;
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.rivon.mosu.cache.lock;
+
+/**
+ * 在等待时间内未能获取锁时抛出
+ */
+public class LockTimeoutException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 构造函数
+     *
+     * @param lockName 锁的名称
+     */
+    public LockTimeoutException(String lockName) {
+        super("Timed out acquiring lock " + lockName);
+    }
+}
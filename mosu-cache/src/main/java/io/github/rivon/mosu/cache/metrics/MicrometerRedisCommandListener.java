@@ -0,0 +1,50 @@
+package io.github.rivon.mosu.cache.metrics;
+
+import io.github.rivon.mosu.cache.service.RedisCommandListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将 Redis 命令耗时记录到 Micrometer 的 Timer
+ * <p>
+ * 指标名为 {@code mosu.cache.redis.commands}，按 operation（操作类型）与 outcome（success/failure）打标签，
+ * 开启 percentileHistogram 时发布直方图，可在监控系统中按任意分位数聚合。
+ * </p>
+ */
+public class MicrometerRedisCommandListener implements RedisCommandListener {
+
+    private final MeterRegistry registry;
+    private final boolean percentileHistogram;
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> failureTimers = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param registry            指标注册表
+     * @param percentileHistogram 是否发布直方图
+     */
+    public MicrometerRedisCommandListener(MeterRegistry registry, boolean percentileHistogram) {
+        this.registry = registry;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Override
+    public void onCommand(String operation, long nanos, boolean success) {
+        Map<String, Timer> timers = success ? successTimers : failureTimers;
+        timers.computeIfAbsent(operation, op -> createTimer(op, success)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer createTimer(String operation, boolean success) {
+        return Timer.builder("mosu.cache.redis.commands")
+                .description("Redis command latency")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram(percentileHistogram)
+                .register(registry);
+    }
+}
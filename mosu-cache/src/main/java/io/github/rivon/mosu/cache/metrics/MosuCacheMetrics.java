@@ -0,0 +1,252 @@
+package io.github.rivon.mosu.cache.metrics;
+
+import io.github.rivon.mosu.cache.breaker.RedisCircuitBreaker;
+import io.github.rivon.mosu.cache.codec.CompressionStats;
+import io.github.rivon.mosu.cache.hotkey.HotKeyDetector;
+import io.github.rivon.mosu.cache.lock.LockTemplate;
+import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.OffHeapCacheService;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import io.github.rivon.mosu.cache.service.ServedFrom;
+import io.github.rivon.mosu.cache.service.WriteBehindService;
+import io.github.rivon.mosu.cache.warmup.CacheWarmUpService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存指标
+ * <p>
+ * 将各层缓存的统计信息注册到 Micrometer，未配置的组件不注册对应指标：
+ * <ul>
+ *     <li>本地缓存：每个区域的命中、未命中、淘汰、加载耗时等 Caffeine 统计（cache.* 指标，cache 标签为区域名称，tier=local），
+ *     以及按内存预算淘汰时的估算占用 mosu.cache.local.weighted.size</li>
+ *     <li>二级缓存：每个区域本地缓存未命中后 Redis 的命中与未命中次数 mosu.cache.l2.requests，
+ *     以及读取请求最终由哪一层返回 mosu.cache.served</li>
+ *     <li>Redis 命令：按操作类型记录的延迟 mosu.cache.redis.commands，见 {@link MicrometerRedisCommandListener}</li>
+ *     <li>延迟写入、堆外缓存与值压缩的队列深度、刷新耗时、占用字节、压缩率等</li>
+ *     <li>热点 key 的个数与提升命中次数，具体的 key 通过 {@link HotKeyDetector#getTopKeys(int)} 获取，避免标签基数过高</li>
+ *     <li>分布式锁在本地排队、向 Redis 发起加锁与超时的次数</li>
+ *     <li>Redis 熔断器的状态、熔断次数与熔断期间跳过的读取次数，熔断期间返回的旧值计入 mosu.cache.served 的 stale 来源</li>
+ *     <li>启动预热的耗时 mosu.cache.warmup.duration，以及从快照恢复与从 Redis 预加载的缓存项数</li>
+ * </ul>
+ * </p>
+ */
+@Setter
+public class MosuCacheMetrics {
+
+    private final LocalCacheService localCacheService;
+    private LocalCacheAndRedissonService localCacheAndRedissonService;
+    private RedissionService redissionService;
+    private WriteBehindService writeBehindService;
+    private OffHeapCacheService offHeapCacheService;
+    private CompressionStats compressionStats;
+    private HotKeyDetector hotKeyDetector;
+    private LockTemplate lockTemplate;
+    private RedisCircuitBreaker circuitBreaker;
+    private CacheWarmUpService cacheWarmUpService;
+    private boolean percentileHistogram = true; // Redis 命令耗时是否发布直方图
+
+    public MosuCacheMetrics(LocalCacheService localCacheService) {
+        this.localCacheService = localCacheService;
+    }
+
+    /**
+     * 注册所有指标
+     *
+     * @param registry 指标注册表
+     */
+    public void bindTo(MeterRegistry registry) {
+        bindLocalCache(registry);
+        if (localCacheAndRedissonService != null) {
+            bindMultilevel(registry);
+        }
+        if (redissionService != null && redissionService.getRedissonClient() != null) {
+            redissionService.setCommandListener(new MicrometerRedisCommandListener(registry, percentileHistogram));
+        }
+        if (writeBehindService != null) {
+            bindWriteBehind(registry);
+        }
+        if (offHeapCacheService != null) {
+            bindOffHeap(registry);
+        }
+        if (compressionStats != null) {
+            bindCompression(registry);
+        }
+        if (hotKeyDetector != null) {
+            bindHotKey(registry);
+        }
+        if (lockTemplate != null) {
+            bindLock(registry);
+        }
+        if (circuitBreaker != null) {
+            bindCircuitBreaker(registry);
+        }
+        if (cacheWarmUpService != null) {
+            bindWarmUp(registry);
+        }
+    }
+
+    private void bindLocalCache(MeterRegistry registry) {
+        List<LocalCacheService> regions = new ArrayList<>();
+        regions.add(localCacheService);
+        regions.addAll(localCacheService.getRegions().values());
+        for (LocalCacheService region : regions) {
+            if (region.getCache() == null) {
+                continue; // 未启用本地缓存的区域
+            }
+            new CaffeineCacheMetrics<>(region.getCache(), region.getName(), Tags.of("tier", "local")).bindTo(registry);
+            if (region.getMaximumWeight() > 0) {
+                Gauge.builder("mosu.cache.local.weighted.size", region, LocalCacheService::getWeightedSize)
+                        .description("Estimated bytes held by the local cache")
+                        .tag("region", region.getName())
+                        .baseUnit("bytes")
+                        .register(registry);
+            }
+        }
+    }
+
+    private void bindMultilevel(MeterRegistry registry) {
+        List<LocalCacheAndRedissonService> regions = new ArrayList<>();
+        regions.add(localCacheAndRedissonService);
+        regions.addAll(localCacheAndRedissonService.getRegions());
+        for (LocalCacheAndRedissonService region : regions) {
+            FunctionCounter.builder("mosu.cache.l2.requests", region, LocalCacheAndRedissonService::getL2HitCount)
+                    .description("Redis lookups after a local cache miss")
+                    .tags("region", region.getName(), "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("mosu.cache.l2.requests", region, LocalCacheAndRedissonService::getL2MissCount)
+                    .description("Redis lookups after a local cache miss")
+                    .tags("region", region.getName(), "result", "miss")
+                    .register(registry);
+            for (ServedFrom source : ServedFrom.values()) {
+                FunctionCounter.builder("mosu.cache.served", region, service -> service.getServedCount(source))
+                        .description("Reads by the tier that served them")
+                        .tags("region", region.getName(), "source", source.name().toLowerCase(Locale.ROOT))
+                        .register(registry);
+            }
+            Gauge.builder("mosu.cache.negative.size", region, LocalCacheAndRedissonService::getNegativeCacheSize)
+                    .description("Keys cached locally as known to be absent")
+                    .tags("region", region.getName())
+                    .register(registry);
+        }
+    }
+
+    private void bindWriteBehind(MeterRegistry registry) {
+        WriteBehindService service = writeBehindService;
+        Gauge.builder("mosu.cache.write.behind.queue.depth", service, WriteBehindService::getQueueDepth)
+                .description("Keys waiting to be written to Redis")
+                .register(registry);
+        FunctionTimer.builder("mosu.cache.write.behind.flush", service, WriteBehindService::getFlushCount,
+                        WriteBehindService::getFlushTotalNanos, TimeUnit.NANOSECONDS)
+                .description("Write-behind batch flushes")
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.write.behind.keys", service, WriteBehindService::getFlushedKeyCount)
+                .tag("result", "flushed").register(registry);
+        FunctionCounter.builder("mosu.cache.write.behind.keys", service, WriteBehindService::getCoalescedCount)
+                .tag("result", "coalesced").register(registry);
+        FunctionCounter.builder("mosu.cache.write.behind.keys", service, WriteBehindService::getWriteThroughCount)
+                .tag("result", "write-through").register(registry);
+        FunctionCounter.builder("mosu.cache.write.behind.failed.flushes", service, WriteBehindService::getFailedFlushCount)
+                .register(registry);
+    }
+
+    private void bindOffHeap(MeterRegistry registry) {
+        OffHeapCacheService service = offHeapCacheService;
+        Gauge.builder("mosu.cache.off.heap.size", service, OffHeapCacheService::estimatedSize)
+                .description("Entries held by the off-heap cache")
+                .register(registry);
+        Gauge.builder("mosu.cache.off.heap.bytes", service, OffHeapCacheService::getLiveBytes)
+                .tag("type", "live").baseUnit("bytes").register(registry);
+        Gauge.builder("mosu.cache.off.heap.bytes", service, OffHeapCacheService::getAllocatedBytes)
+                .tag("type", "allocated").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("mosu.cache.off.heap.requests", service, OffHeapCacheService::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("mosu.cache.off.heap.requests", service, OffHeapCacheService::getMissCount)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("mosu.cache.off.heap.evictions", service, OffHeapCacheService::getEvictionCount)
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.off.heap.rejected", service, OffHeapCacheService::getRejectedCount)
+                .register(registry);
+    }
+
+    private void bindHotKey(MeterRegistry registry) {
+        HotKeyDetector detector = hotKeyDetector;
+        Gauge.builder("mosu.cache.hot.keys", detector, HotKeyDetector::getHotKeyCount)
+                .description("Keys above the hot-key threshold")
+                .register(registry);
+        Gauge.builder("mosu.cache.hot.promoted.size", detector, HotKeyDetector::getPromotedSize)
+                .description("Hot keys promoted into the local cache")
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.hot.samples", detector, HotKeyDetector::getSampledCount)
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.hot.promoted.hits", detector, HotKeyDetector::getPromotedHitCount)
+                .description("Reads served from promoted hot keys")
+                .register(registry);
+    }
+
+    private void bindLock(MeterRegistry registry) {
+        LockTemplate template = lockTemplate;
+        FunctionCounter.builder("mosu.cache.lock.local.queued", template, LockTemplate::getLocalQueuedCount)
+                .description("Lock attempts that queued behind a local thread instead of contending in Redis")
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.lock.redis.attempts", template, LockTemplate::getRedisAttemptCount)
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.lock.timeouts", template, LockTemplate::getTimeoutCount)
+                .register(registry);
+    }
+
+    private void bindCircuitBreaker(MeterRegistry registry) {
+        RedisCircuitBreaker breaker = circuitBreaker;
+        for (RedisCircuitBreaker.State state : RedisCircuitBreaker.State.values()) {
+            Gauge.builder("mosu.cache.breaker.state", breaker, b -> b.getState() == state ? 1 : 0)
+                    .description("Redis circuit breaker state, 1 for the current state")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        FunctionCounter.builder("mosu.cache.breaker.opened", breaker, RedisCircuitBreaker::getOpenCount)
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.breaker.rejected", breaker, RedisCircuitBreaker::getRejectedCount)
+                .description("Redis reads skipped while the breaker was open")
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.breaker.failures", breaker, RedisCircuitBreaker::getFailureCount)
+                .tag("type", "error").register(registry);
+        FunctionCounter.builder("mosu.cache.breaker.failures", breaker, RedisCircuitBreaker::getSlowCallCount)
+                .tag("type", "slow").register(registry);
+    }
+
+    private void bindWarmUp(MeterRegistry registry) {
+        CacheWarmUpService service = cacheWarmUpService;
+        TimeGauge.builder("mosu.cache.warmup.duration", service, TimeUnit.NANOSECONDS, s -> Math.max(0, s.getWarmUpNanos()))
+                .description("Time spent warming up the local cache before the application became ready")
+                .register(registry);
+        FunctionCounter.builder("mosu.cache.warmup.entries", service, CacheWarmUpService::getSnapshotLoadedCount)
+                .tag("source", "snapshot").register(registry);
+        FunctionCounter.builder("mosu.cache.warmup.entries", service, CacheWarmUpService::getPreloadedCount)
+                .tag("source", "redis").register(registry);
+    }
+
+    private void bindCompression(MeterRegistry registry) {
+        CompressionStats stats = compressionStats;
+        Gauge.builder("mosu.cache.compression.ratio", stats, CompressionStats::getRatio)
+                .description("Compressed to original size ratio of compressed values")
+                .register(registry);
+        FunctionTimer.builder("mosu.cache.compression.compress", stats, CompressionStats::getCompressedCount,
+                CompressionStats::getCompressNanos, TimeUnit.NANOSECONDS).register(registry);
+        FunctionTimer.builder("mosu.cache.compression.decompress", stats, CompressionStats::getDecompressedCount,
+                CompressionStats::getDecompressNanos, TimeUnit.NANOSECONDS).register(registry);
+        FunctionCounter.builder("mosu.cache.compression.skipped", stats, CompressionStats::getSkippedCount)
+                .register(registry);
+    }
+}
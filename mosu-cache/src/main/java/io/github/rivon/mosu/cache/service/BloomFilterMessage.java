@@ -0,0 +1,25 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 布隆过滤器新增 key 消息
+ * <p>
+ * 通过 Redis 主题在节点之间广播，其他节点收到后按相同的哈希函数计算位置并更新各自的本地镜像。
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BloomFilterMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String nodeId; // 发布消息的节点标识，用于忽略自身发出的消息
+    private List<String> keys; // 新增的 key 列表
+}
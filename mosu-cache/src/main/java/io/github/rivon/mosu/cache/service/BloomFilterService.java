@@ -0,0 +1,420 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBitSet;
+import org.redisson.api.RBitSetAsync;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.StatusListener;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 布隆过滤器服务
+ * <p>
+ * 位数组保存在 Redis 的位图中，由所有节点共享；每个节点在堆内保存一份镜像，{@link #mightContain(String)} 只读取本地镜像，
+ * 不产生网络往返。新增 key 时先写入 Redis 位图，再通过 RTopic 广播给其他节点更新镜像。启动、重新订阅以及按固定间隔
+ * 从 Redis 全量读取位图合并到本地镜像，弥补丢失的广播消息。布隆过滤器的位只会被置位，合并时按位或即可。
+ * </p>
+ * <p>
+ * 不存在的 key 一定返回 false，存在的 key 可能以约 falseProbability 的概率误判为存在。使用前需要将数据源中已存在的
+ * key 通过 {@link #addAll(Collection)} 全部加入，否则这些 key 会被误判为不存在。从 Redis 加载位图失败时不做过滤，
+ * 所有 key 都视为可能存在。
+ * </p>
+ * <p>
+ * 本地镜像在写入 Redis 之前就已置位，因此不能据此判断 key 是否已写入 Redis：写入尚未确认的 key 再次添加时重新写入，
+ * 写入失败的 key 在定期同步与重新订阅时重试，直到写入成功。
+ * </p>
+ * <p>
+ * 订阅与加载位图在 {@link #start()} 中进行，构造函数不访问 Redis：由 RedissonClient 连接预热线程在连接建立后调用，
+ * 未启用预热或预热失败时由定期同步、第一次判断或添加 key 时调用，失败后至少间隔 {@link #RETRY_INTERVAL} 毫秒才会重试。
+ * 启动完成之前不做过滤，添加的 key 只置位本地镜像，启动后再写入 Redis。
+ * </p>
+ */
+@Slf4j
+public class BloomFilterService {
+
+    public static final long RETRY_INTERVAL = 5000; // 启动失败后的最短重试间隔 单位毫秒
+
+    private final String name; // 位图在 Redis 中的 key
+    private final Supplier<RedissonClient> redissonClientSupplier; // 延迟获取的 RedissonClient
+    private volatile RedissonClient redissonClient; // 启动成功后才设置
+    private volatile RBitSet bitSet;
+    private volatile RTopic topic; // 新增 key 的广播主题，订阅成功后才设置
+    @Getter
+    private final long size; // 位数组长度
+    @Getter
+    private final int hashIterations; // 哈希函数个数
+    private final AtomicLongArray words; // 本地镜像
+    private final String nodeId = UUID.randomUUID().toString(); // 当前节点标识
+    private final AtomicInteger subscribeCount = new AtomicInteger(); // 订阅成功次数，大于 1 表示发生过重新订阅
+    private int messageListenerId;
+    private int statusListenerId;
+    private final AtomicBoolean starting = new AtomicBoolean(); // 是否有线程正在启动
+    private volatile long lastFailure; // 上一次启动失败的时间戳 单位毫秒
+    private final ScheduledExecutorService resyncExecutor; // 定期从 Redis 同步位图，为 null 时不同步
+    private volatile boolean ready; // 本地镜像是否已从 Redis 加载
+    private final Set<String> unconfirmedKeys = ConcurrentHashMap.newKeySet(); // 已置位本地镜像但尚未确认写入 Redis 的 key
+
+    private static final long MAX_SIZE = 1L << 32; // Redis 位图的最大长度
+
+    /**
+     * 构造函数，立即订阅并加载位图
+     *
+     * @param redissonClient     RedissonClient 实例
+     * @param name               位图在 Redis 中的 key，广播主题为 name + ":sync"
+     * @param expectedInsertions 预期元素数量
+     * @param falseProbability   误判率
+     * @param resyncInterval     从 Redis 全量同步位图的间隔，0 表示只在启动和重新订阅时同步 单位毫秒
+     */
+    public BloomFilterService(RedissonClient redissonClient, String name, long expectedInsertions, double falseProbability,
+                              long resyncInterval) {
+        this(() -> redissonClient, name, expectedInsertions, falseProbability, resyncInterval);
+        start();
+    }
+
+    /**
+     * 构造函数，按预期元素数量与误判率计算位数组长度与哈希函数个数，不访问 Redis，订阅与加载延迟到 {@link #start()}
+     *
+     * @param redissonClient     延迟获取 RedissonClient 的函数，Redis 不可达时可能抛出异常
+     * @param name               位图在 Redis 中的 key，广播主题为 name + ":sync"
+     * @param expectedInsertions 预期元素数量
+     * @param falseProbability   误判率
+     * @param resyncInterval     从 Redis 全量同步位图的间隔，0 表示只在启动和重新订阅时同步 单位毫秒
+     */
+    public BloomFilterService(Supplier<RedissonClient> redissonClient, String name, long expectedInsertions, double falseProbability,
+                              long resyncInterval) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falseProbability <= 0 || falseProbability >= 1) {
+            throw new IllegalArgumentException("falseProbability must be between 0 and 1");
+        }
+        this.size = optimalSize(expectedInsertions, falseProbability);
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("Bloom filter size " + size + " exceeds Redis bitmap limit " + MAX_SIZE);
+        }
+        this.hashIterations = optimalHashIterations(expectedInsertions, size);
+        this.name = name;
+        this.redissonClientSupplier = redissonClient;
+        this.words = new AtomicLongArray((int) ((size + 63) >>> 6));
+
+        if (resyncInterval > 0) {
+            this.resyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mosu-cache-bloom-resync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.resyncExecutor.scheduleWithFixedDelay(() -> {
+                if (ready) {
+                    resync();
+                } else {
+                    start(); // 尚未启动时由定期同步重试启动
+                }
+            }, resyncInterval, resyncInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.resyncExecutor = null;
+        }
+    }
+
+    /**
+     * 订阅广播主题并从 Redis 加载位图，已加载时直接返回；失败时记录日志，距上次失败不足 {@link #RETRY_INTERVAL} 时不重试，
+     * 其他线程正在启动时也直接返回 false
+     *
+     * @return 是否已启动
+     */
+    public boolean start() {
+        if (ready) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastFailure < RETRY_INTERVAL || !starting.compareAndSet(false, true)) {
+            return false; // 其他线程正在启动时不等待
+        }
+        try {
+            if (topic == null) {
+                subscribe();
+            }
+            reload();
+            retryUnconfirmed(); // 写入启动前添加的 key
+            return true;
+        } catch (RuntimeException e) {
+            lastFailure = now;
+            log.error("Failed to start bloom filter {}, will retry", name, e);
+            return false;
+        } finally {
+            starting.set(false);
+        }
+    }
+
+    /**
+     * @return 是否已订阅广播主题并从 Redis 加载过位图
+     */
+    public boolean isStarted() {
+        return ready;
+    }
+
+    private void subscribe() {
+        RedissonClient client = redissonClientSupplier.get();
+        RTopic topic = client.getTopic(name + ":sync", JsonJacksonCodec.INSTANCE); // 不受客户端配置的编解码器影响
+        this.bitSet = client.getBitSet(name);
+        this.redissonClient = client;
+
+        // 先订阅再加载，加载期间新增的 key 不会遗漏
+        this.statusListenerId = topic.addListener(new StatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                if (subscribeCount.incrementAndGet() > 1) {
+                    log.warn("Bloom filter topic {} resubscribed, reloading bitmap", channel);
+                    resync();
+                }
+            }
+
+            @Override
+            public void onUnsubscribe(String channel) {
+                log.warn("Bloom filter topic {} unsubscribed", channel);
+            }
+        });
+        try {
+            this.messageListenerId = topic.addListener(BloomFilterMessage.class, (channel, message) -> {
+                if (!nodeId.equals(message.getNodeId()) && message.getKeys() != null) {
+                    message.getKeys().forEach(this::setLocal);
+                }
+            });
+        } catch (RuntimeException e) {
+            topic.removeListener(statusListenerId); // 下次重试时重新添加
+            throw e;
+        }
+        this.topic = topic;
+    }
+
+    /**
+     * 判断 key 是否可能存在，只读取本地镜像
+     *
+     * @param key 缓存的 key
+     * @return false 表示一定不存在，true 表示可能存在
+     */
+    public boolean mightContain(String key) {
+        if (!ready) {
+            start();
+            return true; // 镜像未加载时不做过滤
+        }
+        for (long index : indexes(key)) {
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 添加 key
+     *
+     * @param key 缓存的 key
+     */
+    public void add(String key) {
+        addAll(List.of(key));
+    }
+
+    /**
+     * 批量添加 key，所有位通过一次管道写入 Redis，广播消息也只发送一条
+     * <p>
+     * 本地镜像中已全部置位且已确认写入 Redis 的 key 直接跳过。
+     * </p>
+     *
+     * @param keys 缓存的 key 集合
+     */
+    public void addAll(Collection<String> keys) {
+        if (!start()) {
+            // 尚未启动时只置位本地镜像，启动后写入 Redis
+            for (String key : keys) {
+                setLocal(key);
+                unconfirmedKeys.add(key);
+            }
+            return;
+        }
+        List<String> addedKeys = new ArrayList<>();
+        RBatch batch = null;
+        for (String key : keys) {
+            long[] indexes = indexes(key);
+            boolean changed = false;
+            for (long index : indexes) {
+                changed |= setBit(index);
+            }
+            if (!changed && !unconfirmedKeys.contains(key)) {
+                continue;
+            }
+            if (batch == null) {
+                batch = redissonClient.createBatch();
+            }
+            RBitSetAsync batchBitSet = batch.getBitSet(name);
+            for (long index : indexes) {
+                batchBitSet.setAsync(index);
+            }
+            addedKeys.add(key);
+            unconfirmedKeys.add(key);
+        }
+        if (batch == null) {
+            return;
+        }
+        batch.executeAsync().onComplete((result, e) -> {
+            if (e != null) {
+                log.error("Failed to add {} keys to bloom filter {}, will retry", addedKeys.size(), name, e);
+                return;
+            }
+            addedKeys.forEach(unconfirmedKeys::remove);
+            topic.publishAsync(new BloomFilterMessage(nodeId, addedKeys)).onComplete((receivers, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to publish bloom filter keys {}", addedKeys, ex);
+                }
+            });
+        });
+    }
+
+    /**
+     * 从 Redis 全量读取位图，按位或合并到本地镜像
+     */
+    public void reload() {
+        RBitSet bitSet = this.bitSet;
+        if (bitSet == null) {
+            throw new IllegalStateException("Bloom filter " + name + " is not started");
+        }
+        byte[] bytes = bitSet.toByteArray();
+        if (bytes == null) {
+            bytes = new byte[0]; // 位图尚不存在
+        }
+        // Redis 位图中第 i 位位于第 i / 8 个字节的高位起第 i % 8 位，翻转后按小端拼接为 long
+        int wordCount = words.length();
+        for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+            int offset = wordIndex << 3;
+            if (offset >= bytes.length) {
+                break;
+            }
+            long word = 0;
+            for (int i = 0; i < 8 && offset + i < bytes.length; i++) {
+                long reversed = Integer.reverse(bytes[offset + i] & 0xFF) >>> 24;
+                word |= reversed << (i << 3);
+            }
+            if (word != 0) {
+                words.getAndAccumulate(wordIndex, word, (current, update) -> current | update);
+            }
+        }
+        ready = true;
+    }
+
+    /**
+     * 停止定期同步并取消订阅，容器关闭时调用
+     */
+    public void shutdown() {
+        if (resyncExecutor != null) {
+            resyncExecutor.shutdownNow();
+        }
+        RTopic topic = this.topic;
+        if (topic != null) {
+            topic.removeListener(messageListenerId, statusListenerId);
+        }
+    }
+
+    /**
+     * @return 尚未确认写入 Redis 的 key 个数
+     */
+    public int getUnconfirmedCount() {
+        return unconfirmedKeys.size();
+    }
+
+    /**
+     * 从 Redis 同步位图，并重新写入之前写入失败的 key
+     */
+    private void resync() {
+        reloadQuietly();
+        retryUnconfirmed();
+    }
+
+    private void retryUnconfirmed() {
+        if (!unconfirmedKeys.isEmpty()) {
+            try {
+                addAll(new ArrayList<>(unconfirmedKeys));
+            } catch (RuntimeException e) {
+                log.error("Failed to retry {} keys of bloom filter {}", unconfirmedKeys.size(), name, e);
+            }
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Failed to reload bloom filter {}", name, e);
+        }
+    }
+
+    private void setLocal(String key) {
+        for (long index : indexes(key)) {
+            setBit(index);
+        }
+    }
+
+    /**
+     * 设置本地镜像中的位
+     *
+     * @return 该位原先未置位时返回 true
+     */
+    private boolean setBit(long index) {
+        long mask = 1L << index;
+        int wordIndex = (int) (index >>> 6);
+        return (words.getAndAccumulate(wordIndex, mask, (current, update) -> current | update) & mask) == 0;
+    }
+
+    /**
+     * 使用双重哈希计算 key 对应的各个位置，所有节点使用相同的算法，保证位置一致
+     */
+    private long[] indexes(String key) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        long hash1 = mix(hash);
+        long hash2 = mix(hash ^ 0x9e3779b97f4a7c15L);
+        long[] indexes = new long[hashIterations];
+        long combined = hash1;
+        for (int i = 0; i < hashIterations; i++) {
+            indexes[i] = (combined & Long.MAX_VALUE) % size;
+            combined += hash2;
+        }
+        return indexes;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long optimalSize(long expectedInsertions, double falseProbability) {
+        return (long) Math.ceil(-expectedInsertions * Math.log(falseProbability) / (Math.log(2) * Math.log(2)));
+    }
+
+    private static int optimalHashIterations(long expectedInsertions, long size) {
+        return Math.max(1, (int) Math.round((double) size / expectedInsertions * Math.log(2)));
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 本地缓存失效消息
+ * <p>
+ * 通过 Redis 主题在节点之间广播，携带缓存区域与需要失效的 key 列表；clearAll 为 true 时表示清空该区域的本地缓存，
+ * region 为 null 时表示所有区域。
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String nodeId; // 发布消息的节点标识，用于忽略自身发出的消息
+    private String region; // 缓存区域名称
+    private List<String> keys; // 需要失效的 key 列表
+    private boolean clearAll; // 是否清空全部本地缓存
+}
@@ -0,0 +1,211 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.StatusListener;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 本地缓存失效同步服务
+ * <p>
+ * 基于 Redisson 的 RTopic 在节点之间广播本地缓存失效消息。任一节点写入或删除二级缓存时发布消息，
+ * 其他节点收到后清除各自本地缓存中的对应数据。订阅连接断开并重新订阅后，期间的消息可能已经丢失，
+ * 此时会向监听者投递一条 clearAll 消息，由其清空本地缓存。
+ * </p>
+ * <p>
+ * 订阅在 {@link #start()} 中进行，不在构造函数中访问 Redis：由 RedissonClient 连接预热线程在连接建立后调用，
+ * 未启用预热或预热失败时在第一次发布消息时调用。订阅失败后至少间隔 {@link #RETRY_INTERVAL} 毫秒才会重试，
+ * Redis 不可达时不会拖慢每一次写入。未启用连接预热且节点从不写入时，需要自行调用 {@link #start()} 才能收到其他节点的消息。
+ * </p>
+ */
+@Slf4j
+public class CacheSyncService {
+
+    public static final long RETRY_INTERVAL = 5000; // 订阅失败后的最短重试间隔 单位毫秒
+
+    private final Supplier<RedissonClient> redissonClient; // 延迟获取的 RedissonClient
+    private final String topicName; // 失效消息主题名称
+    private volatile RTopic topic; // 失效消息主题，订阅成功后才设置
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString(); // 当前节点标识
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>(); // 消息监听者
+    private final AtomicInteger subscribeCount = new AtomicInteger(); // 订阅成功次数，大于 1 表示发生过重新订阅
+    private int messageListenerId;
+    private int statusListenerId;
+    private final AtomicBoolean starting = new AtomicBoolean(); // 是否有线程正在订阅
+    private volatile long lastFailure; // 上一次订阅失败的时间戳 单位毫秒
+
+    /**
+     * 构造函数，立即订阅
+     *
+     * @param redissonClient RedissonClient 实例
+     * @param topicName      失效消息主题名称
+     */
+    public CacheSyncService(RedissonClient redissonClient, String topicName) {
+        this(() -> redissonClient, topicName);
+        start();
+    }
+
+    /**
+     * 构造函数，不访问 Redis，订阅延迟到 {@link #start()}
+     *
+     * @param redissonClient 延迟获取 RedissonClient 的函数，Redis 不可达时可能抛出异常
+     * @param topicName      失效消息主题名称
+     */
+    public CacheSyncService(Supplier<RedissonClient> redissonClient, String topicName) {
+        this.redissonClient = redissonClient;
+        this.topicName = topicName;
+    }
+
+    /**
+     * 订阅失效消息主题，已订阅时直接返回；失败时记录日志，距上次失败不足 {@link #RETRY_INTERVAL} 时不重试，
+     * 其他线程正在订阅时也直接返回 false
+     *
+     * @return 是否已订阅
+     */
+    public boolean start() {
+        if (topic != null) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastFailure < RETRY_INTERVAL || !starting.compareAndSet(false, true)) {
+            return false; // 其他线程正在订阅时不等待
+        }
+        try {
+            if (topic == null) {
+                subscribe();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            lastFailure = now;
+            log.error("Failed to subscribe cache sync topic {}, will retry", topicName, e);
+            return false;
+        } finally {
+            starting.set(false);
+        }
+    }
+
+    /**
+     * @return 是否已订阅
+     */
+    public boolean isStarted() {
+        return topic != null;
+    }
+
+    private void subscribe() {
+        // 消息格式与客户端配置的编解码器无关，使用 string 等编解码器时消息仍可正常收发
+        RTopic topic = redissonClient.get().getTopic(topicName, JsonJacksonCodec.INSTANCE);
+        this.statusListenerId = topic.addListener(new StatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                if (subscribeCount.incrementAndGet() > 1) {
+                    // 重新订阅，断线期间的消息可能丢失，清空本地缓存
+                    log.warn("Cache sync topic {} resubscribed, flushing local cache", channel);
+                    dispatch(new CacheInvalidationMessage(nodeId, null, null, true));
+                }
+            }
+
+            @Override
+            public void onUnsubscribe(String channel) {
+                log.warn("Cache sync topic {} unsubscribed", channel);
+            }
+        });
+        try {
+            this.messageListenerId = topic.addListener(CacheInvalidationMessage.class, (channel, message) -> {
+                if (!nodeId.equals(message.getNodeId())) {
+                    dispatch(message); // 忽略本节点发出的消息
+                }
+            });
+        } catch (RuntimeException e) {
+            topic.removeListener(statusListenerId); // 下次重试时重新添加
+            throw e;
+        }
+        this.topic = topic;
+    }
+
+    /**
+     * 注册失效消息监听者
+     *
+     * @param listener 监听者
+     */
+    public void addListener(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 发布单个 key 的失效消息
+     *
+     * @param region 缓存区域名称
+     * @param key    缓存key
+     */
+    public void publish(String region, String key) {
+        publish(region, List.of(key));
+    }
+
+    /**
+     * 批量发布 key 的失效消息，一批 key 只发送一条消息
+     *
+     * @param region 缓存区域名称
+     * @param keys   缓存key集合
+     */
+    public void publish(String region, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        send(new CacheInvalidationMessage(nodeId, region, new ArrayList<>(keys), false));
+    }
+
+    /**
+     * 发布清空区域本地缓存的消息
+     *
+     * @param region 缓存区域名称，为 null 时清空所有区域
+     */
+    public void publishClear(String region) {
+        send(new CacheInvalidationMessage(nodeId, region, null, true));
+    }
+
+    /**
+     * 取消订阅，容器关闭时调用
+     */
+    public void shutdown() {
+        RTopic topic = this.topic;
+        if (topic != null) {
+            topic.removeListener(messageListenerId, statusListenerId);
+        }
+    }
+
+    private void send(CacheInvalidationMessage message) {
+        if (!start()) {
+            log.warn("Cache sync topic {} is not subscribed, dropped invalidation for keys {}", topicName, message.getKeys());
+            return;
+        }
+        // 异步发布，不阻塞写入线程
+        topic.publishAsync(message).onComplete((receivers, e) -> {
+            if (e != null) {
+                log.error("Failed to publish cache invalidation for keys {}", message.getKeys(), e);
+            }
+        });
+    }
+
+    private void dispatch(CacheInvalidationMessage message) {
+        for (Consumer<CacheInvalidationMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.error("Failed to apply cache invalidation for keys {}", message.getKeys(), e);
+            }
+        }
+    }
+}
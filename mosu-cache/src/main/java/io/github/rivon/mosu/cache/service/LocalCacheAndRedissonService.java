@@ -1,15 +1,111 @@
 package io.github.rivon.mosu.cache.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.rivon.mosu.cache.breaker.RedisCircuitBreaker;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 /**
  * 本地缓存与 Redisson 缓存服务
  * <p>
  * 本类提供了一个服务，它结合了本地缓存与 Redis 缓存。首先会尝试从本地缓存中获取数据，如果本地缓存未命中，则会尝试从 Redis 中获取数据。如果从 Redis 获取成功，还会将数据同步到本地缓存中。存入数据时，先更新本地缓存，再同步更新到 Redis。
  * </p>
+ * <p>
+ * {@link #get(String, Function)} 在缓存未命中时只允许一个调用方执行加载：同一 JVM 内依靠 Caffeine 的 compute 语义合并并发请求，
+ * 多个 JVM 之间依靠 Redisson 分布式锁保证同一时刻只有一个节点执行加载，其余节点等待锁释放后直接读取其写入 Redis 的结果。
+ * </p>
+ * <p>
+ * 配置了 {@link WriteBehindService} 时启用延迟写入模式：写入只更新本地缓存并进入队列，由后台线程合并后批量写入 Redis。
+ * </p>
+ * <p>
+ * 配置了 {@link CacheSyncService} 时，写入和删除会广播失效消息，其他节点据此清除各自的本地缓存，保证多节点本地缓存的一致性。
+ * </p>
+ * <p>
+ * 支持命名区域：每个区域对应一个独立的本地缓存区域，并可以单独设置 Redis 过期时间或关闭 Redis，通过 {@link #region(String)} 获取。
+ * 失效消息携带区域名称，只清除对应区域的本地缓存。延迟写入只作用于默认区域。
+ * </p>
+ * <p>
+ * 配置了 {@link OffHeapCacheService} 时，本地缓存因容量不足淘汰的数据降级存入堆外缓存，本地缓存未命中时先查堆外缓存再查 Redis，
+ * 命中后提升回本地缓存并从堆外缓存移除。写入、删除与失效消息同时清除堆外缓存中的旧值。堆外缓存只作用于默认区域。
+ * </p>
+ * <p>
+ * 通过 {@link #enableNegativeCache(long, long)} 启用空结果缓存后，{@link #get(String, Function)} 的加载函数返回 null 时，
+ * 在 Redis 中写入 {@link #NULL_VALUE} 占位值，在本地写入单独的空结果缓存，两者都使用较短的过期时间，
+ * 期间对该 key 的读取直接返回 null，不再访问 Redis 与数据源。之后写入该 key 时清除空结果缓存，其他节点通过失效消息清除。
+ * </p>
+ * <p>
+ * 配置了 {@link BloomFilterService} 时，本地各层未命中的 key 先经过布隆过滤器判断，一定不存在的 key 直接返回 null。
+ * 写入的 key 自动加入布隆过滤器。布隆过滤器只作用于默认区域。
+ * </p>
+ * <p>
+ * 写入 Redis 的过期时间由 {@link TtlPolicy} 在 redisTtl 的基础上增加随机抖动，避免同一批写入的 key 同时过期。
+ * 开启 capLocalTtl 时本地缓存的过期时间不超过 Redis 中的剩余过期时间：写入时使用本次写入 Redis 的过期时间，
+ * 从 Redis 读取时与 PTTL 在同一次网络往返中获取剩余过期时间。redisTtl 为 0 的区域读取时不获取 PTTL，
+ * 这类区域中通过指定过期时间写入的数据只在写入节点限制本地缓存的过期时间。
+ * </p>
+ * <p>
+ * 配置了 {@link RedisCircuitBreaker} 时启用降级模式：Redis 读取失败或耗时过长达到阈值后熔断，熔断期间读取不再访问 Redis，
+ * 本地缓存未命中时返回逻辑过期但仍在保留期内的旧值（见 {@link LocalCacheService#getStale(String)}），
+ * 带加载函数的读取直接调用加载函数且不写入 Redis；熔断结束后由一个探测请求访问 Redis，成功后恢复，之后的读取重新从 Redis 获取最新值。
+ * 降级模式下 Redis 读取异常按未命中处理，不再抛出。写入与删除不受熔断影响。
+ * </p>
  */
 public class LocalCacheAndRedissonService {
 
     private final LocalCacheService localCacheService;  // 本地缓存服务
     private final RedissionService redissionService;    // Redis 缓存服务
+    private CacheSyncService cacheSyncService;          // 本地缓存失效同步服务，为 null 时不同步
+    private WriteBehindService writeBehindService;      // 延迟写入服务，为 null 时同步写入 Redis
+    private OffHeapCacheService offHeapCacheService;    // 堆外缓存服务，为 null 时不使用堆外缓存
+    @Setter
+    private BloomFilterService bloomFilterService;      // 布隆过滤器，为 null 时不过滤
+    private Cache<String, Boolean> negativeCache;       // 本地空结果缓存，为 null 时不缓存空结果
+    private final List<LongKeyCacheAndRedissonService> longKeyViews = new CopyOnWriteArrayList<>(); // 本区域创建的 long key 缓存
+    private long negativeTtl;                           // 空结果的过期时间 单位秒
+    @Setter
+    private long loadLockWaitTime = 3000;               // 等待加载锁的最长时间 单位毫秒
+    @Setter
+    private long loadLockLeaseTime = 10000;             // 加载锁的自动释放时间 单位毫秒
+    @Setter
+    private boolean redisEnable = true;                 // 是否使用 Redis 作为二级缓存，关闭时只使用本地缓存
+    @Setter
+    private long redisTtl;                              // Redis 中数据的过期时间 单位秒，0 表示不过期
+    @Setter
+    private TtlPolicy ttlPolicy = new TtlPolicy();      // 过期时间抖动与本地缓存过期时间上限
+    @Setter
+    private boolean localCacheExclusive;                // 本地缓存是否只由本服务写入，为 false 时异步刷新遇到 Redis 中不存在的 key 保留旧值
+    @Setter
+    private RedisCircuitBreaker circuitBreaker;         // Redis 熔断器，为 null 时不熔断，Redis 读取异常直接抛出
+    private final Map<String, LocalCacheAndRedissonService> regions = new ConcurrentHashMap<>(); // 命名区域
+    private final LongAdder l2HitCount = new LongAdder();   // 本地缓存未命中后 Redis 命中次数
+    private final LongAdder l2MissCount = new LongAdder();  // 本地缓存未命中后 Redis 也未命中次数
+    private final Map<ServedFrom, LongAdder> servedCounts = new EnumMap<>(ServedFrom.class); // 读取请求由各层返回的次数
+
+    /**
+     * Redis 中表示数据不存在的占位值
+     */
+    public static final String NULL_VALUE = "mosu:cache:absent";
+
+    private static final String LOAD_LOCK_SUFFIX = ":load-lock"; // 加载锁 key 后缀
+    private static final int DELETE_BATCH_SIZE = 500;            // 按前缀删除时每批删除的 key 数
 
     /**
      * 构造函数
@@ -20,6 +116,168 @@ public class LocalCacheAndRedissonService {
     public LocalCacheAndRedissonService(LocalCacheService localCacheService, RedissionService redissionService) {
         this.localCacheService = localCacheService;
         this.redissionService = redissionService;
+        for (ServedFrom source : ServedFrom.values()) {
+            servedCounts.put(source, new LongAdder());
+        }
+        if (localCacheService.getCacheLoader() == null) {
+            // 本地缓存异步刷新时默认从 Redis 重新加载
+            localCacheService.setCacheLoader(new RedisCacheLoader());
+        }
+    }
+
+    /**
+     * 设置本地缓存失效同步服务，并订阅其他节点发布的失效消息
+     *
+     * @param cacheSyncService 本地缓存失效同步服务
+     */
+    public void setCacheSyncService(CacheSyncService cacheSyncService) {
+        this.cacheSyncService = cacheSyncService;
+        cacheSyncService.addListener(this::onInvalidation);
+        regions.values().forEach(region -> region.setCacheSyncService(cacheSyncService));
+    }
+
+    /**
+     * 设置延迟写入服务，启用后写入操作异步批量写入 Redis，写入完成后再广播失效消息
+     *
+     * @param writeBehindService 延迟写入服务
+     */
+    public void setWriteBehindService(WriteBehindService writeBehindService) {
+        this.writeBehindService = writeBehindService;
+        writeBehindService.setFlushListener(this::publishInvalidation);
+    }
+
+    /**
+     * 设置堆外缓存服务，本地缓存因容量不足淘汰的数据降级存入堆外缓存
+     *
+     * @param offHeapCacheService 堆外缓存服务
+     */
+    public void setOffHeapCacheService(OffHeapCacheService offHeapCacheService) {
+        this.offHeapCacheService = offHeapCacheService;
+        localCacheService.setEvictionListener(offHeapCacheService::put);
+    }
+
+    /**
+     * 启用空结果缓存，加载函数返回 null 时在本地与 Redis 中缓存空结果
+     *
+     * @param ttl         空结果的过期时间，应远小于正常数据的过期时间 单位秒
+     * @param maximumSize 本地空结果缓存的最大容量
+     */
+    public void enableNegativeCache(long ttl, long maximumSize) {
+        this.negativeTtl = ttl;
+        this.negativeCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * @return 本地空结果缓存中的 key 数量
+     */
+    public long getNegativeCacheSize() {
+        return negativeCache != null ? negativeCache.estimatedSize() : 0;
+    }
+
+    /**
+     * 添加命名区域，当前已设置失效同步服务时区域同样订阅失效消息
+     *
+     * @param region 区域对应的二级缓存服务，以其本地缓存的 name 作为区域名称
+     */
+    public void addRegion(LocalCacheAndRedissonService region) {
+        regions.put(region.getName(), region);
+        if (cacheSyncService != null && region.cacheSyncService == null) {
+            region.setCacheSyncService(cacheSyncService);
+        }
+    }
+
+    /**
+     * 按名称获取区域
+     *
+     * @param name 区域名称
+     * @return 区域对应的二级缓存服务
+     */
+    public LocalCacheAndRedissonService region(String name) {
+        if (getName().equals(name)) {
+            return this;
+        }
+        LocalCacheAndRedissonService region = regions.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("Unknown cache region: " + name);
+        }
+        return region;
+    }
+
+    /**
+     * 创建使用 long 类型 key 的二级缓存，沿用本区域的 Redis 配置、熔断器与失效同步服务
+     * <p>
+     * 适合 "前缀 + 数值 ID" 形式的实体缓存：本地缓存以 long 为 key，命中时不拼接字符串也不分配对象，
+     * Redis 中的 key 由 keyEncoder 生成，与本区域通过字符串 key 读写的是同一份数据。
+     * 本节点通过其中一种方式写入或删除时，直接失效另一种方式的本地缓存（失效消息会忽略本节点发出的消息），两种方式可以混用。
+     * 创建的服务在本区域中一直保留，应在启动时创建一次并复用。
+     * </p>
+     *
+     * @param keyEncoder 本地 key 与 Redis key 之间的转换，例如 {@link LongKeyEncoder#prefix(String)}
+     * @param localCache long 类型 key 的本地缓存
+     * @return long 类型 key 的二级缓存服务
+     */
+    public LongKeyCacheAndRedissonService longKeyCache(LongKeyEncoder keyEncoder, LongKeyCacheService localCache) {
+        LongKeyCacheAndRedissonService service = new LongKeyCacheAndRedissonService(getName(), localCache, redissionService, keyEncoder);
+        service.setRedisEnable(redisEnable);
+        service.setRedisTtl(redisTtl);
+        service.setTtlPolicy(ttlPolicy);
+        service.setCircuitBreaker(circuitBreaker);
+        service.setLoadLockWaitTime(loadLockWaitTime);
+        service.setLoadLockLeaseTime(loadLockLeaseTime);
+        if (cacheSyncService != null) {
+            service.setCacheSyncService(cacheSyncService);
+        }
+        service.setOwner(this);
+        longKeyViews.add(service);
+        return service;
+    }
+
+    /**
+     * @return 区域名称
+     */
+    public String getName() {
+        return localCacheService.getName();
+    }
+
+    /**
+     * @return 本区域的本地缓存服务，可用于获取本地缓存命中率
+     */
+    public LocalCacheService getLocalCacheService() {
+        return localCacheService;
+    }
+
+    /**
+     * @return 本地缓存未命中后 Redis 命中次数
+     */
+    public long getL2HitCount() {
+        return l2HitCount.sum();
+    }
+
+    /**
+     * @return 本地缓存未命中后 Redis 也未命中次数
+     */
+    public long getL2MissCount() {
+        return l2MissCount.sum();
+    }
+
+    /**
+     * 获取读取请求由指定层返回的次数，批量读取按 key 计数
+     *
+     * @param source 返回数据的层
+     * @return 次数
+     */
+    public long getServedCount(ServedFrom source) {
+        return servedCounts.get(source).sum();
+    }
+
+    /**
+     * @return 所有命名区域，不包括默认区域
+     */
+    public Collection<LocalCacheAndRedissonService> getRegions() {
+        return Collections.unmodifiableCollection(regions.values());
     }
 
     /**
@@ -35,32 +293,841 @@ public class LocalCacheAndRedissonService {
         // 先从本地缓存获取
         Object value = localCacheService.get(key);
         if (value != null) {
+            served(ServedFrom.LOCAL, 1);
             return value; // 本地缓存命中，返回数据
         }
 
+        // 延迟写入模式下，尚未写入 Redis 的数据以队列中的为准
+        value = getPending(key);
+        if (value != null) {
+            served(ServedFrom.WRITE_BEHIND, 1);
+            return value;
+        }
+
+        // 堆外缓存命中时提升回本地缓存
+        value = promoteOffHeap(key);
+        if (value != null) {
+            served(ServedFrom.OFF_HEAP, 1);
+            return value;
+        }
+
+        // 已知不存在的 key 不再访问 Redis
+        if (isKnownAbsent(key)) {
+            return null;
+        }
+
+        if (!redisEnable) {
+            served(ServedFrom.NONE, 1);
+            return null;
+        }
+
+        // 熔断期间不访问 Redis，返回本地缓存保留的旧值
+        if (!allowRedis()) {
+            return serveStale(key);
+        }
+
         // 如果本地缓存未命中，则从 Redis 获取
-        value = redissionService.getObject(key);
+        ValueWithTtl<Object> redisValue;
+        try {
+            redisValue = readRedis(key);
+        } catch (RuntimeException e) {
+            return degrade(key, e);
+        }
+        value = redisValue.getValue();
+        recordL2(value != null);
+        if (isNullValue(key, value)) {
+            return null;
+        }
+        served(value != null ? ServedFrom.REDIS : ServedFrom.NONE, 1);
         if (value != null) {
-            // 将 Redis 中的数据缓存到本地缓存
-            localCacheService.put(key, value);
+            // 将 Redis 中的数据缓存到本地缓存，过期时间不超过 Redis 中的剩余过期时间
+            putLocal(key, value, redisValue.getTtl());
+        }
+
+        return value;
+    }
+
+    /**
+     * 异步获取缓存数据
+     * <p>
+     * 本地缓存命中时立即返回已完成的结果，未命中时异步从 Redis 获取并回填本地缓存，不阻塞调用线程。
+     * </p>
+     *
+     * @param key 缓存的 key
+     * @return 缓存的值，如果缓存中没有，结果为 null
+     */
+    public CompletionStage<Object> getAsync(String key) {
+        Object value = localCacheService.get(key);
+        if (value != null) {
+            served(ServedFrom.LOCAL, 1);
+            return CompletableFuture.completedFuture(value); // 本地缓存命中，立即完成
+        }
+        value = getPending(key);
+        if (value != null) {
+            served(ServedFrom.WRITE_BEHIND, 1);
+            return CompletableFuture.completedFuture(value);
+        }
+        value = promoteOffHeap(key);
+        if (value != null) {
+            served(ServedFrom.OFF_HEAP, 1);
+            return CompletableFuture.completedFuture(value);
+        }
+        if (isKnownAbsent(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!redisEnable) {
+            served(ServedFrom.NONE, 1);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!allowRedis()) {
+            return CompletableFuture.completedFuture(serveStale(key));
+        }
+
+        long start = System.nanoTime();
+        CompletionStage<ValueWithTtl<Object>> future = capLocalTtl()
+                ? redissionService.getObjectWithTtlAsync(key)
+                : redissionService.getObjectAsync(key).thenApply(redisValue -> new ValueWithTtl<>(redisValue, -1));
+        return future.handle((withTtl, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                RuntimeException exception = cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+                reportError(exception);
+                return degrade(key, exception);
+            }
+            reportSuccess(start);
+            Object redisValue = withTtl.getValue();
+            recordL2(redisValue != null);
+            if (isNullValue(key, redisValue)) {
+                return null;
+            }
+            served(redisValue != null ? ServedFrom.REDIS : ServedFrom.NONE, 1);
+            if (redisValue != null) {
+                putLocal(key, redisValue, withTtl.getTtl());
+            }
+            return redisValue;
+        });
+    }
+
+    /**
+     * 批量获取缓存数据
+     * <p>
+     * 先从本地缓存中获取所有命中的数据，剩余未命中的 key 通过一次网络往返从 Redis 批量获取，并回填到本地缓存。
+     * </p>
+     *
+     * @param keys 缓存的 key 集合
+     * @return key 与缓存值的映射，缓存中没有的 key 不包含在结果中
+     */
+    public Map<String, Object> getAll(Collection<String> keys) {
+        // 先从本地缓存批量获取
+        Map<String, Object> result = new HashMap<>(localCacheService.getAllPresent(keys));
+        served(ServedFrom.LOCAL, result.size());
+
+        List<String> missingKeys = new ArrayList<>();
+        for (String key : keys) {
+            if (!result.containsKey(key)) {
+                Object pendingValue = getPending(key);
+                if (pendingValue != null) {
+                    served(ServedFrom.WRITE_BEHIND, 1);
+                    result.put(key, pendingValue);
+                    continue;
+                }
+                Object offHeapValue = promoteOffHeap(key);
+                if (offHeapValue != null) {
+                    served(ServedFrom.OFF_HEAP, 1);
+                    result.put(key, offHeapValue);
+                } else if (!isKnownAbsent(key)) {
+                    missingKeys.add(key);
+                }
+            }
         }
+        if (missingKeys.isEmpty() || !redisEnable) {
+            served(ServedFrom.NONE, missingKeys.size());
+            return result; // 全部命中本地缓存
+        }
+
+        if (!allowRedis()) {
+            serveStale(missingKeys, result);
+            return result;
+        }
+
+        // 未命中的 key 一次性从 Redis 获取，并回填本地缓存
+        Map<String, ValueWithTtl<Object>> withTtls;
+        try {
+            withTtls = readRedis(missingKeys);
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            serveStale(missingKeys, result);
+            return result;
+        }
+        Map<String, Object> redisValues = new HashMap<>(withTtls.size());
+        withTtls.forEach((key, withTtl) -> redisValues.put(key, withTtl.getValue()));
+        l2HitCount.add(redisValues.size());
+        l2MissCount.add(missingKeys.size() - redisValues.size());
+        int found = redisValues.size();
+        redisValues.entrySet().removeIf(entry -> isNullValue(entry.getKey(), entry.getValue()));
+        served(ServedFrom.REDIS, redisValues.size());
+        served(ServedFrom.NONE, missingKeys.size() - found);
+        for (Map.Entry<String, Object> entry : redisValues.entrySet()) {
+            putLocal(entry.getKey(), entry.getValue(), withTtls.get(entry.getKey()).getTtl());
+        }
+        result.putAll(redisValues);
+        return result;
+    }
 
+    /**
+     * 根据给定的 key 获取缓存数据，未命中时通过 loader 加载
+     * <p>
+     * 本地缓存与 Redis 均未命中时，同一 JVM 内同一 key 的并发请求只会有一个进入加载流程，其余请求等待其结果；
+     * 加载流程先获取该 key 的分布式锁，保证集群内只有一个节点执行 loader，加载结果写入 Redis 后释放锁，
+     * 其他节点获取锁后再次读取 Redis 即可得到结果。等待锁超时时退化为直接调用 loader，保证可用性。
+     * </p>
+     *
+     * @param key    缓存的 key
+     * @param loader 缓存未命中时的加载函数，返回 null 表示数据不存在，启用空结果缓存时按空结果过期时间缓存，否则不写入缓存
+     * @param <V>    缓存值的类型
+     * @return 缓存的值
+     */
+    public <V> V get(String key, Function<? super String, ? extends V> loader) {
+        if (isBreakerOpen()) {
+            // 熔断期间本地缓存中逻辑过期的旧值直接返回，不进入加载流程
+            Object value = localCacheService.get(key);
+            if (value != null) {
+                served(ServedFrom.LOCAL, 1);
+                return (V) value;
+            }
+            value = localCacheService.getStale(key);
+            if (value != null) {
+                served(ServedFrom.STALE, 1);
+                return (V) value;
+            }
+        }
+        // 本地缓存的 compute 语义保证同一 JVM 内同一 key 只加载一次
+        boolean[] loaded = new boolean[1];
+        V value = localCacheService.put(key, k -> {
+            loaded[0] = true;
+            return load(k, loader);
+        });
+        if (!loaded[0]) {
+            served(ServedFrom.LOCAL, 1);
+        }
         return value;
     }
 
     /**
      * 将数据存入缓存
      * <p>
-     * 先将数据存入本地缓存，然后同步更新到 Redis 缓存中
+     * 先将数据存入本地缓存，然后同步更新到 Redis 缓存中，Redis 中的过期时间为 redisTtl 加上随机抖动
      * </p>
      *
      * @param key   缓存的 key
      * @param value 缓存的值
      */
     public void put(String key, Object value) {
+        put(key, value, redisTtl, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 将数据存入缓存并指定过期时间
+     * <p>
+     * Redis 中的过期时间为 ttl 加上随机抖动，开启 capLocalTtl 时本地缓存使用同一个过期时间
+     * </p>
+     *
+     * @param key   缓存的 key
+     * @param value 缓存的值
+     * @param ttl   过期时间，小于等于 0 表示不过期
+     * @param unit  时间单位
+     */
+    public void put(String key, Object value, long ttl, TimeUnit unit) {
+        long ttlMillis = ttlPolicy.apply(ttl, unit);
         // 先存入本地缓存
-        localCacheService.put(key, value);
+        putLocal(key, value, ttlMillis);
+        invalidateOffHeap(key);
+        onWrite(key);
+        if (writeBehindService != null) {
+            // 延迟写入模式，写入 Redis 后由刷新回调广播失效消息
+            writeBehindService.enqueue(key, value, ttlMillis);
+            return;
+        }
         // 同步存入 Redis
-        redissionService.setObject(key, value);
+        setRedis(key, value, ttlMillis);
+        // 通知其他节点失效本地缓存
+        publishInvalidation(key);
+    }
+
+    /**
+     * 异步存入缓存
+     * <p>
+     * 立即更新本地缓存，Redis 写入完成后再通知其他节点失效本地缓存
+     * </p>
+     *
+     * @param key   缓存的 key
+     * @param value 缓存的值
+     * @return 写入 Redis 完成的通知
+     */
+    public CompletionStage<Void> putAsync(String key, Object value) {
+        long ttlMillis = ttlPolicy.apply(redisTtl, TimeUnit.SECONDS);
+        putLocal(key, value, ttlMillis);
+        invalidateOffHeap(key);
+        onWrite(key);
+        if (writeBehindService != null) {
+            writeBehindService.enqueue(key, value, ttlMillis);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!redisEnable) {
+            publishInvalidation(key);
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletionStage<Void> future = ttlMillis > 0
+                ? redissionService.setWithExpireAsync(key, value, ttlMillis, TimeUnit.MILLISECONDS)
+                : redissionService.setObjectAsync(key, value);
+        return future.thenRun(() -> publishInvalidation(key));
+    }
+
+    /**
+     * 批量存入缓存
+     * <p>
+     * 先批量存入本地缓存，再通过一次管道写入 Redis，失效消息也只发送一条。每个 key 的过期时间分别计算抖动，
+     * 同一批写入的 key 不会在同一时刻过期
+     * </p>
+     *
+     * @param map key 与缓存值的映射
+     */
+    public void putAll(Map<String, Object> map) {
+        Map<String, Long> ttls = new HashMap<>(map.size());
+        if (redisTtl > 0) {
+            map.keySet().forEach(key -> ttls.put(key, ttlPolicy.apply(redisTtl, TimeUnit.SECONDS)));
+            map.forEach((key, value) -> putLocal(key, value, ttls.get(key)));
+        } else {
+            localCacheService.putAll(map);
+        }
+        if (offHeapCacheService != null) {
+            offHeapCacheService.invalidateAll(map.keySet());
+        }
+        if (negativeCache != null) {
+            negativeCache.invalidateAll(map.keySet());
+        }
+        map.keySet().forEach(key -> invalidateLongKeyViews(key, null));
+        if (bloomFilterService != null) {
+            bloomFilterService.addAll(map.keySet());
+        }
+        if (writeBehindService != null) {
+            map.forEach((key, value) -> writeBehindService.enqueue(key, value, ttls.getOrDefault(key, 0L)));
+            return;
+        }
+        if (redisEnable) {
+            if (redisTtl > 0) {
+                redissionService.setObjects(map, ttls::get, TimeUnit.MILLISECONDS);
+            } else {
+                redissionService.setObjects(map);
+            }
+        }
+        publishInvalidation(map.keySet());
+    }
+
+    /**
+     * 删除缓存
+     * <p>
+     * 同时删除本地缓存与 Redis 中的数据，并通知其他节点失效本地缓存
+     * </p>
+     *
+     * @param key 缓存的 key
+     */
+    public void delete(String key) {
+        localCacheService.invalidate(key);
+        invalidateOffHeap(key);
+        invalidateNegative(key);
+        invalidateLongKeyViews(key, null);
+        if (writeBehindService != null) {
+            writeBehindService.remove(key); // 避免已删除的数据被后续刷新写回 Redis
+        }
+        if (redisEnable) {
+            redissionService.delete(key);
+        }
+        publishInvalidation(key);
+    }
+
+    /**
+     * 删除指定前缀的所有缓存
+     * <p>
+     * 清除本地缓存、堆外缓存与延迟写入队列中该前缀的数据，再通过 SCAN 分批删除 Redis 中的数据，每删除一批广播一条失效消息；
+     * 不使用 Redis 时无法得知其他节点缓存了哪些 key，改为广播清空本区域的消息。
+     * </p>
+     *
+     * @param prefix key 前缀
+     */
+    public void deleteByPrefix(String prefix) {
+        localCacheService.invalidateByPrefix(prefix);
+        if (offHeapCacheService != null) {
+            offHeapCacheService.invalidateByPrefix(prefix);
+        }
+        if (writeBehindService != null) {
+            writeBehindService.removeByPrefix(prefix);
+        }
+        if (negativeCache != null) {
+            negativeCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        longKeyViews.forEach(view -> view.getLocalCache().invalidateAll()); // long key 无法按前缀匹配，整体清空
+        if (!redisEnable) {
+            if (cacheSyncService != null) {
+                cacheSyncService.publishClear(getName());
+            }
+            return;
+        }
+        redissionService.deleteByPrefix(prefix, DELETE_BATCH_SIZE, this::publishInvalidation);
+    }
+
+    /**
+     * 判断是否存在指定名称的区域
+     *
+     * @param name 区域名称
+     * @return 存在时返回 true
+     */
+    public boolean hasRegion(String name) {
+        return getName().equals(name) || regions.containsKey(name);
+    }
+
+    /**
+     * 从 Redis 读取数据，未命中时在分布式锁保护下调用 loader 加载并写入 Redis
+     *
+     * @param key    缓存的 key
+     * @param loader 加载函数
+     * @param <V>    缓存值的类型
+     * @return 缓存的值
+     */
+    private <V> V load(String key, Function<? super String, ? extends V> loader) {
+        // 在本地缓存的 compute 中执行，由本地缓存保存返回值，这里只需从堆外缓存移除，并带上剩余的存活时间
+        ValueWithTtl<Object> offHeapValue = takeOffHeap(key);
+        if (offHeapValue != null) {
+            served(ServedFrom.OFF_HEAP, 1);
+            return (V) LocalCacheService.expiring(offHeapValue.getValue(), offHeapValue.getTtl(), TimeUnit.MILLISECONDS);
+        }
+        if (isKnownAbsent(key)) {
+            return null; // 返回 null 时本地缓存不保存该项
+        }
+        V value;
+        if (!redisEnable) {
+            served(ServedFrom.LOADER, 1);
+            value = loader.apply(key); // 只使用本地缓存时无需跨节点加锁
+            if (value == null) {
+                cacheAbsent(key);
+            }
+            return value;
+        }
+        if (!allowRedis()) {
+            return loadDegraded(key, loader);
+        }
+        ValueWithTtl<Object> redisValue;
+        try {
+            redisValue = readRedis(key);
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            return loadDegraded(key, loader);
+        }
+        recordL2(redisValue.getValue() != null);
+        if (isNullValue(key, redisValue.getValue())) {
+            return null;
+        }
+        if (redisValue.getValue() != null) {
+            served(ServedFrom.REDIS, 1);
+            return (V) localValue(redisValue.getValue(), redisValue.getTtl());
+        }
+
+        String lockKey = key + LOAD_LOCK_SUFFIX;
+        boolean locked = redissionService.tryLock(lockKey, loadLockWaitTime, loadLockLeaseTime, TimeUnit.MILLISECONDS);
+        try {
+            // 获取锁后再次检查，其他节点可能已经完成加载
+            redisValue = readRedis(key);
+            if (isNullValue(key, redisValue.getValue())) {
+                return null;
+            }
+            if (redisValue.getValue() != null) {
+                served(ServedFrom.REDIS, 1);
+                return (V) localValue(redisValue.getValue(), redisValue.getTtl());
+            }
+            served(ServedFrom.LOADER, 1);
+            value = loader.apply(key);
+            if (value == null) {
+                cacheAbsent(key);
+                return null;
+            }
+            long ttlMillis = ttlPolicy.apply(redisTtl, TimeUnit.SECONDS);
+            setRedis(key, value, ttlMillis);
+            publishInvalidation(key);
+            return (V) localValue(value, ttlMillis);
+        } finally {
+            if (locked) {
+                redissionService.unlock(lockKey);
+            }
+        }
+    }
+
+
+    /**
+     * 处理其他节点发布的失效消息
+     *
+     * @param message 失效消息
+     */
+    private void onInvalidation(CacheInvalidationMessage message) {
+        if (message.getRegion() != null && !message.getRegion().equals(getName())) {
+            return; // 其他区域的消息，region 为 null 时作用于所有区域
+        }
+        if (message.isClearAll()) {
+            localCacheService.invalidateAll();
+            if (negativeCache != null) {
+                negativeCache.invalidateAll();
+            }
+            if (offHeapCacheService != null) {
+                offHeapCacheService.invalidateAll();
+            }
+            return;
+        }
+        List<String> keys = message.getKeys();
+        if (keys != null) {
+            localCacheService.invalidateAll(keys);
+            if (negativeCache != null) {
+                negativeCache.invalidateAll(keys);
+            }
+            if (offHeapCacheService != null) {
+                offHeapCacheService.invalidateAll(keys);
+            }
+        }
+    }
+
+    private void setRedis(String key, Object value, long ttlMillis) {
+        if (!redisEnable) {
+            return;
+        }
+        if (ttlMillis > 0) {
+            redissionService.setWithExpire(key, value, ttlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            redissionService.setObject(key, value);
+        }
+    }
+
+    /**
+     * 读取 Redis 时是否需要同时读取剩余过期时间，区域不设置 Redis 过期时间时不读取
+     */
+    private boolean capLocalTtl() {
+        return ttlPolicy.isCapLocalTtl() && redisEnable && redisTtl > 0;
+    }
+
+    /**
+     * 从 Redis 读取数据，需要限制本地缓存过期时间时在同一次网络往返中读取剩余过期时间
+     */
+    private ValueWithTtl<Object> readRedis(String key) {
+        return guarded(() -> {
+            if (capLocalTtl()) {
+                return redissionService.getObjectWithTtl(key);
+            }
+            return new ValueWithTtl<>(redissionService.getObject(key), -1);
+        });
+    }
+
+    /**
+     * 从 Redis 批量读取数据，不存在的 key 不包含在结果中
+     */
+    private Map<String, ValueWithTtl<Object>> readRedis(Collection<String> keys) {
+        return guarded(() -> {
+            if (capLocalTtl()) {
+                return redissionService.getObjectsWithTtl(keys);
+            }
+            Map<String, ValueWithTtl<Object>> values = new HashMap<>();
+            redissionService.getObjects(keys).forEach((key, value) -> values.put(key, new ValueWithTtl<>(value, -1)));
+            return values;
+        });
+    }
+
+    /**
+     * 执行 Redis 读取，并向熔断器报告结果与耗时
+     */
+    private <T> T guarded(Supplier<T> read) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = read.get();
+        } catch (RuntimeException e) {
+            reportError(e);
+            throw e;
+        }
+        reportSuccess(start);
+        return result;
+    }
+
+    private void reportSuccess(long start) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+        }
+    }
+
+    private void reportError(RuntimeException e) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onError(e);
+        }
+    }
+
+    /**
+     * 判断本次读取是否可以访问 Redis，熔断结束后的第一次调用作为探测请求，调用方必须随后通过 readRedis 访问 Redis
+     */
+    private boolean allowRedis() {
+        return circuitBreaker == null || circuitBreaker.allowRequest();
+    }
+
+    private boolean isBreakerOpen() {
+        return circuitBreaker != null && circuitBreaker.getState() == RedisCircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * Redis 读取失败时的处理：未配置熔断器时抛出异常，否则返回本地缓存保留的旧值
+     */
+    private Object degrade(String key, RuntimeException e) {
+        if (circuitBreaker == null) {
+            throw e;
+        }
+        return serveStale(key);
+    }
+
+    /**
+     * 返回本地缓存保留的旧值，没有时按未命中处理
+     */
+    private Object serveStale(String key) {
+        Object stale = localCacheService.getStale(key);
+        served(stale != null ? ServedFrom.STALE : ServedFrom.NONE, 1);
+        return stale;
+    }
+
+    private void serveStale(Collection<String> keys, Map<String, Object> result) {
+        for (String key : keys) {
+            Object stale = serveStale(key);
+            if (stale != null) {
+                result.put(key, stale);
+            }
+        }
+    }
+
+    /**
+     * Redis 不可用时直接调用加载函数，结果只保存在本地缓存中，不写入 Redis 也不获取分布式锁
+     */
+    private <V> V loadDegraded(String key, Function<? super String, ? extends V> loader) {
+        served(ServedFrom.LOADER, 1);
+        return loader.apply(key);
+    }
+
+    /**
+     * 存入本地缓存，ttlMillis 大于 0 且开启 capLocalTtl 时本地缓存项在该时间后过期
+     */
+    private void putLocal(String key, Object value, long ttlMillis) {
+        if (ttlPolicy.isCapLocalTtl() && ttlMillis > 0) {
+            localCacheService.put(key, value, ttlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            localCacheService.put(key, value);
+        }
+    }
+
+    /**
+     * 在本地缓存的 compute 中返回的值，需要限制过期时间时附加过期时间
+     */
+    private Object localValue(Object value, long ttlMillis) {
+        if (ttlPolicy.isCapLocalTtl() && ttlMillis > 0) {
+            return LocalCacheService.expiring(value, ttlMillis, TimeUnit.MILLISECONDS);
+        }
+        return value;
+    }
+
+    /**
+     * 判断 key 是否已知不存在：布隆过滤器判定不存在，或者本地空结果缓存中存在该 key
+     */
+    private boolean isKnownAbsent(String key) {
+        if (bloomFilterService != null && !bloomFilterService.mightContain(key)) {
+            served(ServedFrom.BLOOM_FILTER, 1);
+            return true;
+        }
+        if (negativeCache != null && negativeCache.getIfPresent(key) != null) {
+            served(ServedFrom.NEGATIVE, 1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 判断从 Redis 读取的值是否为空结果占位值，是则记入本地空结果缓存
+     */
+    private boolean isNullValue(String key, Object value) {
+        if (!NULL_VALUE.equals(value)) {
+            return false;
+        }
+        served(ServedFrom.NEGATIVE, 1);
+        if (negativeCache != null) {
+            negativeCache.put(key, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    /**
+     * 缓存加载函数返回的空结果，Redis 中的占位值使用单独的过期时间
+     */
+    private void cacheAbsent(String key) {
+        if (negativeCache == null) {
+            return;
+        }
+        negativeCache.put(key, Boolean.TRUE);
+        if (redisEnable) {
+            redissionService.setWithExpire(key, NULL_VALUE, negativeTtl);
+        }
+    }
+
+    private void onWrite(String key) {
+        invalidateNegative(key);
+        invalidateLongKeyViews(key, null);
+        if (bloomFilterService != null) {
+            bloomFilterService.add(key);
+        }
+    }
+
+    /**
+     * 本区域的 long key 缓存写入或删除数据时调用，失效本节点中同一个 Redis key 在字符串 key 缓存与其他 long key 缓存中的副本
+     *
+     * @param key     Redis 中的 key
+     * @param source  发生写入的 long key 缓存
+     * @param written 是否为写入，写入时加入布隆过滤器
+     */
+    void onLongKeyChange(String key, LongKeyCacheAndRedissonService source, boolean written) {
+        localCacheService.invalidate(key);
+        invalidateOffHeap(key);
+        invalidateNegative(key);
+        if (writeBehindService != null) {
+            writeBehindService.remove(key); // 尚未写入 Redis 的旧值不能覆盖刚写入的数据
+        }
+        if (written && bloomFilterService != null) {
+            bloomFilterService.add(key);
+        }
+        invalidateLongKeyViews(key, source);
+    }
+
+    private void invalidateLongKeyViews(String key, LongKeyCacheAndRedissonService source) {
+        for (LongKeyCacheAndRedissonService view : longKeyViews) {
+            if (view != source) {
+                view.invalidateLocal(key);
+            }
+        }
+    }
+
+    private void invalidateNegative(String key) {
+        if (negativeCache != null) {
+            negativeCache.invalidate(key);
+        }
+    }
+
+    private void recordL2(boolean hit) {
+        (hit ? l2HitCount : l2MissCount).increment();
+    }
+
+    private void served(ServedFrom source, long count) {
+        if (count > 0) {
+            servedCounts.get(source).add(count);
+        }
+    }
+
+    /**
+     * 从堆外缓存取出数据及其剩余存活时间，命中后从堆外缓存移除，由调用方放回本地缓存
+     */
+    private ValueWithTtl<Object> takeOffHeap(String key) {
+        if (offHeapCacheService == null) {
+            return null;
+        }
+        ValueWithTtl<Object> value = offHeapCacheService.getWithTtl(key);
+        if (value != null) {
+            offHeapCacheService.invalidate(key);
+        }
+        return value;
+    }
+
+    /**
+     * 从堆外缓存取出数据并放回本地缓存，保留降级时剩余的存活时间，避免缓存项在两层之间反复转移而永不过期
+     */
+    private Object promoteOffHeap(String key) {
+        ValueWithTtl<Object> value = takeOffHeap(key);
+        if (value == null) {
+            return null;
+        }
+        localCacheService.put(key, value.getValue(), value.getTtl(), TimeUnit.MILLISECONDS);
+        return value.getValue();
+    }
+
+    private void invalidateOffHeap(String key) {
+        if (offHeapCacheService != null) {
+            offHeapCacheService.invalidate(key);
+        }
+    }
+
+    private Object getPending(String key) {
+        return writeBehindService != null ? writeBehindService.getPending(key) : null;
+    }
+
+    private void publishInvalidation(String key) {
+        if (cacheSyncService != null) {
+            cacheSyncService.publish(getName(), key);
+        }
+    }
+
+    private void publishInvalidation(Collection<String> keys) {
+        if (cacheSyncService != null) {
+            cacheSyncService.publish(getName(), keys);
+        }
+    }
+
+    /**
+     * 本地缓存异步刷新时使用的加载器，延迟写入模式下优先使用队列中尚未写入 Redis 的值，不使用 Redis 时保留旧值。
+     * <p>
+     * Redis 中为 {@link #NULL_VALUE} 占位值时返回 null，本地缓存随之移除该项。Redis 中不存在该 key 时，只有本地缓存由本服务独占
+     * （localCacheExclusive）才移除；与直接使用 {@link LocalCacheService} 的代码共用时，
+     * 无法区分只写入本地缓存的数据与已在 Redis 中删除的数据，保留旧值，其他节点的删除依靠失效消息清除。
+     * </p>
+     */
+    private class RedisCacheLoader implements CacheLoader<String, Object> {
+
+        @Override
+        public Object load(String key) {
+            Object value = getPending(key);
+            if (value != null || !redisEnable || !allowRedis()) {
+                return value;
+            }
+            return fetch(key);
+        }
+
+        @Override
+        public Object reload(String key, Object oldValue) {
+            if (!redisEnable) {
+                return oldValue;
+            }
+            Object value = getPending(key);
+            if (value != null) {
+                return value;
+            }
+            if (!allowRedis()) {
+                return oldValue; // 熔断期间保留旧值
+            }
+            ValueWithTtl<Object> redisValue = readRedis(key);
+            if (redisValue.getValue() == null && !localCacheExclusive) {
+                return oldValue; // 可能是只写入本地缓存的数据
+            }
+            return toLocal(redisValue);
+        }
+
+        private Object fetch(String key) {
+            return toLocal(readRedis(key));
+        }
+
+        private Object toLocal(ValueWithTtl<Object> redisValue) {
+            Object value = redisValue.getValue();
+            if (value == null || NULL_VALUE.equals(value)) {
+                return null; // 占位值表示数据已不存在
+            }
+            return localValue(value, redisValue.getTtl());
+        }
     }
 }
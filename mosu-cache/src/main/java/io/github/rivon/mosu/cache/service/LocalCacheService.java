@@ -1,10 +1,22 @@
 package io.github.rivon.mosu.cache.service;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.rivon.mosu.cache.estimator.JacksonSizeEstimator;
+import io.github.rivon.mosu.cache.estimator.SizeEstimator;
 import lombok.Data;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -12,15 +24,47 @@ import java.util.function.Function;
  * 本地缓存服务类
  * caffine有三种缓存类型：Cache，LoadingCache，AsyncLoadingCache
  * 同时结合spring支持注解形式实现本地缓存, @Cacheable、 @CacheEvict、 @CachePut
+ * <p>
+ * 设置了 refreshAfterWrite 时构建为 LoadingCache：缓存项写入超过该时间后，下一次读取仍返回旧值，
+ * 同时在后台通过 cacheLoader 异步重新加载，避免热点数据过期时读请求同步承担加载开销。
+ * cacheLoader 可以在初始化之后再设置，未设置时刷新保留旧值。
+ * </p>
+ * <p>
+ * 支持命名区域：每个区域是一个独立的 LocalCacheService，拥有各自的容量与过期策略，通过 {@link #region(String)} 按名称获取，
+ * 避免不同类型的数据争用同一份容量。所有实例都开启了命中率统计，可通过 {@link #getStats()} 获取。
+ * 未初始化（未启用）的实例读取时返回空，写入时直接忽略。
+ * </p>
+ * <p>
+ * 设置了 maximumWeight 时按内存预算淘汰而不是按条数淘汰：每个缓存项的权重为 {@link SizeEstimator} 估算的字节数，
+ * 所有缓存项的权重之和不超过 maximumWeight（单位 MB），当前占用可通过 {@link #getWeightedSize()} 获取。
+ * </p>
+ * <p>
+ * {@link #put(String, Object, long, TimeUnit)} 可以为单个缓存项设置比区域统一过期时间更短的过期时间，
+ * 例如不超过该 key 在 Redis 中的剩余过期时间。此类缓存项在读取时检查是否过期，过期后移除并按未命中处理。
+ * </p>
+ * <p>
+ * 设置了 staleTtl 与 expireAfterWrite 时，缓存项写入 expireAfterWrite 之后逻辑过期，{@link #get(String)} 按未命中处理，
+ * 但缓存项继续保留 staleTtl，期间可以通过 {@link #getStale(String)} 读取，用于 Redis 不可用时降级返回旧值。
+ * </p>
  */
 @Data
 public class LocalCacheService {
 
+    public static final String DEFAULT_REGION = "default"; // 默认区域名称
+
+    private String name = DEFAULT_REGION; // 区域名称
     private Cache<String, Object> cache; // 缓存实例
     private int maximumSize; // 缓存最大容量
+    private long maximumWeight; // 缓存内存预算 单位MB，大于 0 时按估算字节数淘汰，maximumSize 不再生效
+    private SizeEstimator sizeEstimator = new JacksonSizeEstimator(); // 按内存预算淘汰时估算缓存项大小
     private long expireAfterWrite; // 写入缓存后多久过期
     private long expireAfterAccess; // 访问缓存后多久过期
+    private long refreshAfterWrite; // 写入缓存后多久在后台异步刷新，0 表示不刷新
+    private long staleTtl; // 逻辑过期后继续保留的时间，期间只能通过 getStale 读取，需同时设置 expireAfterWrite，0 表示不保留
     private TimeUnit timeUnit; // 时间单位
+    private volatile CacheLoader<String, Object> cacheLoader; // 异步刷新时使用的加载器
+    private volatile EvictionListener evictionListener; // 缓存项因容量不足被淘汰时的回调，可用于降级到下一层缓存
+    private final Map<String, LocalCacheService> regions = new ConcurrentHashMap<>(); // 命名区域
 
     /**
      * 初始化本地缓存
@@ -28,11 +72,30 @@ public class LocalCacheService {
      */
     public void initCache() {
         if (this.cache == null) {
-            this.cache = Caffeine.newBuilder()
-                    .maximumSize(this.maximumSize) // 设置缓存的最大容量，超过这个容量会根据策略移除缓存项
-                    .expireAfterWrite(this.expireAfterWrite, this.timeUnit) // 设置写入缓存后多久过期，过期时间为expireAfterWrite指定的时间
-                    .expireAfterAccess(this.expireAfterAccess, this.timeUnit) // 设置访问缓存后多久过期，过期时间为expireAfterAccess指定的时间
-                    .build();
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .recordStats() // 记录命中率等统计信息
+                    .evictionListener(this::onEviction); // 因容量不足被淘汰时通知 evictionListener
+            if (this.maximumWeight > 0) {
+                // 设置缓存的内存预算，缓存项估算字节数之和超过预算时根据策略移除缓存项
+                SizeEstimator estimator = this.sizeEstimator;
+                builder.maximumWeight(this.maximumWeight * 1024 * 1024)
+                        .weigher((key, value) -> (int) Math.min(Integer.MAX_VALUE, estimator.estimate((String) key, unwrap(value))));
+            } else {
+                builder.maximumSize(this.maximumSize); // 设置缓存的最大容量，超过这个容量会根据策略移除缓存项
+            }
+            if (this.expireAfterWrite > 0) {
+                // 设置写入缓存后多久过期，过期时间为expireAfterWrite指定的时间，保留旧值时延长 staleTtl，逻辑过期由缓存项自身判断
+                builder.expireAfterWrite(this.expireAfterWrite + (isStaleEnabled() ? this.staleTtl : 0), this.timeUnit);
+            }
+            if (this.expireAfterAccess > 0) {
+                builder.expireAfterAccess(this.expireAfterAccess, this.timeUnit); // 设置访问缓存后多久过期，过期时间为expireAfterAccess指定的时间
+            }
+            if (this.refreshAfterWrite > 0) {
+                // 设置写入缓存后多久异步刷新，刷新期间继续返回旧值
+                this.cache = builder.refreshAfterWrite(this.refreshAfterWrite, this.timeUnit).build(new DelegatingCacheLoader());
+            } else {
+                this.cache = builder.build();
+            }
         }
     }
 
@@ -42,7 +105,47 @@ public class LocalCacheService {
      * @return 缓存值
      */
     public Object get(String key) {
-        return cache.getIfPresent(key);
+        if (cache == null) {
+            return null;
+        }
+        return unwrap(key, cache.getIfPresent(key));
+    }
+
+    /**
+     * 获取缓存，逻辑过期但仍在 staleTtl 保留期内的旧值同样返回，用于 Redis 不可用时降级
+     * @param key 缓存key
+     * @return 缓存值或保留的旧值
+     */
+    public Object getStale(String key) {
+        if (cache == null) {
+            return null;
+        }
+        Object stored = cache.asMap().get(key); // 不计入命中率统计
+        if (stored instanceof Expiring) {
+            Expiring expiring = (Expiring) stored;
+            return expiring.isRetained(staleNanos()) ? expiring.value : null;
+        }
+        return stored;
+    }
+
+    /**
+     * 批量获取缓存
+     * @param keys 缓存key集合
+     * @return 命中的 key 与缓存值的映射
+     */
+    public Map<String, Object> getAllPresent(Iterable<String> keys) {
+        if (cache == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> present = cache.getAllPresent(keys);
+        Map<String, Object> result = new HashMap<>(present.size());
+        present.forEach((key, stored) -> {
+            Object value = unwrap(key, stored);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
     }
 
     /**
@@ -51,18 +154,51 @@ public class LocalCacheService {
      * @param value 缓存值
      */
     public void put(String key, Object value) {
-        cache.put(key, value);
+        if (cache == null) {
+            return;
+        }
+        cache.put(key, withDeadline(value));
+    }
+
+    /**
+     * 放入缓存并单独设置过期时间
+     * <p>
+     * 过期时间只能缩短缓存项的生命周期，区域统一的 expireAfterWrite/expireAfterAccess 仍然生效
+     * </p>
+     * @param key 缓存key
+     * @param value 缓存值
+     * @param ttl 过期时间，小于等于 0 时与 {@link #put(String, Object)} 相同
+     * @param unit 时间单位
+     */
+    public void put(String key, Object value, long ttl, TimeUnit unit) {
+        if (cache == null) {
+            return;
+        }
+        cache.put(key, withDeadline(expiring(value, ttl, unit)));
     }
 
     /**
      * 缓存模板方法
+     * <p>
+     * 生成函数可以返回 {@link #expiring(Object, long, TimeUnit)} 包装的值，为该缓存项单独设置过期时间
+     * </p>
      * @param key 缓存key
      * @param function 缓存值生成函数
      * @param <V> 缓存值类型
      * @return 缓存值
      */
     public <V> V put(String key, Function<? super String, ? extends V> function) {
-        return (V) cache.get(key, function);
+        if (cache == null) {
+            return (V) unwrap(function.apply(key)); // 未启用时直接调用生成函数
+        }
+        Object stored = cache.get(key, k -> withDeadline(function.apply(k)));
+        Object value = unwrap(key, stored);
+        if (value == null && stored != null) {
+            // 缓存项已过期，移除后重新生成一次
+            cache.asMap().remove(key, stored);
+            value = unwrap(key, cache.get(key, k -> withDeadline(function.apply(k))));
+        }
+        return (V) value;
     }
 
     /**
@@ -73,7 +209,7 @@ public class LocalCacheService {
      * @return 缓存值
      */
     public <V> V getIfPresent(String key, Class<V> vClass) {
-        return (V) cache.getIfPresent(key) ;
+        return (V) get(key);
     }
 
     /**
@@ -81,22 +217,111 @@ public class LocalCacheService {
      * @param key 缓存key
      */
     public void invalidate(String key) {
-        cache.invalidate(key); ;
+        if (cache == null) {
+            return;
+        }
+        cache.invalidate(key);
     }
 
     /**
      * 移除所有缓存
      */
     public void invalidateAll() {
-        cache.invalidateAll(); ;
+        if (cache == null) {
+            return;
+        }
+        cache.invalidateAll();
+    }
+
+    /**
+     * 批量移除缓存
+     * @param keys 缓存key集合
+     */
+    public void invalidateAll(Iterable<String> keys) {
+        if (cache == null) {
+            return;
+        }
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * 移除指定前缀的所有缓存
+     * @param prefix key 前缀
+     */
+    public void invalidateByPrefix(String prefix) {
+        if (cache == null) {
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
     }
 
     /**
      * 获取所有缓存
-     * @return 所有缓存
+     * @return 所有未过期缓存的快照
      */
     public Map<String, Object> getAll() {
-        return cache.asMap();
+        if (cache == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> result = new HashMap<>();
+        cache.asMap().forEach((key, stored) -> {
+            Object value = unwrap(key, stored);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 按访问频率从高到低获取缓存项，用于保存本地缓存快照
+     * <p>
+     * 按容量或内存预算淘汰时使用淘汰策略统计的访问频率，否则按遍历顺序返回。已过期的缓存项不包括在内。
+     * </p>
+     * @param limit 最多返回的缓存项数
+     * @return key 与缓存值及剩余存活时间的映射，剩余存活时间同时考虑单独设置的过期时间与区域统一的过期策略，
+     * 为 -1 表示不过期
+     */
+    public Map<String, ValueWithTtl<Object>> getHottest(int limit) {
+        if (cache == null || limit <= 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> candidates = cache.policy().eviction()
+                .map(eviction -> eviction.hottest(limit))
+                .orElseGet(cache::asMap);
+        Map<String, ValueWithTtl<Object>> hottest = new LinkedHashMap<>();
+        long now = System.nanoTime();
+        for (Map.Entry<String, Object> entry : candidates.entrySet()) {
+            if (hottest.size() >= limit) {
+                break;
+            }
+            Object stored = entry.getValue();
+            Object value = stored;
+            long remaining = Math.min(remainingNanos(cache.policy().expireAfterWrite(), entry.getKey()),
+                    remainingNanos(cache.policy().expireAfterAccess(), entry.getKey()));
+            if (stored instanceof Expiring) {
+                value = ((Expiring) stored).value;
+                remaining = Math.min(remaining, ((Expiring) stored).deadline - now);
+            }
+            if (remaining <= 0) {
+                continue; // 已过期
+            }
+            long ttl = remaining == Long.MAX_VALUE ? -1 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+            hottest.put(entry.getKey(), new ValueWithTtl<>(value, ttl));
+        }
+        return hottest;
+    }
+
+    /**
+     * 按区域统一的过期策略计算缓存项的剩余存活时间 单位纳秒，未设置该策略时返回 Long.MAX_VALUE
+     */
+    private static long remainingNanos(Optional<Policy.FixedExpiration<String, Object>> expiration, String key) {
+        if (expiration.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        Policy.FixedExpiration<String, Object> policy = expiration.get();
+        OptionalLong age = policy.ageOf(key, TimeUnit.NANOSECONDS);
+        return age.isPresent() ? policy.getExpiresAfter(TimeUnit.NANOSECONDS) - age.getAsLong() : 0; // 缓存项已被移除时返回 0
     }
 
     /**
@@ -104,7 +329,218 @@ public class LocalCacheService {
      * @param map 缓存map
      */
     public void putAll(Map<String, Object> map) {
-        cache.putAll(map);
+        if (cache == null) {
+            return;
+        }
+        if (!isStaleEnabled()) {
+            cache.putAll(map);
+            return;
+        }
+        Map<String, Object> entries = new HashMap<>(map.size());
+        map.forEach((key, value) -> entries.put(key, withDeadline(value)));
+        cache.putAll(entries);
+    }
+
+    /**
+     * 获取命中率、加载耗时、淘汰次数等统计信息
+     * @return 统计信息，未启用时返回空统计
+     */
+    public CacheStats getStats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    /**
+     * 获取默认区域与所有命名区域的统计信息，用于分别评估各区域的容量
+     * @return 区域名称与统计信息的映射
+     */
+    public Map<String, CacheStats> getRegionStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put(name, getStats());
+        regions.forEach((regionName, region) -> stats.put(regionName, region.getStats()));
+        return stats;
+    }
+
+    /**
+     * 获取缓存项数量的估计值
+     * @return 缓存项数量
+     */
+    public long estimatedSize() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    /**
+     * 获取按内存预算淘汰时当前所有缓存项的估算字节数之和
+     * @return 估算字节数，未按内存预算淘汰时返回 0
+     */
+    public long getWeightedSize() {
+        if (cache == null) {
+            return 0;
+        }
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * 添加命名区域
+     * @param region 区域对应的本地缓存服务，以其 name 作为区域名称
+     */
+    public void addRegion(LocalCacheService region) {
+        regions.put(region.getName(), region);
+    }
+
+    /**
+     * 按名称获取区域
+     * @param name 区域名称
+     * @return 区域对应的本地缓存服务
+     */
+    public LocalCacheService region(String name) {
+        if (DEFAULT_REGION.equals(name)) {
+            return this;
+        }
+        LocalCacheService region = regions.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("Unknown local cache region: " + name);
+        }
+        return region;
+    }
+
+    /**
+     * 为缓存值附加单独的过期时间，用于 {@link #put(String, Function)} 的生成函数返回值
+     * @param value 缓存值
+     * @param ttl 过期时间，小于等于 0 时原样返回缓存值
+     * @param unit 时间单位
+     * @return 可以放入本地缓存的值
+     */
+    public static Object expiring(Object value, long ttl, TimeUnit unit) {
+        if (value == null || ttl <= 0) {
+            return value;
+        }
+        return new Expiring(value, System.nanoTime() + unit.toNanos(ttl));
+    }
+
+    /**
+     * 去掉过期时间包装，已过期时从缓存中移除并返回 null
+     */
+    private Object unwrap(String key, Object stored) {
+        if (!(stored instanceof Expiring)) {
+            return stored;
+        }
+        Expiring expiring = (Expiring) stored;
+        if (expiring.isExpired()) {
+            if (!expiring.isRetained(staleNanos())) {
+                cache.asMap().remove(key, stored); // 只移除这一个缓存项，期间写入的新值保留
+            }
+            return null;
+        }
+        return expiring.value;
+    }
+
+    /**
+     * @return 是否在逻辑过期后继续保留旧值
+     */
+    public boolean isStaleEnabled() {
+        return staleTtl > 0 && expireAfterWrite > 0;
+    }
+
+    private long staleNanos() {
+        return isStaleEnabled() ? timeUnit.toNanos(staleTtl) : 0;
+    }
+
+    /**
+     * 保留旧值时为缓存项附加 expireAfterWrite 对应的逻辑过期时间，已单独设置过期时间的缓存项取两者中较早的一个
+     */
+    private Object withDeadline(Object value) {
+        if (value == null || !isStaleEnabled()) {
+            return value;
+        }
+        long deadline = System.nanoTime() + timeUnit.toNanos(expireAfterWrite);
+        if (value instanceof Expiring) {
+            Expiring expiring = (Expiring) value;
+            return expiring.deadline - deadline <= 0 ? expiring : new Expiring(expiring.value, deadline);
+        }
+        return new Expiring(value, deadline);
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored instanceof Expiring ? ((Expiring) stored).value : stored;
+    }
+
+    private void onEviction(Object key, Object value, RemovalCause cause) {
+        EvictionListener listener = evictionListener;
+        if (listener == null || cause != RemovalCause.SIZE || value == null) {
+            return;
+        }
+        if (value instanceof Expiring && ((Expiring) value).isExpired()) {
+            return; // 已过期的数据不再降级
+        }
+        listener.onEviction((String) key, unwrap(value), remainingMillis(value));
+    }
+
+    /**
+     * 被淘汰缓存项的剩余存活时间 单位毫秒，0 表示不过期。
+     * 没有单独过期时间的缓存项淘汰后无法得知已存活的时间，按区域统一的过期时间计算
+     */
+    private long remainingMillis(Object value) {
+        if (value instanceof Expiring) {
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(((Expiring) value).deadline - System.nanoTime()));
+        }
+        if (expireAfterWrite > 0) {
+            return Math.max(1, timeUnit.toMillis(expireAfterWrite));
+        }
+        return expireAfterAccess > 0 ? Math.max(1, timeUnit.toMillis(expireAfterAccess)) : 0;
+    }
+
+    /**
+     * 缓存项因容量不足被淘汰时的回调
+     */
+    @FunctionalInterface
+    public interface EvictionListener {
+
+        /**
+         * @param key       缓存key
+         * @param value     缓存值
+         * @param ttlMillis 缓存项在本地缓存中的剩余存活时间 单位毫秒，0 表示不过期
+         */
+        void onEviction(String key, Object value, long ttlMillis);
+    }
+
+    /**
+     * 单独设置了过期时间的缓存项
+     */
+    private static final class Expiring {
+
+        private final Object value;
+        private final long deadline; // 过期时刻，System.nanoTime() 时间基准
+
+        private Expiring(Object value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - deadline >= 0;
+        }
+
+        private boolean isRetained(long staleNanos) {
+            return System.nanoTime() - deadline < staleNanos;
+        }
+    }
+
+    /**
+     * 将加载委托给当前设置的 cacheLoader，使加载器可以在缓存初始化之后再设置
+     */
+    private class DelegatingCacheLoader implements CacheLoader<String, Object> {
+
+        @Override
+        public Object load(String key) throws Exception {
+            CacheLoader<String, Object> loader = cacheLoader;
+            return loader == null ? null : withDeadline(loader.load(key));
+        }
+
+        @Override
+        public Object reload(String key, Object oldValue) throws Exception {
+            CacheLoader<String, Object> loader = cacheLoader;
+            return loader == null ? oldValue : withDeadline(loader.reload(key, unwrap(oldValue))); // 未设置加载器时保留旧值
+        }
     }
 
 }
@@ -0,0 +1,159 @@
+package io.github.rivon.mosu.cache.service;
+
+import io.github.rivon.mosu.cache.codec.CodecResolver;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.RLocalCachedMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地缓存 Map 服务
+ * <p>
+ * 基于 Redisson 的 RLocalCachedMap，Redis 中的 Hash 在每个节点保存一份字段级的本地副本，按字段读取时优先读本地副本，
+ * 未命中才访问 Redis。任一节点修改字段后由 Redis 主题推送失效或更新消息，其他节点据此清除或更新本地副本，
+ * 适合读多写少的配置、开关类数据。
+ * </p>
+ * <p>
+ * 每个 RLocalCachedMap 实例都会订阅一个主题，因此同名的 Map 只创建一次并缓存起来，通过 {@link #destroy(String)}
+ * 或 {@link #shutdown()} 释放。
+ * </p>
+ */
+public class LocalCachedMapService {
+
+    private final RedissionService redissionService;
+    private final LocalCachedMapOptions<Object, Object> options; // 本地副本的容量、淘汰、同步与重连策略
+    private final Map<String, RLocalCachedMap<Object, Object>> maps = new ConcurrentHashMap<>(); // 已创建的 Map 实例
+
+    /**
+     * 构造函数
+     *
+     * @param redissionService Redis 缓存服务，使用其 RedissonClient 与按前缀选择的编解码器
+     * @param options          本地副本配置
+     */
+    public LocalCachedMapService(RedissionService redissionService, LocalCachedMapOptions<Object, Object> options) {
+        this.redissionService = redissionService;
+        this.options = options;
+    }
+
+    /**
+     * 获取本地缓存 Map，同名的 Map 只创建一次
+     *
+     * @param key 缓存key
+     * @param <K> 字段的类型
+     * @param <V> 值的类型
+     * @return 本地缓存 Map
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> RLocalCachedMap<K, V> getMap(String key) {
+        return (RLocalCachedMap<K, V>) maps.computeIfAbsent(key, this::create);
+    }
+
+    /**
+     * 读取字段的值，本地副本命中时不访问 Redis
+     *
+     * @param key   缓存key
+     * @param field 字段
+     * @param <V>   值的类型
+     * @return 字段的值，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key, Object field) {
+        return (V) getMap(key).get(field);
+    }
+
+    /**
+     * 批量读取字段的值，本地副本未命中的字段通过一次 HMGET 读取
+     *
+     * @param key    缓存key
+     * @param fields 字段集合
+     * @param <K>    字段的类型
+     * @param <V>    值的类型
+     * @return 字段与值的映射，不存在的字段不包含在结果中
+     */
+    public <K, V> Map<K, V> getAll(String key, Set<K> fields) {
+        RLocalCachedMap<K, V> map = getMap(key);
+        return map.getAll(new HashSet<>(fields));
+    }
+
+    /**
+     * 写入字段的值，其他节点的本地副本按同步策略失效或更新
+     *
+     * @param key   缓存key
+     * @param field 字段
+     * @param value 值
+     */
+    public void put(String key, Object field, Object value) {
+        getMap(key).fastPut(field, value);
+    }
+
+    /**
+     * 批量写入字段的值
+     *
+     * @param key    缓存key
+     * @param values 字段与值的映射
+     */
+    public void putAll(String key, Map<?, ?> values) {
+        getMap(key).putAll(values);
+    }
+
+    /**
+     * 删除字段
+     *
+     * @param key    缓存key
+     * @param fields 字段
+     */
+    public void remove(String key, Object... fields) {
+        getMap(key).fastRemove(fields);
+    }
+
+    /**
+     * 将 Redis 中的全部字段加载到本地副本，用于启动时预热
+     *
+     * @param key 缓存key
+     */
+    public void preload(String key) {
+        getMap(key).preloadCache();
+    }
+
+    /**
+     * 获取本地副本中的字段数
+     *
+     * @param key 缓存key
+     * @return 字段数，Map 尚未创建时返回 0
+     */
+    public int getCachedSize(String key) {
+        RLocalCachedMap<Object, Object> map = maps.get(key);
+        return map == null ? 0 : map.getCachedMap().size();
+    }
+
+    /**
+     * 释放 Map 实例，取消订阅并丢弃本地副本，Redis 中的数据不受影响
+     *
+     * @param key 缓存key
+     */
+    public void destroy(String key) {
+        RLocalCachedMap<Object, Object> map = maps.remove(key);
+        if (map != null) {
+            map.destroy();
+        }
+    }
+
+    /**
+     * 释放所有 Map 实例，容器关闭时调用
+     */
+    public void shutdown() {
+        maps.keySet().forEach(this::destroy);
+    }
+
+    private RLocalCachedMap<Object, Object> create(String key) {
+        RedissonClient redissonClient = redissionService.getRedissonClient();
+        CodecResolver codecResolver = redissionService.getCodecResolver();
+        Codec codec = codecResolver == null ? null : codecResolver.resolve(key);
+        return codec == null ? redissonClient.getLocalCachedMap(key, options) : redissonClient.getLocalCachedMap(key, codec, options);
+    }
+}
@@ -0,0 +1,353 @@
+package io.github.rivon.mosu.cache.service;
+
+import io.github.rivon.mosu.cache.breaker.RedisCircuitBreaker;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * long 类型 key 的二级缓存服务
+ * <p>
+ * 本地缓存使用 {@link LongKeyCacheService}，本地缓存命中时整个读取过程不分配对象；未命中时才通过 {@link LongKeyEncoder}
+ * 生成 Redis 中的字符串 key，Redis 的读写、过期时间抖动、熔断降级与失效消息的处理方式与 {@link LocalCacheAndRedissonService} 相同，
+ * 两者写入 Redis 的数据可以互相读取。通常通过 {@link LocalCacheAndRedissonService#longKeyCache(LongKeyEncoder, LongKeyCacheService)}
+ * 创建，沿用所在区域的 Redis 配置，并共用区域名称接收失效消息；本节点中两者的写入与删除直接互相失效对方的本地缓存。
+ * </p>
+ * <p>
+ * 与 {@link LocalCacheAndRedissonService#get(String, java.util.function.Function)} 不同，本地缓存没有 compute 语义，
+ * 同一 JVM 内并发加载同一 key 时由 Redis 分布式锁串行化；不支持延迟写入、堆外缓存、空结果缓存与布隆过滤器。
+ * </p>
+ */
+public class LongKeyCacheAndRedissonService {
+
+    @Getter
+    private final String name;                          // 区域名称，用于匹配失效消息
+    @Getter
+    private final LongKeyCacheService localCache;       // 本地缓存
+    private final RedissionService redissionService;    // Redis 缓存服务
+    private final LongKeyEncoder keyEncoder;            // 本地 key 与 Redis key 之间的转换
+    private CacheSyncService cacheSyncService;          // 本地缓存失效同步服务，为 null 时不同步
+    @Setter(AccessLevel.PACKAGE)
+    private LocalCacheAndRedissonService owner;         // 创建本服务的字符串 key 二级缓存，为 null 时独立使用
+    @Setter
+    private boolean redisEnable = true;                 // 是否使用 Redis 作为二级缓存，关闭时只使用本地缓存
+    @Setter
+    private long redisTtl;                              // Redis 中数据的过期时间 单位秒，0 表示不过期
+    @Setter
+    private TtlPolicy ttlPolicy = new TtlPolicy();      // 过期时间抖动与本地缓存过期时间上限
+    @Setter
+    private RedisCircuitBreaker circuitBreaker;         // Redis 熔断器，为 null 时不熔断，Redis 读取异常直接抛出
+    @Setter
+    private long loadLockWaitTime = 3000;               // 等待加载锁的最长时间 单位毫秒
+    @Setter
+    private long loadLockLeaseTime = 10000;             // 加载锁的自动释放时间 单位毫秒
+    private final LongAdder l2HitCount = new LongAdder();   // 本地缓存未命中后 Redis 命中次数
+    private final LongAdder l2MissCount = new LongAdder();  // 本地缓存未命中后 Redis 也未命中次数
+
+    private static final String LOAD_LOCK_SUFFIX = ":load-lock"; // 加载锁 key 后缀，与 LocalCacheAndRedissonService 相同
+
+    /**
+     * 构造函数
+     *
+     * @param name             区域名称
+     * @param localCache       本地缓存
+     * @param redissionService Redis 缓存服务
+     * @param keyEncoder       本地 key 与 Redis key 之间的转换
+     */
+    public LongKeyCacheAndRedissonService(String name, LongKeyCacheService localCache, RedissionService redissionService,
+                                          LongKeyEncoder keyEncoder) {
+        this.name = name;
+        this.localCache = localCache;
+        this.redissionService = redissionService;
+        this.keyEncoder = keyEncoder;
+    }
+
+    /**
+     * 设置本地缓存失效同步服务，并订阅其他节点发布的失效消息
+     *
+     * @param cacheSyncService 本地缓存失效同步服务
+     */
+    public void setCacheSyncService(CacheSyncService cacheSyncService) {
+        this.cacheSyncService = cacheSyncService;
+        cacheSyncService.addListener(this::onInvalidation);
+    }
+
+    /**
+     * 获取缓存数据，本地缓存未命中时从 Redis 获取并回填本地缓存
+     *
+     * @param id 缓存的 key
+     * @return 缓存的值，如果缓存中没有，返回 null
+     */
+    public Object get(long id) {
+        Object value = localCache.get(id);
+        if (value != null || !redisEnable) {
+            return value;
+        }
+        return fetch(id);
+    }
+
+    /**
+     * 获取缓存数据，各层均未命中时在分布式锁保护下调用 loader 加载，并写入本地缓存与 Redis
+     *
+     * @param id     缓存的 key
+     * @param loader 加载函数，返回 null 表示数据不存在，不写入缓存
+     * @param <V>    缓存值的类型
+     * @return 缓存的值
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(long id, LongFunction<? extends V> loader) {
+        Object value = localCache.get(id);
+        if (value != null) {
+            return (V) value;
+        }
+        if (!redisEnable) {
+            V loaded = loader.apply(id);
+            localCache.put(id, loaded);
+            return loaded;
+        }
+        if (!allowRedis()) {
+            return (V) loadDegraded(id, loader);
+        }
+        ValueWithTtl<Object> redisValue;
+        try {
+            redisValue = readRedis(id);
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            return (V) loadDegraded(id, loader);
+        }
+        if (redisValue.getValue() != null) {
+            return (V) onRedisValue(id, redisValue);
+        }
+
+        String key = keyEncoder.encode(id);
+        String lockKey = key + LOAD_LOCK_SUFFIX;
+        boolean locked = redissionService.tryLock(lockKey, loadLockWaitTime, loadLockLeaseTime, TimeUnit.MILLISECONDS);
+        try {
+            // 获取锁后再次检查，其他节点或线程可能已经完成加载
+            redisValue = readRedis(id);
+            if (redisValue.getValue() != null) {
+                return (V) onRedisValue(id, redisValue);
+            }
+            V loaded = loader.apply(id);
+            if (loaded != null) {
+                long ttlMillis = ttlPolicy.apply(redisTtl, TimeUnit.SECONDS);
+                putLocal(id, loaded, ttlMillis);
+                setRedis(key, loaded, ttlMillis);
+                notifyOwner(key, true);
+                publishInvalidation(key);
+            }
+            return loaded;
+        } finally {
+            if (locked) {
+                redissionService.unlock(lockKey);
+            }
+        }
+    }
+
+    /**
+     * 将数据存入缓存，Redis 中的过期时间为 redisTtl 加上随机抖动
+     *
+     * @param id    缓存的 key
+     * @param value 缓存的值
+     */
+    public void put(long id, Object value) {
+        put(id, value, redisTtl, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 将数据存入缓存并指定过期时间，开启 capLocalTtl 时本地缓存使用同一个过期时间
+     *
+     * @param id    缓存的 key
+     * @param value 缓存的值
+     * @param ttl   过期时间，小于等于 0 表示不过期
+     * @param unit  时间单位
+     */
+    public void put(long id, Object value, long ttl, TimeUnit unit) {
+        long ttlMillis = ttlPolicy.apply(ttl, unit);
+        putLocal(id, value, ttlMillis);
+        String key = keyEncoder.encode(id);
+        notifyOwner(key, true);
+        if (!redisEnable) {
+            return;
+        }
+        setRedis(key, value, ttlMillis);
+        publishInvalidation(key);
+    }
+
+    /**
+     * 删除缓存，同时删除本地缓存与 Redis 中的数据，并通知其他节点失效本地缓存
+     *
+     * @param id 缓存的 key
+     */
+    public void delete(long id) {
+        localCache.invalidate(id);
+        String key = keyEncoder.encode(id);
+        notifyOwner(key, false);
+        if (!redisEnable) {
+            return;
+        }
+        redissionService.delete(key);
+        publishInvalidation(key);
+    }
+
+    /**
+     * @return 本地缓存未命中后 Redis 命中次数
+     */
+    public long getL2HitCount() {
+        return l2HitCount.sum();
+    }
+
+    /**
+     * @return 本地缓存未命中后 Redis 也未命中次数
+     */
+    public long getL2MissCount() {
+        return l2MissCount.sum();
+    }
+
+    /**
+     * 本地缓存未命中时从 Redis 读取，熔断或读取失败时返回本地缓存保留的旧值
+     */
+    private Object fetch(long id) {
+        if (!allowRedis()) {
+            return localCache.getStale(id);
+        }
+        ValueWithTtl<Object> redisValue;
+        try {
+            redisValue = readRedis(id);
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            return localCache.getStale(id);
+        }
+        if (redisValue.getValue() == null) {
+            return null;
+        }
+        return onRedisValue(id, redisValue);
+    }
+
+    /**
+     * 处理 Redis 中读到的值：统计命中，占位值按不存在处理，其他值回填本地缓存
+     */
+    private Object onRedisValue(long id, ValueWithTtl<Object> redisValue) {
+        Object value = redisValue.getValue();
+        if (LocalCacheAndRedissonService.NULL_VALUE.equals(value)) {
+            return null;
+        }
+        putLocal(id, value, redisValue.getTtl());
+        return value;
+    }
+
+    private ValueWithTtl<Object> readRedis(long id) {
+        String key = keyEncoder.encode(id);
+        long start = System.nanoTime();
+        ValueWithTtl<Object> redisValue;
+        try {
+            if (ttlPolicy.isCapLocalTtl()) {
+                redisValue = redissionService.getObjectWithTtl(key);
+            } else {
+                redisValue = new ValueWithTtl<>(redissionService.getObject(key), -1);
+            }
+        } catch (RuntimeException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onError(e);
+            }
+            throw e;
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+        }
+        (redisValue.getValue() != null ? l2HitCount : l2MissCount).increment();
+        return redisValue;
+    }
+
+    /**
+     * Redis 不可用时直接调用加载函数，结果只保存在本地缓存中，不写入 Redis 也不获取分布式锁
+     */
+    private Object loadDegraded(long id, LongFunction<?> loader) {
+        Object stale = localCache.getStale(id);
+        if (stale != null) {
+            return stale;
+        }
+        Object value = loader.apply(id);
+        localCache.put(id, value);
+        return value;
+    }
+
+    private boolean allowRedis() {
+        return circuitBreaker == null || circuitBreaker.allowRequest();
+    }
+
+    /**
+     * 存入本地缓存，ttlMillis 大于 0 且开启 capLocalTtl 时本地缓存项在该时间后过期
+     */
+    private void putLocal(long id, Object value, long ttlMillis) {
+        if (ttlPolicy.isCapLocalTtl() && ttlMillis > 0) {
+            localCache.put(id, value, ttlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            localCache.put(id, value);
+        }
+    }
+
+    private void setRedis(String key, Object value, long ttlMillis) {
+        if (ttlMillis > 0) {
+            redissionService.setWithExpire(key, value, ttlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            redissionService.setObject(key, value);
+        }
+    }
+
+    /**
+     * 失效本地缓存中 Redis key 对应的缓存项，不是本编码器生成的 key 时忽略
+     *
+     * @param key Redis 中的 key
+     */
+    void invalidateLocal(String key) {
+        if (keyEncoder.matches(key)) {
+            try {
+                localCache.invalidate(keyEncoder.decode(key));
+            } catch (NumberFormatException e) {
+                // 前缀相同但不是数值 ID 的 key，与本缓存无关
+            }
+        }
+    }
+
+    private void notifyOwner(String key, boolean written) {
+        if (owner != null) {
+            owner.onLongKeyChange(key, this, written);
+        }
+    }
+
+    private void publishInvalidation(String key) {
+        if (cacheSyncService != null) {
+            cacheSyncService.publish(name, key);
+        }
+    }
+
+    /**
+     * 处理其他节点发布的失效消息，只处理本编码器生成的 key
+     */
+    private void onInvalidation(CacheInvalidationMessage message) {
+        if (message.getRegion() != null && !message.getRegion().equals(name)) {
+            return;
+        }
+        if (message.isClearAll()) {
+            localCache.invalidateAll();
+            return;
+        }
+        List<String> keys = message.getKeys();
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            invalidateLocal(key);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package io.github.rivon.mosu.cache.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * long 类型 key 的本地缓存服务
+ * <p>
+ * 面向按数值 ID 缓存实体的场景：key 直接以 long 保存在开放寻址（线性探测）的原始类型数组中，读取不需要拼接字符串、
+ * 计算字符串哈希，也不需要装箱，每个缓存项也没有 String 与 Node 对象的开销，约占 key、过期时刻与值引用三个数组槽位。
+ * 存储按 key 的哈希分为多个分片，每个分片的槽位数是容量的两倍以上，装载率不超过 0.5。
+ * </p>
+ * <p>
+ * 读取使用 {@link StampedLock} 的乐观读，不加锁也不分配对象；写入与删除在分片的写锁内完成，删除采用后移法，不留墓碑。
+ * 分片写满时按 CLOCK 策略淘汰：读取会标记缓存项，时钟指针经过被标记的缓存项时清除标记并给予第二次机会，
+ * 遇到未被标记或已过期的缓存项则将其淘汰。新写入的缓存项没有标记，只被写入一次的数据会先被淘汰。
+ * </p>
+ * <p>
+ * 过期的缓存项读取时按未命中处理，在被淘汰或覆盖时才真正清除，之前仍可以通过 {@link #getStale(long)} 读取，
+ * 用于 Redis 不可用时降级返回旧值。
+ * </p>
+ */
+public class LongKeyCacheService {
+
+    private static final int DEFAULT_SHARDS = 16; // 默认分片数
+
+    private final Shard[] shards;        // 分片
+    private final int shardMask;         // 分片下标掩码
+    private final long expireAfterWrite; // 写入缓存后多久过期 单位纳秒，0 表示不过期
+
+    private final LongAdder hitCount = new LongAdder();      // 命中次数
+    private final LongAdder missCount = new LongAdder();     // 未命中次数
+    private final LongAdder evictionCount = new LongAdder(); // 因容量不足被淘汰的缓存项个数
+
+    /**
+     * 构造函数，使用默认分片数
+     *
+     * @param maximumSize      缓存最大容量
+     * @param expireAfterWrite 写入缓存后多久过期，0 表示不过期
+     * @param unit             时间单位
+     */
+    public LongKeyCacheService(int maximumSize, long expireAfterWrite, TimeUnit unit) {
+        this(maximumSize, expireAfterWrite, unit, DEFAULT_SHARDS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param maximumSize      缓存最大容量，平均分配到各分片
+     * @param expireAfterWrite 写入缓存后多久过期，0 表示不过期
+     * @param unit             时间单位
+     * @param shardCount       分片数，向上取整为 2 的幂，分片之间写入互不阻塞
+     */
+    public LongKeyCacheService(int maximumSize, long expireAfterWrite, TimeUnit unit, int shardCount) {
+        int shardSize = tableSizeFor(Math.max(1, Math.min(shardCount, maximumSize)));
+        this.shards = new Shard[shardSize];
+        this.shardMask = shardSize - 1;
+        this.expireAfterWrite = unit.toNanos(expireAfterWrite);
+        int shardMaximumSize = Math.max(1, (maximumSize + shardSize - 1) / shardSize);
+        for (int i = 0; i < shardSize; i++) {
+            shards[i] = new Shard(shardMaximumSize);
+        }
+    }
+
+    /**
+     * 获取缓存，命中时不加锁也不分配对象
+     *
+     * @param key 缓存key
+     * @return 缓存值，未命中或已过期时返回 null
+     */
+    public Object get(long key) {
+        long hash = hash(key);
+        Object value = shard(hash).get(key, (int) hash, System.nanoTime(), false);
+        (value != null ? hitCount : missCount).increment();
+        return value;
+    }
+
+    /**
+     * 获取缓存，已过期但尚未被淘汰的缓存项同样返回，不计入命中率统计
+     *
+     * @param key 缓存key
+     * @return 缓存值，不存在时返回 null
+     */
+    public Object getStale(long key) {
+        long hash = hash(key);
+        return shard(hash).get(key, (int) hash, System.nanoTime(), true);
+    }
+
+    /**
+     * 放入缓存，使用统一的过期时间
+     *
+     * @param key   缓存key
+     * @param value 缓存值，为 null 时移除该 key
+     */
+    public void put(long key, Object value) {
+        put(key, value, expireAfterWrite, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 放入缓存并指定过期时间，例如不超过该 key 在 Redis 中的剩余过期时间
+     *
+     * @param key   缓存key
+     * @param value 缓存值，为 null 时移除该 key
+     * @param ttl   过期时间，小于等于 0 时使用统一的过期时间
+     * @param unit  时间单位
+     */
+    public void put(long key, Object value, long ttl, TimeUnit unit) {
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        long ttlNanos = ttl > 0 ? unit.toNanos(ttl) : expireAfterWrite;
+        if (expireAfterWrite > 0) {
+            ttlNanos = Math.min(ttlNanos, expireAfterWrite);
+        }
+        long deadline = 0;
+        if (ttlNanos > 0) {
+            deadline = System.nanoTime() + ttlNanos;
+            if (deadline == 0) {
+                deadline = 1; // 0 表示不过期
+            }
+        }
+        long hash = hash(key);
+        evictionCount.add(shard(hash).put(key, (int) hash, value, deadline));
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存key
+     */
+    public void invalidate(long key) {
+        long hash = hash(key);
+        shard(hash).remove(key, (int) hash);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * @return 缓存项个数，包括已过期但尚未清除的缓存项
+     */
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return 因容量不足被淘汰的缓存项个数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private Shard shard(long hash) {
+        return shards[(int) (hash >>> 32) & shardMask];
+    }
+
+    /**
+     * MurmurHash3 的 fmix64，连续或等间隔的 ID 也能均匀分布到分片与槽位
+     */
+    private static long hash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableSizeFor(int size) {
+        if (size <= 1) {
+            return 1;
+        }
+        return Math.min(Integer.highestOneBit(size - 1) << 1, 1 << 30);
+    }
+
+    /**
+     * 分片，一张线性探测的哈希表。values[i] 为 null 表示槽位空闲，数组长度固定，不扩容
+     */
+    private static final class Shard {
+
+        private final StampedLock lock = new StampedLock();
+        private final int maximumSize; // 分片容量
+        private final int mask;        // 槽位下标掩码
+        private final long[] keys;
+        private final Object[] values;
+        private final long[] deadlines;  // 过期时刻，System.nanoTime() 时间基准，0 表示不过期
+        private final byte[] referenced; // CLOCK 访问标记，读取时设置，无需加锁
+        private volatile int size;       // 缓存项个数，只在写锁内修改
+        private int hand;                // 时钟指针
+
+        Shard(int maximumSize) {
+            this.maximumSize = maximumSize;
+            int capacity = tableSizeFor(maximumSize * 2);
+            this.mask = capacity - 1;
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.deadlines = new long[capacity];
+            this.referenced = new byte[capacity];
+        }
+
+        Object get(long key, int hash, long now, boolean stale) {
+            long stamp = lock.tryOptimisticRead();
+            int index = find(key, hash);
+            Object value = index >= 0 ? values[index] : null;
+            long deadline = index >= 0 ? deadlines[index] : 0;
+            if (!lock.validate(stamp)) {
+                // 读取期间有并发写入，退回读锁重新读取
+                stamp = lock.readLock();
+                try {
+                    index = find(key, hash);
+                    value = index >= 0 ? values[index] : null;
+                    deadline = index >= 0 ? deadlines[index] : 0;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            if (value == null || !stale && deadline != 0 && now - deadline >= 0) {
+                return null;
+            }
+            referenced[index] = 1; // 标记可能落到并发移动后的其他缓存项上，只影响淘汰顺序
+            return value;
+        }
+
+        /**
+         * @return 为腾出空间淘汰的缓存项个数
+         */
+        int put(long key, int hash, Object value, long deadline) {
+            long stamp = lock.writeLock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0) {
+                    values[index] = value;
+                    deadlines[index] = deadline;
+                    return 0;
+                }
+                int evicted = 0;
+                if (size >= maximumSize) {
+                    evict();
+                    evicted = 1;
+                }
+                index = hash & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = value;
+                deadlines[index] = deadline;
+                referenced[index] = 0;
+                size++;
+                return evicted;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0) {
+                    delete(index);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                Arrays.fill(values, null);
+                Arrays.fill(keys, 0);
+                Arrays.fill(deadlines, 0);
+                Arrays.fill(referenced, (byte) 0);
+                size = 0;
+                hand = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 查找 key 所在的槽位，乐观读期间数组可能被并发修改，最多探测一轮避免死循环
+         */
+        private int find(long key, int hash) {
+            int index = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values[index];
+                if (value == null) {
+                    return -1;
+                }
+                if (keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * 推进时钟指针淘汰一个缓存项：已过期或未被标记的直接淘汰，被标记的清除标记后跳过。
+         * 最多转两圈，第一圈清除的标记在第二圈一定不存在
+         */
+        private void evict() {
+            long now = System.nanoTime();
+            while (true) {
+                int index = hand;
+                if (values[index] != null) {
+                    long deadline = deadlines[index];
+                    boolean expired = deadline != 0 && now - deadline >= 0;
+                    if (expired || referenced[index] == 0) {
+                        delete(index); // 后移的缓存项会落到当前位置，指针不前进
+                        return;
+                    }
+                    referenced[index] = 0;
+                }
+                hand = (index + 1) & mask;
+            }
+        }
+
+        /**
+         * 后移法删除：将后续探测链上可以前移的缓存项移入空位，保证查找遇到空槽即可停止
+         */
+        private void delete(int index) {
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                int home = (int) hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    deadlines[hole] = deadlines[next];
+                    referenced[hole] = referenced[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = 0;
+            values[hole] = null;
+            deadlines[hole] = 0;
+            referenced[hole] = 0;
+            size--;
+        }
+    }
+}
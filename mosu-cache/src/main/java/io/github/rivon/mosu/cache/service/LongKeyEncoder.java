@@ -0,0 +1,69 @@
+package io.github.rivon.mosu.cache.service;
+
+/**
+ * long 类型 key 与 Redis 中字符串 key 之间的转换
+ * <p>
+ * 本地缓存直接使用 long 作为 key，只有访问 Redis 或发布失效消息时才转换为字符串；
+ * 收到其他节点的失效消息时再转换回 long，不属于本编码器的 key 返回 false 并忽略。
+ * </p>
+ */
+public interface LongKeyEncoder {
+
+    /**
+     * 转换为 Redis 中的 key
+     *
+     * @param id 本地缓存的 key
+     * @return Redis 中的 key
+     */
+    String encode(long id);
+
+    /**
+     * 判断 Redis 中的 key 是否由本编码器生成
+     *
+     * @param key Redis 中的 key
+     * @return 是则返回 true，之后可以调用 {@link #decode(String)}
+     */
+    boolean matches(String key);
+
+    /**
+     * 转换回本地缓存的 key
+     *
+     * @param key {@link #matches(String)} 返回 true 的 Redis key
+     * @return 本地缓存的 key
+     */
+    long decode(String key);
+
+    /**
+     * 按 prefix + id 拼接的编码器，例如前缀 "user:" 时 ID 1001 对应 "user:1001"
+     *
+     * @param prefix key 前缀
+     * @return 编码器
+     */
+    static LongKeyEncoder prefix(String prefix) {
+        return new LongKeyEncoder() {
+            @Override
+            public String encode(long id) {
+                return prefix + id;
+            }
+
+            @Override
+            public boolean matches(String key) {
+                if (!key.startsWith(prefix) || key.length() == prefix.length()) {
+                    return false;
+                }
+                for (int i = prefix.length(); i < key.length(); i++) {
+                    char c = key.charAt(i);
+                    if ((c < '0' || c > '9') && !(c == '-' && i == prefix.length())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public long decode(String key) {
+                return Long.parseLong(key, prefix.length(), key.length(), 10);
+            }
+        };
+    }
+}
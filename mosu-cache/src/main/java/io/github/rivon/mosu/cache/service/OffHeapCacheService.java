@@ -0,0 +1,503 @@
+package io.github.rivon.mosu.cache.service;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 堆外缓存服务
+ * <p>
+ * 位于本地缓存与 Redis 之间的一层缓存，缓存值经编解码器序列化后存放在直接内存中，不占用堆内存，也不增加 GC 压力。
+ * 存储按 key 的哈希分为多个分片，每个分片由若干固定大小的段组成，写入时追加到当前段的末尾，覆盖和删除只更新索引。
+ * 没有空闲段时按 CLOCK 策略淘汰整段：读取会标记所在段，时钟指针经过被标记的段时清除标记并给予第二次机会，
+ * 遇到未被标记的段则丢弃其中的全部缓存项并重新使用。
+ * </p>
+ * <p>
+ * 段在首次使用时才分配，占用的直接内存不超过 capacity，需要保证 -XX:MaxDirectMemorySize 足够。
+ * 索引（key 与位置）保存在堆上，每个缓存项约占几十字节；超过段大小的值不会被缓存。
+ * </p>
+ */
+@Slf4j
+public class OffHeapCacheService {
+
+    private final Codec codec;          // 值的编解码器
+    private final int segmentSize;      // 段大小 单位字节
+    private final Shard[] shards;       // 分片
+    @Setter
+    private long ttl;                   // 缓存项的存活时间 单位毫秒，0 表示不过期
+
+    private final LongAdder hitCount = new LongAdder();        // 命中次数
+    private final LongAdder missCount = new LongAdder();       // 未命中次数
+    private final LongAdder putCount = new LongAdder();        // 写入次数
+    private final LongAdder rejectedCount = new LongAdder();   // 超过段大小或无法序列化而未写入的次数
+    private final LongAdder evictionCount = new LongAdder();   // 随段淘汰的缓存项个数
+
+    /**
+     * 构造函数
+     *
+     * @param capacity    直接内存预算 单位字节
+     * @param segmentSize 段大小 单位字节，同时也是单个值的大小上限
+     * @param shardCount  分片数，分片之间读写互不阻塞
+     * @param codec       值的编解码器
+     */
+    public OffHeapCacheService(long capacity, int segmentSize, int shardCount, Codec codec) {
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        int segmentsPerShard = (int) Math.max(2, capacity / shardCount / segmentSize);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(segmentsPerShard);
+        }
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 缓存key
+     * @return 缓存值，未命中或已过期时返回 null
+     */
+    public Object get(String key) {
+        ValueWithTtl<Object> entry = getWithTtl(key);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    /**
+     * 获取缓存及其剩余存活时间，用于提升回本地缓存时保留原有的过期时间
+     *
+     * @param key 缓存key
+     * @return 缓存值及剩余存活时间（单位毫秒，-1 表示不过期），未命中或已过期时返回 null
+     */
+    public ValueWithTtl<Object> getWithTtl(String key) {
+        Entry entry = shard(key).read(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        Object value = decode(key, entry.bytes);
+        if (value == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        long ttl = entry.expireAt > 0 ? Math.max(1, entry.expireAt - System.currentTimeMillis()) : -1;
+        return new ValueWithTtl<>(value, ttl);
+    }
+
+    /**
+     * 批量获取缓存
+     *
+     * @param keys 缓存key集合
+     * @return 命中的 key 与缓存值的映射
+     */
+    public Map<String, Object> getAllPresent(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>();
+        for (String key : keys) {
+            Object value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 放入缓存，值序列化后超过段大小时忽略
+     *
+     * @param key   缓存key
+     * @param value 缓存值
+     */
+    public void put(String key, Object value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * 放入缓存并指定存活时间，例如本地缓存淘汰的缓存项在本地缓存中的剩余存活时间，值序列化后超过段大小时忽略
+     *
+     * @param key       缓存key
+     * @param value     缓存值
+     * @param ttlMillis 存活时间 单位毫秒，设置了 ttl 时取两者中较短的一个，小于等于 0 时使用 ttl
+     */
+    public void put(String key, Object value, long ttlMillis) {
+        if (value == null) {
+            return;
+        }
+        byte[] bytes = encode(value);
+        if (bytes == null || bytes.length > segmentSize) {
+            rejectedCount.increment();
+            shard(key).remove(key); // 旧值已过时，不能继续保留
+            return;
+        }
+        long entryTtl = ttlMillis > 0 && ttl > 0 ? Math.min(ttlMillis, ttl) : Math.max(ttlMillis, ttl);
+        long expireAt = entryTtl > 0 ? System.currentTimeMillis() + entryTtl : 0;
+        shard(key).write(key, bytes, expireAt);
+        putCount.increment();
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存key
+     */
+    public void invalidate(String key) {
+        shard(key).remove(key);
+    }
+
+    /**
+     * 批量移除缓存
+     *
+     * @param keys 缓存key集合
+     */
+    public void invalidateAll(Iterable<String> keys) {
+        for (String key : keys) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 移除指定前缀的所有缓存
+     *
+     * @param prefix key 前缀
+     */
+    public void invalidateByPrefix(String prefix) {
+        for (Shard shard : shards) {
+            shard.removeByPrefix(prefix);
+        }
+    }
+
+    /**
+     * 移除所有缓存，已分配的段保留复用
+     */
+    public void invalidateAll() {
+        for (Shard shard : shards) {
+            shard.clear(false);
+        }
+    }
+
+    /**
+     * 移除所有缓存并释放所有段，直接内存在段对象被回收后归还，容器关闭时调用
+     */
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.clear(true);
+        }
+    }
+
+    /**
+     * @return 缓存项数量
+     */
+    public long estimatedSize() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return 有效缓存项占用的字节数，不包括被覆盖或删除后尚未回收的空间
+     */
+    public long getLiveBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            bytes += shard.liveBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return 已分配的直接内存字节数
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            bytes += (long) shard.allocatedSegments * segmentSize;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return 直接内存预算 单位字节
+     */
+    public long getCapacity() {
+        return (long) shards.length * shards[0].segments.length * segmentSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getPutCount() {
+        return putCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private Shard shard(String key) {
+        int hash = key.hashCode();
+        return shards[((hash ^ (hash >>> 16)) & 0x7fffffff) % shards.length];
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            ByteBuf buf = codec.getValueEncoder().encode(value);
+            try {
+                byte[] bytes = new byte[buf.readableBytes()];
+                buf.readBytes(bytes);
+                return bytes;
+            } finally {
+                buf.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to encode off-heap cache value of type {}", value.getClass().getName(), e);
+            return null;
+        }
+    }
+
+    private Object decode(String key, byte[] bytes) {
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+        try {
+            return codec.getValueDecoder().decode(buf, new State());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to decode off-heap cache value of key {}", key, e);
+            invalidate(key);
+            return null;
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * 缓存项在段中的位置
+     */
+    private static final class Location {
+        final int segment;
+        final int offset;
+        final int length;
+        final long expireAt; // 过期时间戳 单位毫秒，0 表示不过期
+
+        Location(int segment, int offset, int length, long expireAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 读取到的缓存项字节与过期时间戳
+     */
+    private static final class Entry {
+        final byte[] bytes;
+        final long expireAt; // 过期时间戳 单位毫秒，0 表示不过期
+
+        Entry(byte[] bytes, long expireAt) {
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 一段连续的直接内存，写入只追加
+     */
+    private static final class Segment {
+        ByteBuffer buffer;                          // 首次使用时分配
+        int position;                               // 下一次写入的位置
+        volatile boolean referenced;                // CLOCK 访问标记
+        final List<String> keys = new ArrayList<>(); // 写入过该段的 key，淘汰时据此清理索引
+    }
+
+    /**
+     * 分片，读取共享读锁，写入与淘汰持有写锁
+     */
+    private final class Shard {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Location> index = new HashMap<>();
+        private final Segment[] segments;
+        private int active = -1;        // 当前写入的段
+        private int clockHand;          // CLOCK 指针
+        private int allocatedSegments;  // 已分配的段数
+        private volatile long liveBytes;
+
+        Shard(int segmentCount) {
+            segments = new Segment[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = new Segment();
+            }
+        }
+
+        Entry read(String key) {
+            lock.readLock().lock();
+            try {
+                Location location = index.get(key);
+                if (location == null) {
+                    return null;
+                }
+                if (location.expireAt > 0 && location.expireAt < System.currentTimeMillis()) {
+                    return null; // 过期的缓存项在段被淘汰时清理
+                }
+                Segment segment = segments[location.segment];
+                segment.referenced = true;
+                byte[] bytes = new byte[location.length];
+                segment.buffer.get(location.offset, bytes);
+                return new Entry(bytes, location.expireAt);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void write(String key, byte[] bytes, long expireAt) {
+            lock.writeLock().lock();
+            try {
+                int segmentIndex = segmentFor(bytes.length);
+                Segment segment = segments[segmentIndex];
+                int offset = segment.position;
+                segment.buffer.put(offset, bytes);
+                segment.position += bytes.length;
+                segment.keys.add(key);
+                Location previous = index.put(key, new Location(segmentIndex, offset, bytes.length, expireAt));
+                liveBytes += bytes.length - (previous == null ? 0 : previous.length);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String key) {
+            lock.writeLock().lock();
+            try {
+                Location previous = index.remove(key);
+                if (previous != null) {
+                    liveBytes -= previous.length;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void removeByPrefix(String prefix) {
+            lock.writeLock().lock();
+            try {
+                index.entrySet().removeIf(entry -> {
+                    if (entry.getKey().startsWith(prefix)) {
+                        liveBytes -= entry.getValue().length;
+                        return true;
+                    }
+                    return false;
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void clear(boolean release) {
+            lock.writeLock().lock();
+            try {
+                index.clear();
+                for (Segment segment : segments) {
+                    segment.position = 0;
+                    segment.keys.clear();
+                    segment.referenced = false;
+                    if (release) {
+                        segment.buffer = null;
+                    }
+                }
+                if (release) {
+                    allocatedSegments = 0;
+                }
+                active = -1;
+                liveBytes = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return index.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 返回可以写入 length 字节的段，当前段空间不足时切换到空闲段，没有空闲段时按 CLOCK 淘汰一段
+         */
+        private int segmentFor(int length) {
+            if (active >= 0 && segmentSize - segments[active].position >= length) {
+                return active;
+            }
+            int victim = nextVictim();
+            Segment segment = segments[victim];
+            evict(victim);
+            if (segment.buffer == null) {
+                segment.buffer = ByteBuffer.allocateDirect(segmentSize);
+                allocatedSegments++;
+            }
+            segment.referenced = true; // 新段获得一次机会，避免刚写入就被淘汰
+            active = victim;
+            return victim;
+        }
+
+        private int nextVictim() {
+            // 优先使用空段，其次淘汰第一个未被访问过的段，最多扫描两圈
+            for (int i = 0; i < segments.length; i++) {
+                if (i != active && segments[i].position == 0) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < segments.length * 2; i++) {
+                int candidate = clockHand;
+                clockHand = (clockHand + 1) % segments.length;
+                if (candidate == active) {
+                    continue;
+                }
+                Segment segment = segments[candidate];
+                if (!segment.referenced) {
+                    return candidate;
+                }
+                segment.referenced = false;
+            }
+            return (active + 1) % segments.length;
+        }
+
+        private void evict(int segmentIndex) {
+            Segment segment = segments[segmentIndex];
+            int evicted = 0;
+            for (String key : segment.keys) {
+                Location location = index.get(key);
+                if (location != null && location.segment == segmentIndex) {
+                    index.remove(key); // 只清理仍指向该段的索引，已被覆盖写入其他段的保留
+                    liveBytes -= location.length;
+                    evicted++;
+                }
+            }
+            evictionCount.add(evicted);
+            segment.keys.clear();
+            segment.position = 0;
+        }
+    }
+}
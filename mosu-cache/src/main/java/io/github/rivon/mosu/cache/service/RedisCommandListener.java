@@ -0,0 +1,21 @@
+package io.github.rivon.mosu.cache.service;
+
+/**
+ * Redis 命令耗时监听器
+ * <p>
+ * {@link RedissionService} 每执行完一条命令（批量命令按一次计）调用一次，用于记录各类操作的延迟分布。
+ * 在命令线程或 Redisson 回调线程中同步调用，实现需要足够轻量。
+ * </p>
+ */
+@FunctionalInterface
+public interface RedisCommandListener {
+
+    /**
+     * 命令执行完成
+     *
+     * @param operation 操作类型，见 RedissionService 中的 OP_* 常量
+     * @param nanos     耗时 单位纳秒
+     * @param success   是否执行成功
+     */
+    void onCommand(String operation, long nanos, boolean success);
+}
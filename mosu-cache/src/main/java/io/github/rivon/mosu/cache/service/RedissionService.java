@@ -1,19 +1,67 @@
 package io.github.rivon.mosu.cache.service;
 
 
+import io.github.rivon.mosu.cache.codec.CodecResolver;
+import io.github.rivon.mosu.cache.hotkey.HotKeyDetector;
 import lombok.Data;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RBuckets;
+import org.redisson.api.RFuture;
+import org.redisson.api.RKeys;
+import org.redisson.api.RList;
+import org.redisson.api.RListAsync;
 import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RSet;
+import org.redisson.api.RSetAsync;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.connection.CRC16;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Redission服务
+ * <p>
+ * 配置了 {@link HotKeyDetector} 时，对象类型缓存的读取会被采样统计，热点 key 的读取结果可以提升到短期本地缓存，
+ * 减轻热点所在 Redis 分片的压力；本服务的写入与删除会清除对应的提升数据。
+ * </p>
+ * <p>
+ * 大集合使用 streamList/streamSet/streamMap 分页读取：List 按 LRANGE 分段读取，Set 与 Map 使用 SSCAN/HSCAN 游标迭代，
+ * 每次网络往返只读取一页，内存占用与单条命令的耗时都与页大小成正比，而不是与集合大小成正比。
+ * </p>
+ * <p>
+ * 写入集合时按 chunkSize 拆分为多条命令以管道方式发送，避免单条命令过大阻塞 Redis。replaceList/replaceSet/replaceMap
+ * 先将新数据写入同一槽位的临时 key，全部写入成功后再通过 RENAME 原子地替换旧数据，读取方不会看到写入一半的集合。
+ * </p>
  *
  * @author allen
  */
@@ -21,7 +69,33 @@ import java.util.stream.Collectors;
 public class RedissionService {
 
     private RedissonClient redissonClient;
+    private CodecResolver codecResolver; // 按 key 前缀选择编解码器，为 null 时全部使用 RedissonClient 的默认编解码器
+    private RedisCommandListener commandListener; // Redis 命令耗时监听器，为 null 时不记录
+    private HotKeyDetector hotKeyDetector; // 热点 key 探测器，为 null 时不探测
+    private BatchOptions batchOptions = BatchOptions.defaults(); // 批量写入使用的管道选项
+    private BatchOptions readBatchOptions = BatchOptions.defaults(); // 批量读取使用的管道选项，不能设置 skipResult
+    private int pageSize = 1000; // 流式读取集合时每次网络往返读取的元素数
+    private int chunkSize = 1000; // 批量写入集合时每条命令携带的元素数
     private static final long DEFAULT_GETLOCK_TIMEOUT = 5; // 默认获取锁的超时时间, 单位秒
+    private static final long TEMP_KEY_TTL = 3600; // 替换集合时临时 key 的过期时间，写入中途失败或进程退出时自动清理 单位秒
+    private static final int SLOT_COUNT = 16384; // Redis 集群的槽位数
+    private static final int MAX_TAG_SEARCH = 1 << 22; // 查找相同槽位的 hash tag 时最多尝试的次数
+
+    // 命令耗时记录的操作类型
+    public static final String OP_GET = "get";
+    public static final String OP_SET = "set";
+    public static final String OP_MGET = "mget";
+    public static final String OP_MSET = "mset";
+    public static final String OP_DELETE = "delete";
+    public static final String OP_LIST_READ = "list-read";
+    public static final String OP_LIST_WRITE = "list-write";
+    public static final String OP_SET_READ = "set-read";
+    public static final String OP_SET_WRITE = "set-write";
+    public static final String OP_MAP_READ = "map-read";
+    public static final String OP_MAP_WRITE = "map-write";
+    public static final String OP_LOCK = "lock";
+    public static final String OP_UNLOCK = "unlock";
+    public static final String OP_GET_TTL = "get-ttl";
 
 
     /**
@@ -30,7 +104,8 @@ public class RedissionService {
      * @param value 缓存值
      */
     public void setString(String key, String value) {
-        redissonClient.getBucket(key).set(value);
+        invalidateHotKey(key);
+        timedRun(OP_SET, () -> bucket(key).set(value));
     }
 
     /**
@@ -39,7 +114,7 @@ public class RedissionService {
      * @return 缓存值
      */
     public String getString(String key) {
-        return (String) redissonClient.getBucket(key).get();
+        return readBucket(key);
     }
 
     /**
@@ -49,7 +124,8 @@ public class RedissionService {
      * @param <T> 缓存值的类型
      */
     public <T> void setObject(String key, T value) {
-        redissonClient.getBucket(key).set(value);
+        invalidateHotKey(key);
+        timedRun(OP_SET, () -> bucket(key).set(value));
     }
 
     /**
@@ -58,9 +134,74 @@ public class RedissionService {
      * @param <T> 缓存值的类型
      * @return 缓存值
      */
-    @SuppressWarnings("unchecked")
     public <T> T getObject(String key) {
-        return (T) redissonClient.getBucket(key).get();
+        return readBucket(key);
+    }
+
+    /**
+     * 批量获取对象类型缓存
+     * <p>
+     * 通过 MGET 一次网络往返获取所有 key，集群模式下按槽位分组后并行发送
+     * </p>
+     * @param keys 缓存key集合
+     * @param <T> 缓存值的类型
+     * @return key 与缓存值的映射，不存在的 key 不包含在结果中
+     */
+    public <T> Map<String, T> getObjects(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (hotKeyDetector != null) {
+            return getObjectsWithHotKeys(keys);
+        }
+        return mget(keys);
+    }
+
+    private <T> Map<String, T> mget(Collection<String> keys) {
+        return timed(OP_MGET, () -> {
+            if (codecResolver == null || codecResolver.isEmpty()) {
+                return redissonClient.getBuckets().get(keys.toArray(new String[0]));
+            }
+
+            // 存在前缀编解码器时，按编解码器分组后分别获取
+            Map<String, T> result = new HashMap<>();
+            groupByCodec(keys).forEach((codec, groupKeys) -> result.putAll(buckets(codec).get(groupKeys.toArray(new String[0]))));
+            return result;
+        });
+    }
+
+    /**
+     * 批量设置对象类型缓存
+     * <p>
+     * 所有写入命令放入同一个 RBatch 中以管道方式一次发送
+     * </p>
+     * @param map key 与缓存值的映射
+     * @param <T> 缓存值的类型
+     */
+    public <T> void setObjects(Map<String, T> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        map.keySet().forEach(this::invalidateHotKey);
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        map.forEach((key, value) -> batchBucket(batch, key).setAsync(value));
+        timedRun(OP_MSET, batch::execute);
+    }
+
+    /**
+     * 批量设置对象类型缓存并设置过期时间
+     * @param map key 与缓存值的映射
+     * @param expireTime 过期时间, 单位秒
+     * @param <T> 缓存值的类型
+     */
+    public <T> void setObjects(Map<String, T> map, long expireTime) {
+        if (map.isEmpty()) {
+            return;
+        }
+        map.keySet().forEach(this::invalidateHotKey);
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        map.forEach((key, value) -> batchBucket(batch, key).setAsync(value, expireTime, TimeUnit.SECONDS));
+        timedRun(OP_MSET, batch::execute);
     }
 
     /**
@@ -70,16 +211,25 @@ public class RedissionService {
      * @param <T> 缓存值的类型
      */
     public <T> void setList(String key, List<T> list) {
-        redissonClient.getList(key).addAll(list);
+        if (list.size() <= chunkSize) {
+            timedRun(OP_LIST_WRITE, () -> list(key).addAll(list));
+            return;
+        }
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        writeList(batch, key, key, list);
+        timedRun(OP_LIST_WRITE, batch::execute);
     }
 
     /**
      * 获取 List 类型缓存
+     * <p>
+     * 一次读取全部元素，大集合请使用 {@link #streamList} 分页读取
+     * </p>
      * @param key 缓存key
      * @return 缓存值
      */
     public <T> List<T> getList(String key, Class<T> clazz) {
-        List<Object> rawList = redissonClient.getList(key).readAll();
+        List<Object> rawList = timed(OP_LIST_READ, () -> list(key).readAll());
         return rawList.stream()
                 .map(clazz::cast)  // 显式转换每个元素
                 .collect(Collectors.toList());
@@ -92,7 +242,13 @@ public class RedissionService {
      * @param <T> 缓存值的类型
      */
     public <T> void setSet(String key, Set<T> set) {
-        redissonClient.getSet(key).addAll(set);
+        if (set.size() <= chunkSize) {
+            timedRun(OP_SET_WRITE, () -> set(key).addAll(set));
+            return;
+        }
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        writeSet(batch, key, key, set);
+        timedRun(OP_SET_WRITE, batch::execute);
     }
 
     /**
@@ -101,7 +257,7 @@ public class RedissionService {
      * @return 缓存值
      */
     public <T> Set<T> getSet(String key) {
-        return redissonClient.getSet(key);
+        return set(key);
     }
 
     /**
@@ -112,11 +268,94 @@ public class RedissionService {
      * @param <V> 缓存值的类型
      */
     public <K, V> void setMap(String key, Map<K, V> map) {
-        redissonClient.getMap(key).putAll(map);
+        if (map.size() <= chunkSize) {
+            timedRun(OP_MAP_WRITE, () -> map(key).putAll(map));
+            return;
+        }
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        writeMap(batch, key, key, map);
+        timedRun(OP_MAP_WRITE, batch::execute);
+    }
+
+    /**
+     * 替换 List 类型缓存，不过期
+     *
+     * @param key  缓存key
+     * @param list 新的缓存值
+     * @param <T>  元素的类型
+     */
+    public <T> void replaceList(String key, List<T> list) {
+        replaceList(key, list, 0);
+    }
+
+    /**
+     * 替换 List 类型缓存
+     * <p>
+     * 新数据分块写入临时 key 后 RENAME 为目标 key，替换前读取方看到的是完整的旧数据，替换后是完整的新数据
+     * </p>
+     *
+     * @param key        缓存key
+     * @param list       新的缓存值，为空时删除缓存
+     * @param expireTime 过期时间，0 表示不过期 单位秒
+     * @param <T>        元素的类型
+     */
+    public <T> void replaceList(String key, List<T> list, long expireTime) {
+        replace(OP_LIST_WRITE, key, list.size(), expireTime, (batch, tempKey) -> writeList(batch, key, tempKey, list));
+    }
+
+    /**
+     * 替换 Set 类型缓存，不过期
+     *
+     * @param key 缓存key
+     * @param set 新的缓存值
+     * @param <T> 元素的类型
+     */
+    public <T> void replaceSet(String key, Set<T> set) {
+        replaceSet(key, set, 0);
+    }
+
+    /**
+     * 替换 Set 类型缓存，原子性与 {@link #replaceList(String, List, long)} 相同
+     *
+     * @param key        缓存key
+     * @param set        新的缓存值，为空时删除缓存
+     * @param expireTime 过期时间，0 表示不过期 单位秒
+     * @param <T>        元素的类型
+     */
+    public <T> void replaceSet(String key, Set<T> set, long expireTime) {
+        replace(OP_SET_WRITE, key, set.size(), expireTime, (batch, tempKey) -> writeSet(batch, key, tempKey, set));
+    }
+
+    /**
+     * 替换 Map 类型缓存，不过期
+     *
+     * @param key 缓存key
+     * @param map 新的缓存值
+     * @param <K> 缓存键的类型
+     * @param <V> 缓存值的类型
+     */
+    public <K, V> void replaceMap(String key, Map<K, V> map) {
+        replaceMap(key, map, 0);
+    }
+
+    /**
+     * 替换 Map 类型缓存，原子性与 {@link #replaceList(String, List, long)} 相同
+     *
+     * @param key        缓存key
+     * @param map        新的缓存值，为空时删除缓存
+     * @param expireTime 过期时间，0 表示不过期 单位秒
+     * @param <K>        缓存键的类型
+     * @param <V>        缓存值的类型
+     */
+    public <K, V> void replaceMap(String key, Map<K, V> map, long expireTime) {
+        replace(OP_MAP_WRITE, key, map.size(), expireTime, (batch, tempKey) -> writeMap(batch, key, tempKey, map));
     }
 
     /**
      * 获取 Map 类型缓存
+     * <p>
+     * 一次读取全部元素，大集合请使用 {@link #streamMap} 分页读取
+     * </p>
      * @param key 缓存key
      * @param keyClass 缓存键的类型
      * @param valueClass 缓存值的类型
@@ -125,7 +364,7 @@ public class RedissionService {
      * @return 缓存值
      */
     public <K, V> Map<K, V> getMap(String key, Class<K> keyClass, Class<V> valueClass) {
-        Map<Object, Object> rawMap = redissonClient.getMap(key).readAllMap();
+        Map<Object, Object> rawMap = timed(OP_MAP_READ, () -> map(key).readAllMap());
         Map<K, V> resultMap = new HashMap<>();
 
         for (Map.Entry<Object, Object> entry : rawMap.entrySet()) {
@@ -146,7 +385,8 @@ public class RedissionService {
      * @param <T> 缓存值的类型
      */
     public <T> void setJson(String key, T value) {
-        redissonClient.getBucket(key).set(value);
+        invalidateHotKey(key);
+        timedRun(OP_SET, () -> bucket(key).set(value));
     }
 
     /**
@@ -158,7 +398,7 @@ public class RedissionService {
      * @return 缓存的值
      */
     public <T> T getJson(String key, Class<T> clazz) {
-        return clazz.cast(redissonClient.getBucket(key).get());
+        return clazz.cast(readBucket(key));
     }
 
     /**
@@ -169,11 +409,14 @@ public class RedissionService {
      * @param <T> 缓存值的类型
      */
     public <T> void setJsonArray(String key, List<T> list) {
-        redissonClient.getList(key).addAll(list);
+        timedRun(OP_LIST_WRITE, () -> list(key).addAll(list));
     }
 
     /**
      * 获取 JSON 数组类型缓存
+     * <p>
+     * 一次读取全部元素，大集合请使用 {@link #streamList} 分页读取
+     * </p>
      *
      * @param key 缓存的键
      * @param clazz 缓存值的类型
@@ -181,12 +424,138 @@ public class RedissionService {
      * @return 缓存的值
      */
     public <T> List<T> getJsonArray(String key, Class<T> clazz) {
-        List<Object> rawList = redissonClient.getList(key).readAll();
+        List<Object> rawList = timed(OP_LIST_READ, () -> list(key).readAll());
         return rawList.stream()
                 .map(clazz::cast)  // 显式转换每个元素
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 按下标范围读取 List 类型缓存，对应一次 LRANGE
+     *
+     * @param key       缓存key
+     * @param clazz     元素的类型
+     * @param fromIndex 起始下标，包含
+     * @param toIndex   结束下标，包含，-1 表示最后一个元素
+     * @param <T>       元素的类型
+     * @return 范围内的元素
+     */
+    public <T> List<T> getListRange(String key, Class<T> clazz, int fromIndex, int toIndex) {
+        List<Object> rawList = timed(OP_LIST_READ, () -> list(key).range(fromIndex, toIndex));
+        return rawList.stream()
+                .map(clazz::cast)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 流式读取 List 类型缓存，使用默认页大小
+     *
+     * @param key   缓存key
+     * @param clazz 元素的类型
+     * @param <T>   元素的类型
+     * @return 元素流
+     */
+    public <T> Stream<T> streamList(String key, Class<T> clazz) {
+        return streamList(key, clazz, pageSize);
+    }
+
+    /**
+     * 流式读取 List 类型缓存
+     * <p>
+     * 按页通过 LRANGE 读取，消费完一页后再读取下一页。读取期间列表被修改时，元素可能被跳过或重复读取。
+     * </p>
+     *
+     * @param key      缓存key
+     * @param clazz    元素的类型
+     * @param pageSize 每页元素数
+     * @param <T>      元素的类型
+     * @return 元素流
+     */
+    public <T> Stream<T> streamList(String key, Class<T> clazz, int pageSize) {
+        return toStream(new ListPageIterator<>(key, clazz, pageSize));
+    }
+
+    /**
+     * 流式读取 Set 类型缓存，使用默认页大小
+     *
+     * @param key   缓存key
+     * @param clazz 元素的类型
+     * @param <T>   元素的类型
+     * @return 元素流
+     */
+    public <T> Stream<T> streamSet(String key, Class<T> clazz) {
+        return streamSet(key, clazz, pageSize);
+    }
+
+    /**
+     * 流式读取 Set 类型缓存
+     * <p>
+     * 使用 SSCAN 游标迭代，读取期间集合被修改时，新增或删除的元素可能被读到也可能读不到，未修改的元素只会被读到一次。
+     * </p>
+     *
+     * @param key      缓存key
+     * @param clazz    元素的类型
+     * @param pageSize 每次 SSCAN 的 COUNT
+     * @param <T>      元素的类型
+     * @return 元素流
+     */
+    public <T> Stream<T> streamSet(String key, Class<T> clazz, int pageSize) {
+        return timedStream(OP_SET_READ, set(key).iterator(pageSize)).map(clazz::cast);
+    }
+
+    /**
+     * 流式读取 Map 类型缓存，使用默认页大小
+     *
+     * @param key        缓存key
+     * @param keyClass   缓存键的类型
+     * @param valueClass 缓存值的类型
+     * @param <K>        缓存键的类型
+     * @param <V>        缓存值的类型
+     * @return 键值对流
+     */
+    public <K, V> Stream<Map.Entry<K, V>> streamMap(String key, Class<K> keyClass, Class<V> valueClass) {
+        return streamMap(key, keyClass, valueClass, pageSize);
+    }
+
+    /**
+     * 流式读取 Map 类型缓存
+     * <p>
+     * 使用 HSCAN 游标迭代，一致性与 {@link #streamSet(String, Class, int)} 相同。
+     * </p>
+     *
+     * @param key        缓存key
+     * @param keyClass   缓存键的类型
+     * @param valueClass 缓存值的类型
+     * @param pageSize   每次 HSCAN 的 COUNT
+     * @param <K>        缓存键的类型
+     * @param <V>        缓存值的类型
+     * @return 键值对流
+     */
+    public <K, V> Stream<Map.Entry<K, V>> streamMap(String key, Class<K> keyClass, Class<V> valueClass, int pageSize) {
+        return timedStream(OP_MAP_READ, map(key).entrySet(pageSize).iterator()).map(entry -> Map.entry(keyClass.cast(entry.getKey()), valueClass.cast(entry.getValue())));
+    }
+
+    /**
+     * 读取 Map 类型缓存中指定字段的值，对应一次 HMGET
+     *
+     * @param key        缓存key
+     * @param fields     需要读取的字段
+     * @param keyClass   缓存键的类型
+     * @param valueClass 缓存值的类型
+     * @param <K>        缓存键的类型
+     * @param <V>        缓存值的类型
+     * @return 字段与值的映射，不存在的字段不包含在结果中
+     */
+    public <K, V> Map<K, V> getMapFields(String key, Set<K> fields, Class<K> keyClass, Class<V> valueClass) {
+        if (fields.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<Object, Object> rawMap = timed(OP_MAP_READ, () -> map(key).getAll(new HashSet<>(fields)));
+        Map<K, V> resultMap = new HashMap<>();
+        rawMap.forEach((field, value) -> resultMap.put(keyClass.cast(field), valueClass.cast(value)));
+        return resultMap;
+    }
+
     /**
      * 设置缓存并设置过期时间
      *
@@ -195,7 +564,113 @@ public class RedissionService {
      * @param expireTime 过期时间, 单位秒
      */
     public <T> void setWithExpire(String key, T value, long expireTime) {
-        redissonClient.getBucket(key).set(value, expireTime, TimeUnit.SECONDS);
+        invalidateHotKey(key);
+        timedRun(OP_SET, () -> bucket(key).set(value, expireTime, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 设置缓存并设置过期时间
+     *
+     * @param key        缓存key
+     * @param value      缓存值
+     * @param expireTime 过期时间
+     * @param unit       时间单位
+     */
+    public <T> void setWithExpire(String key, T value, long expireTime, TimeUnit unit) {
+        invalidateHotKey(key);
+        timedRun(OP_SET, () -> bucket(key).set(value, expireTime, unit));
+    }
+
+    /**
+     * 批量设置对象类型缓存，每个 key 使用各自的过期时间
+     * <p>
+     * 用于写入带随机抖动的过期时间，避免同一批写入的 key 在同一时刻过期
+     * </p>
+     * @param map key 与缓存值的映射
+     * @param expireTime 每个 key 的过期时间，小于等于 0 表示不过期
+     * @param unit 时间单位
+     * @param <T> 缓存值的类型
+     */
+    public <T> void setObjects(Map<String, T> map, ToLongFunction<String> expireTime, TimeUnit unit) {
+        if (map.isEmpty()) {
+            return;
+        }
+        map.keySet().forEach(this::invalidateHotKey);
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        map.forEach((key, value) -> {
+            long ttl = expireTime.applyAsLong(key);
+            if (ttl > 0) {
+                batchBucket(batch, key).setAsync(value, ttl, unit);
+            } else {
+                batchBucket(batch, key).setAsync(value);
+            }
+        });
+        timedRun(OP_MSET, batch::execute);
+    }
+
+    /**
+     * 获取对象类型缓存及其剩余过期时间
+     * <p>
+     * GET 与 PTTL 放入同一个 RBatch，一次网络往返同时返回值与剩余过期时间，用于让本地缓存的过期时间不超过 Redis。
+     * 已提升到本地的热点 key 直接返回，剩余过期时间为 -1。
+     * </p>
+     * @param key 缓存key
+     * @param <T> 缓存值的类型
+     * @return 缓存值及剩余过期时间，不存在时值为 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ValueWithTtl<T> getObjectWithTtl(String key) {
+        if (hotKeyDetector != null) {
+            Object promoted = hotKeyDetector.getPromoted(key);
+            if (promoted != null) {
+                return new ValueWithTtl<>((T) promoted, -1);
+            }
+        }
+        RBatch batch = redissonClient.createBatch(readBatchOptions);
+        RFuture<T> value = this.<T>batchBucket(batch, key).getAsync();
+        RFuture<Long> ttl = batchBucket(batch, key).remainTimeToLiveAsync();
+        timedRun(OP_GET_TTL, batch::execute);
+        if (hotKeyDetector != null) {
+            hotKeyDetector.onRead(key, value.getNow());
+        }
+        return new ValueWithTtl<>(value.getNow(), ttl.getNow());
+    }
+
+    /**
+     * 批量获取对象类型缓存及其剩余过期时间，所有 key 的 GET 与 PTTL 通过一次管道发送
+     * @param keys 缓存key集合
+     * @param <T> 缓存值的类型
+     * @return key 与缓存值及剩余过期时间的映射，不存在的 key 不包含在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, ValueWithTtl<T>> getObjectsWithTtl(Collection<String> keys) {
+        Map<String, ValueWithTtl<T>> result = new HashMap<>();
+        RBatch batch = redissonClient.createBatch(readBatchOptions);
+        Map<String, RFuture<T>> values = new LinkedHashMap<>();
+        Map<String, RFuture<Long>> ttls = new HashMap<>();
+        for (String key : keys) {
+            Object promoted = hotKeyDetector != null ? hotKeyDetector.getPromoted(key) : null;
+            if (promoted != null) {
+                result.put(key, new ValueWithTtl<>((T) promoted, -1));
+                continue;
+            }
+            values.put(key, this.<T>batchBucket(batch, key).getAsync());
+            ttls.put(key, batchBucket(batch, key).remainTimeToLiveAsync());
+        }
+        if (values.isEmpty()) {
+            return result;
+        }
+        timedRun(OP_GET_TTL, batch::execute);
+        values.forEach((key, future) -> {
+            T value = future.getNow();
+            if (hotKeyDetector != null) {
+                hotKeyDetector.onRead(key, value);
+            }
+            if (value != null) {
+                result.put(key, new ValueWithTtl<>(value, ttls.get(key).getNow()));
+            }
+        });
+        return result;
     }
 
     /**
@@ -217,7 +692,8 @@ public class RedissionService {
      * @param key 缓存key
      */
     public void deleteString(String key) {
-        redissonClient.getBucket(key).delete();
+        invalidateHotKey(key);
+        timedRun(OP_DELETE, () -> bucket(key).delete());
     }
 
     /**
@@ -225,7 +701,8 @@ public class RedissionService {
      * @param key 缓存key
      */
     public void deleteObject(String key) {
-        redissonClient.getBucket(key).delete();
+        invalidateHotKey(key);
+        timedRun(OP_DELETE, () -> bucket(key).delete());
     }
 
     /**
@@ -233,7 +710,7 @@ public class RedissionService {
      * @param key 缓存key
      */
     public void deleteList(String key) {
-        redissonClient.getList(key).delete();
+        timedRun(OP_DELETE, () -> list(key).delete());
     }
 
     /**
@@ -241,7 +718,7 @@ public class RedissionService {
      * @param key 缓存key
      */
     public void deleteSet(String key) {
-        redissonClient.getSet(key).delete();
+        timedRun(OP_DELETE, () -> set(key).delete());
     }
 
     /**
@@ -249,7 +726,7 @@ public class RedissionService {
      * @param key 缓存key
      */
     public void deleteMap(String key) {
-        redissonClient.getMap(key).delete();
+        timedRun(OP_DELETE, () -> map(key).delete());
     }
 
     /**
@@ -257,7 +734,61 @@ public class RedissionService {
      * @param key 缓存key
      */
     public void delete(String key) {
-        redissonClient.getBucket(key).delete();
+        invalidateHotKey(key);
+        timedRun(OP_DELETE, () -> bucket(key).delete());
+    }
+
+    /**
+     * 删除指定前缀的所有缓存
+     * <p>
+     * 通过 SCAN 逐批遍历匹配的 key 并分批删除，不使用会阻塞 Redis 的 KEYS 命令
+     * </p>
+     * @param prefix    key 前缀
+     * @param batchSize 每批删除的 key 数
+     * @param onBatch   每批删除后的回调，参数为该批删除的 key，可为 null
+     * @return 删除的 key 数
+     */
+    public long deleteByPrefix(String prefix, int batchSize, Consumer<List<String>> onBatch) {
+        if (hotKeyDetector != null) {
+            hotKeyDetector.invalidateByPrefix(prefix);
+        }
+        RKeys keys = redissonClient.getKeys();
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        for (String key : keys.getKeysByPattern(prefixPattern(prefix), batchSize)) {
+            batch.add(key);
+            if (batch.size() >= batchSize) {
+                deleted += deleteBatch(keys, batch, onBatch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleted += deleteBatch(keys, batch, onBatch);
+        }
+        return deleted;
+    }
+
+    /**
+     * 通过 SCAN 遍历指定前缀的 key，遍历过程中按需向 Redis 获取下一批，不会阻塞 Redis
+     *
+     * @param prefix    key 前缀
+     * @param batchSize 每次 SCAN 返回的 key 数
+     * @return 指定前缀的 key
+     */
+    public Iterable<String> scanKeys(String prefix, int batchSize) {
+        return redissonClient.getKeys().getKeysByPattern(prefixPattern(prefix), batchSize);
+    }
+
+    private static String prefixPattern(String prefix) {
+        return prefix.replaceAll("([*?\\[\\]\\\\])", "\\\\$1") + "*"; // 转义 glob 特殊字符
+    }
+
+    private long deleteBatch(RKeys keys, List<String> batch, Consumer<List<String>> onBatch) {
+        long deleted = timed(OP_DELETE, () -> keys.delete(batch.toArray(new String[0])));
+        if (onBatch != null) {
+            onBatch.accept(batch);
+        }
+        return deleted;
     }
 
     /**
@@ -266,13 +797,7 @@ public class RedissionService {
      * @return true:获取成功, false:获取失败
      */
     public boolean tryLock(String lockKey) {
-        RLock lock = redissonClient.getLock(lockKey);
-        try {
-            return lock.tryLock(DEFAULT_GETLOCK_TIMEOUT, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
-        }
+        return tryLock(lockKey, DEFAULT_GETLOCK_TIMEOUT, -1, TimeUnit.SECONDS);
     }
 
     /**
@@ -283,13 +808,672 @@ public class RedissionService {
      * @return true:获取成功, false:获取失败
      */
     public boolean tryLock(String lockKey, long waitTime, long leaseTime) {
+        return tryLock(lockKey, waitTime, leaseTime, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取锁
+     * @param lockKey 锁的key
+     * @param waitTime 等待时间
+     * @param leaseTime 锁的有效时间
+     * @param unit 时间单位
+     * @return true:获取成功, false:获取失败
+     */
+    public boolean tryLock(String lockKey, long waitTime, long leaseTime, TimeUnit unit) {
         RLock lock = redissonClient.getLock(lockKey);
+        long start = System.nanoTime();
+        boolean locked = false; // 未获取到锁、被中断或抛出异常时都按失败记录
         try {
-            return lock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            locked = lock.tryLock(waitTime, leaseTime, unit);
+            return locked;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return false;
+        } finally {
+            record(OP_LOCK, start, locked);
+        }
+    }
+
+    /**
+     * 释放锁，仅当锁由当前线程持有时才释放
+     * @param lockKey 锁的key
+     */
+    public void unlock(String lockKey) {
+        RLock lock = redissonClient.getLock(lockKey);
+        if (lock.isHeldByCurrentThread()) {
+            timedRun(OP_UNLOCK, lock::unlock);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 异步接口：与同步接口一一对应，基于 Redisson 的 *Async 方法，不阻塞调用线程
+    // ------------------------------------------------------------------
+
+    /**
+     * 异步设置对象类型缓存
+     * @param key 缓存key
+     * @param value 缓存值
+     * @param <T> 缓存值的类型
+     * @return 写入完成的通知
+     */
+    public <T> CompletionStage<Void> setObjectAsync(String key, T value) {
+        invalidateHotKey(key);
+        return timedAsync(OP_SET, bucket(key).setAsync(value));
+    }
+
+    /**
+     * 异步获取对象类型缓存
+     * @param key 缓存key
+     * @param <T> 缓存值的类型
+     * @return 缓存值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<T> getObjectAsync(String key) {
+        if (hotKeyDetector != null) {
+            Object promoted = hotKeyDetector.getPromoted(key);
+            if (promoted != null) {
+                return CompletableFuture.completedFuture((T) promoted);
+            }
         }
+        return timedAsync(OP_GET, bucket(key).getAsync()).thenApply(value -> {
+            if (hotKeyDetector != null) {
+                hotKeyDetector.onRead(key, value);
+            }
+            return (T) value;
+        });
+    }
+
+    /**
+     * 异步批量获取对象类型缓存
+     * @param keys 缓存key集合
+     * @param <T> 缓存值的类型
+     * @return key 与缓存值的映射，不存在的 key 不包含在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<Map<String, T>> getObjectsAsync(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        if (hotKeyDetector == null) {
+            return mgetAsync(keys);
+        }
+
+        // 与 getObjects 相同：已提升的热点 key 直接从本地返回，其余 key 从 Redis 读取并参与统计
+        Map<String, T> promotedValues = new HashMap<>();
+        List<String> remaining = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Object promoted = hotKeyDetector.getPromoted(key);
+            if (promoted != null) {
+                promotedValues.put(key, (T) promoted);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return CompletableFuture.completedFuture(promotedValues);
+        }
+        return this.<T>mgetAsync(remaining).thenApply(values -> {
+            for (String key : remaining) {
+                hotKeyDetector.onRead(key, values.get(key));
+            }
+            Map<String, T> result = new HashMap<>(values);
+            result.putAll(promotedValues);
+            return result;
+        });
+    }
+
+    private <T> CompletionStage<Map<String, T>> mgetAsync(Collection<String> keys) {
+        if (codecResolver == null || codecResolver.isEmpty()) {
+            return timedAsync(OP_MGET, redissonClient.getBuckets().getAsync(keys.toArray(new String[0])));
+        }
+
+        CompletableFuture<Map<String, T>> result = CompletableFuture.completedFuture(new HashMap<>());
+        for (Map.Entry<Codec, List<String>> group : groupByCodec(keys).entrySet()) {
+            RFuture<Map<String, T>> future = buckets(group.getKey()).getAsync(group.getValue().toArray(new String[0]));
+            result = result.thenCombine(future, (merged, values) -> {
+                merged.putAll(values);
+                return merged;
+            });
+        }
+        return timedAsync(OP_MGET, result);
+    }
+
+    /**
+     * 异步设置缓存并设置过期时间
+     * @param key        缓存key
+     * @param value      缓存值
+     * @param expireTime 过期时间, 单位秒
+     * @param <T> 缓存值的类型
+     * @return 写入完成的通知
+     */
+    public <T> CompletionStage<Void> setWithExpireAsync(String key, T value, long expireTime) {
+        invalidateHotKey(key);
+        return timedAsync(OP_SET, bucket(key).setAsync(value, expireTime, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 异步设置缓存并设置过期时间
+     * @param key        缓存key
+     * @param value      缓存值
+     * @param expireTime 过期时间
+     * @param unit       时间单位
+     * @param <T> 缓存值的类型
+     * @return 写入完成的通知
+     */
+    public <T> CompletionStage<Void> setWithExpireAsync(String key, T value, long expireTime, TimeUnit unit) {
+        invalidateHotKey(key);
+        return timedAsync(OP_SET, bucket(key).setAsync(value, expireTime, unit));
+    }
+
+    /**
+     * 异步获取对象类型缓存及其剩余过期时间，GET 与 PTTL 在同一次网络往返中发送
+     * @param key 缓存key
+     * @param <T> 缓存值的类型
+     * @return 缓存值及剩余过期时间，不存在时值为 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<ValueWithTtl<T>> getObjectWithTtlAsync(String key) {
+        if (hotKeyDetector != null) {
+            Object promoted = hotKeyDetector.getPromoted(key);
+            if (promoted != null) {
+                return CompletableFuture.completedFuture(new ValueWithTtl<>((T) promoted, -1));
+            }
+        }
+        RBatch batch = redissonClient.createBatch(readBatchOptions);
+        RFuture<T> value = this.<T>batchBucket(batch, key).getAsync();
+        RFuture<Long> ttl = batchBucket(batch, key).remainTimeToLiveAsync();
+        return timedAsync(OP_GET_TTL, batch.executeAsync()).thenApply(result -> {
+            if (hotKeyDetector != null) {
+                hotKeyDetector.onRead(key, value.getNow());
+            }
+            return new ValueWithTtl<>(value.getNow(), ttl.getNow());
+        });
+    }
+
+    /**
+     * 异步设置 List 类型缓存
+     * @param key 缓存key
+     * @param list 缓存值
+     * @param <T> 缓存值的类型
+     * @return 列表是否发生变化
+     */
+    public <T> CompletionStage<Boolean> setListAsync(String key, List<T> list) {
+        return timedAsync(OP_LIST_WRITE, list(key).addAllAsync(list));
+    }
+
+    /**
+     * 异步获取 List 类型缓存
+     * @param key 缓存key
+     * @param clazz 缓存值的类型
+     * @param <T> 缓存值的类型
+     * @return 缓存值
+     */
+    public <T> CompletionStage<List<T>> getListAsync(String key, Class<T> clazz) {
+        return timedAsync(OP_LIST_READ, list(key).readAllAsync()).thenApply(rawList -> rawList.stream()
+                .map(clazz::cast)  // 显式转换每个元素
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 异步设置 Set 类型缓存
+     * @param key 缓存key
+     * @param set 缓存值
+     * @param <T> 缓存值的类型
+     * @return 集合是否发生变化
+     */
+    public <T> CompletionStage<Boolean> setSetAsync(String key, Set<T> set) {
+        return timedAsync(OP_SET_WRITE, set(key).addAllAsync(set));
+    }
+
+    /**
+     * 异步获取 Set 类型缓存
+     * @param key 缓存key
+     * @param clazz 缓存值的类型
+     * @param <T> 缓存值的类型
+     * @return 缓存值
+     */
+    public <T> CompletionStage<Set<T>> getSetAsync(String key, Class<T> clazz) {
+        return timedAsync(OP_SET_READ, set(key).readAllAsync()).thenApply(rawSet -> rawSet.stream()
+                .map(clazz::cast)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * 异步设置 Map 类型缓存
+     * @param key 缓存key
+     * @param map 缓存值
+     * @param <K> 缓存键的类型
+     * @param <V> 缓存值的类型
+     * @return 写入完成的通知
+     */
+    public <K, V> CompletionStage<Void> setMapAsync(String key, Map<K, V> map) {
+        return timedAsync(OP_MAP_WRITE, map(key).putAllAsync(map));
+    }
+
+    /**
+     * 异步获取 Map 类型缓存
+     * @param key 缓存key
+     * @param keyClass 缓存键的类型
+     * @param valueClass 缓存值的类型
+     * @param <K> 缓存键的类型
+     * @param <V> 缓存值的类型
+     * @return 缓存值
+     */
+    public <K, V> CompletionStage<Map<K, V>> getMapAsync(String key, Class<K> keyClass, Class<V> valueClass) {
+        return timedAsync(OP_MAP_READ, map(key).readAllMapAsync()).thenApply(rawMap -> {
+            Map<K, V> resultMap = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : rawMap.entrySet()) {
+                resultMap.put(keyClass.cast(entry.getKey()), valueClass.cast(entry.getValue()));
+            }
+            return resultMap;
+        });
+    }
+
+    /**
+     * 异步删除指定的缓存，适用于任意类型
+     * @param key 缓存key
+     * @return true:删除成功, false:key 不存在
+     */
+    public CompletionStage<Boolean> deleteAsync(String key) {
+        invalidateHotKey(key);
+        return timedAsync(OP_DELETE, redissonClient.getKeys().deleteAsync(key)).thenApply(count -> count > 0);
+    }
+
+    /**
+     * 异步获取锁
+     * <p>
+     * 异步回调可能运行在其他线程上，因此需要显式传入持锁线程标识，释放时使用同一个标识
+     * </p>
+     * @param lockKey 锁的key
+     * @param waitTime 等待时间, 单位秒
+     * @param leaseTime 锁的有效时间, 单位秒
+     * @param threadId 持锁线程标识
+     * @return true:获取成功, false:获取失败
+     */
+    public CompletionStage<Boolean> tryLockAsync(String lockKey, long waitTime, long leaseTime, long threadId) {
+        return timedAsync(OP_LOCK, redissonClient.getLock(lockKey).tryLockAsync(waitTime, leaseTime, TimeUnit.SECONDS, threadId));
+    }
+
+    /**
+     * 异步释放锁
+     * @param lockKey 锁的key
+     * @param threadId 获取锁时使用的线程标识
+     * @return 释放完成的通知
+     */
+    public CompletionStage<Void> unlockAsync(String lockKey, long threadId) {
+        return timedAsync(OP_UNLOCK, redissonClient.getLock(lockKey).unlockAsync(threadId));
+    }
+
+    // ------------------------------------------------------------------
+    // 热点 key
+    // ------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private <T> T readBucket(String key) {
+        if (hotKeyDetector == null) {
+            return timed(OP_GET, () -> (T) bucket(key).get());
+        }
+        Object promoted = hotKeyDetector.getPromoted(key);
+        if (promoted != null) {
+            return (T) promoted; // 热点 key 直接从本地返回
+        }
+        T value = timed(OP_GET, () -> (T) bucket(key).get());
+        hotKeyDetector.onRead(key, value);
+        return value;
+    }
+
+    /**
+     * 批量读取时已提升的热点 key 直接从本地返回，其余 key 从 Redis 读取并参与统计
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Map<String, T> getObjectsWithHotKeys(Collection<String> keys) {
+        Map<String, T> result = new HashMap<>();
+        List<String> remaining = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Object promoted = hotKeyDetector.getPromoted(key);
+            if (promoted != null) {
+                result.put(key, (T) promoted);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return result;
+        }
+        Map<String, T> values = mget(remaining);
+        for (String key : remaining) {
+            hotKeyDetector.onRead(key, values.get(key));
+        }
+        result.putAll(values);
+        return result;
+    }
+
+    private void invalidateHotKey(String key) {
+        if (hotKeyDetector != null) {
+            hotKeyDetector.invalidate(key);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // 命令耗时记录
+    // ------------------------------------------------------------------
+
+    private <R> R timed(String operation, Supplier<R> command) {
+        if (commandListener == null) {
+            return command.get();
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            R result = command.get();
+            success = true;
+            return result;
+        } finally {
+            record(operation, start, success);
+        }
+    }
+
+    private void timedRun(String operation, Runnable command) {
+        timed(operation, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    private <R> CompletionStage<R> timedAsync(String operation, CompletionStage<R> future) {
+        if (commandListener == null) {
+            return future;
+        }
+        long start = System.nanoTime();
+        return future.whenComplete((result, e) -> record(operation, start, e == null));
+    }
+
+    private void record(String operation, long start, boolean success) {
+        RedisCommandListener listener = commandListener;
+        if (listener != null) {
+            listener.onCommand(operation, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 流式读取按游标分页访问 Redis，累计各页的读取耗时，迭代结束、读取失败或流关闭时记录一次
+     */
+    private <T> Stream<T> timedStream(String operation, Iterator<T> iterator) {
+        if (commandListener == null) {
+            return toStream(iterator);
+        }
+        TimedIterator<T> timed = new TimedIterator<>(operation, iterator);
+        return toStream(timed).onClose(() -> timed.finish(true));
+    }
+
+    // ------------------------------------------------------------------
+    // 按 key 选择编解码器获取 Redisson 对象
+    // ------------------------------------------------------------------
+
+    private Codec codecFor(String key) {
+        return codecResolver == null ? null : codecResolver.resolve(key);
+    }
+
+    /**
+     * 按编解码器对 key 分组，使用默认编解码器的 key 归入 null 分组
+     */
+    private Map<Codec, List<String>> groupByCodec(Collection<String> keys) {
+        Map<Codec, List<String>> groups = new IdentityHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(codecFor(key), codec -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+
+    private RBuckets buckets(Codec codec) {
+        return codec == null ? redissonClient.getBuckets() : redissonClient.getBuckets(codec);
+    }
+
+    private <V> RBucket<V> bucket(String key) {
+        Codec codec = codecFor(key);
+        return codec == null ? redissonClient.getBucket(key) : redissonClient.getBucket(key, codec);
+    }
+
+    private <V> RList<V> list(String key) {
+        Codec codec = codecFor(key);
+        return codec == null ? redissonClient.getList(key) : redissonClient.getList(key, codec);
+    }
+
+    private <V> RSet<V> set(String key) {
+        Codec codec = codecFor(key);
+        return codec == null ? redissonClient.getSet(key) : redissonClient.getSet(key, codec);
+    }
+
+    private <K, V> RMap<K, V> map(String key) {
+        Codec codec = codecFor(key);
+        return codec == null ? redissonClient.getMap(key) : redissonClient.getMap(key, codec);
+    }
+
+    /**
+     * 将新数据写入临时 key 后原子地替换目标 key
+     * <p>
+     * 第一批命令分块写入临时 key 并设置兜底过期时间，失败时删除临时 key；第二批命令以事务方式执行 RENAME 与过期时间设置。
+     * 临时 key 与目标 key 使用相同的 hash tag，集群模式下位于同一槽位，可以直接 RENAME。
+     * </p>
+     */
+    private void replace(String operation, String key, int size, long expireTime, BiConsumer<RBatch, String> writer) {
+        if (size == 0) {
+            timedRun(operation, () -> redissonClient.getKeys().delete(key));
+            return;
+        }
+        String tempKey = tempKey(key);
+        RBatch batch = redissonClient.createBatch(batchOptions);
+        writer.accept(batch, tempKey);
+        batch.getBucket(tempKey).expireAsync(TEMP_KEY_TTL, TimeUnit.SECONDS);
+        try {
+            timedRun(operation, batch::execute);
+        } catch (RuntimeException e) {
+            redissonClient.getKeys().delete(tempKey);
+            throw e;
+        }
+
+        RBatch swap = redissonClient.createBatch(BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.REDIS_WRITE_ATOMIC));
+        swap.getBucket(tempKey).renameAsync(key);
+        if (expireTime > 0) {
+            swap.getBucket(key).expireAsync(expireTime, TimeUnit.SECONDS);
+        } else {
+            swap.getBucket(key).clearExpireAsync();
+        }
+        timedRun(operation, swap::execute);
+    }
+
+    /**
+     * 生成与 key 位于同一槽位的临时 key
+     * <p>
+     * key 中有非空 hash tag 时沿用；没有 hash tag 时整个 key 参与哈希，key 不含 '}' 时以整个 key 作为 hash tag，
+     * 否则（如 {@code {}abc} 这样的空 hash tag）整个 key 无法放入 hash tag，改为查找一个与 key 槽位相同的 hash tag。
+     * </p>
+     *
+     * @param key 缓存key
+     * @return 临时 key，每次调用都不相同
+     */
+    public static String tempKey(String key) {
+        String suffix = ":tmp:" + UUID.randomUUID();
+        if (hashTag(key) != null) {
+            return key + suffix;
+        }
+        if (key.indexOf('}') < 0) {
+            return "{" + key + "}" + suffix;
+        }
+        int slot = slot(key);
+        for (int i = 0; i < MAX_TAG_SEARCH; i++) {
+            String tag = "tmp" + i;
+            if (crc16Slot(tag) == slot) {
+                return "{" + tag + "}" + suffix;
+            }
+        }
+        throw new IllegalStateException("No hash tag found for slot " + slot);
+    }
+
+    /**
+     * 计算 key 在 Redis 集群中的槽位，有非空 hash tag 时只对 hash tag 哈希
+     *
+     * @param key 缓存key
+     * @return 槽位，范围 [0, 16384)
+     */
+    public static int slot(String key) {
+        String tag = hashTag(key);
+        return crc16Slot(tag != null ? tag : key);
+    }
+
+    /**
+     * @return key 中第一个 '{' 与其后第一个 '}' 之间的内容，不存在或为空时返回 null
+     */
+    private static String hashTag(String key) {
+        int open = key.indexOf('{');
+        int close = open >= 0 ? key.indexOf('}', open + 1) : -1;
+        return close > open + 1 ? key.substring(open + 1, close) : null;
+    }
+
+    private static int crc16Slot(String value) {
+        return CRC16.crc16(value.getBytes(StandardCharsets.UTF_8)) % SLOT_COUNT;
+    }
+
+    private <T> void writeList(RBatch batch, String key, String target, List<T> list) {
+        Codec codec = codecFor(key);
+        RListAsync<T> batchList = codec == null ? batch.getList(target) : batch.getList(target, codec);
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            batchList.addAllAsync(list.subList(from, Math.min(from + chunkSize, list.size())));
+        }
+    }
+
+    private <T> void writeSet(RBatch batch, String key, String target, Set<T> set) {
+        Codec codec = codecFor(key);
+        RSetAsync<T> batchSet = codec == null ? batch.getSet(target) : batch.getSet(target, codec);
+        List<T> chunk = new ArrayList<>(Math.min(chunkSize, set.size()));
+        for (T value : set) {
+            chunk.add(value);
+            if (chunk.size() == chunkSize) {
+                batchSet.addAllAsync(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            batchSet.addAllAsync(chunk);
+        }
+    }
+
+    private <K, V> void writeMap(RBatch batch, String key, String target, Map<K, V> map) {
+        Codec codec = codecFor(key);
+        RMapAsync<K, V> batchMap = codec == null ? batch.getMap(target) : batch.getMap(target, codec);
+        Map<K, V> chunk = new LinkedHashMap<>();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() == chunkSize) {
+                batchMap.putAllAsync(chunk);
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            batchMap.putAllAsync(chunk);
+        }
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 累计游标迭代耗时的迭代器，只在 hasNext 中访问 Redis
+     */
+    private class TimedIterator<T> implements Iterator<T> {
+
+        private final String operation;
+        private final Iterator<T> delegate;
+        private long elapsed;       // 累计的读取耗时 单位纳秒
+        private boolean recorded;   // 是否已记录
+
+        private TimedIterator(String operation, Iterator<T> delegate) {
+            this.operation = operation;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = System.nanoTime();
+            boolean hasNext;
+            try {
+                hasNext = delegate.hasNext();
+            } catch (RuntimeException e) {
+                elapsed += System.nanoTime() - start;
+                finish(false);
+                throw e;
+            }
+            elapsed += System.nanoTime() - start;
+            if (!hasNext) {
+                finish(true);
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            return delegate.next();
+        }
+
+        private void finish(boolean success) {
+            RedisCommandListener listener = commandListener;
+            if (!recorded && listener != null) {
+                recorded = true;
+                listener.onCommand(operation, elapsed, success);
+            }
+        }
+    }
+
+    /**
+     * 按页读取 List 的迭代器，当前页消费完后才读取下一页
+     */
+    private class ListPageIterator<T> implements Iterator<T> {
+
+        private final String key;
+        private final Class<T> clazz;
+        private final int pageSize;
+        private List<T> page = List.of();
+        private int position;       // 当前页中下一个元素的位置
+        private int nextIndex;      // 下一页在列表中的起始下标
+        private boolean lastPage;   // 已读取到最后一页
+
+        private ListPageIterator(String key, Class<T> clazz, int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize must be positive");
+            }
+            this.key = key;
+            this.clazz = clazz;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < page.size()) {
+                return true;
+            }
+            if (lastPage) {
+                return false;
+            }
+            page = getListRange(key, clazz, nextIndex, nextIndex + pageSize - 1);
+            position = 0;
+            nextIndex += page.size();
+            lastPage = page.size() < pageSize;
+            return !page.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(position++);
+        }
+    }
+
+    private <V> RBucketAsync<V> batchBucket(RBatch batch, String key) {
+        Codec codec = codecFor(key);
+        return codec == null ? batch.getBucket(key) : batch.getBucket(key, codec);
     }
 
 }
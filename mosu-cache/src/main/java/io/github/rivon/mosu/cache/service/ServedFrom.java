@@ -0,0 +1,16 @@
+package io.github.rivon.mosu.cache.service;
+
+/**
+ * 二级缓存读取请求最终由哪一层返回
+ */
+public enum ServedFrom {
+    LOCAL,          // 本地缓存
+    WRITE_BEHIND,   // 延迟写入队列中尚未写入 Redis 的值
+    OFF_HEAP,       // 堆外缓存
+    REDIS,          // Redis
+    LOADER,         // 各层均未命中，由加载函数加载
+    NEGATIVE,       // 空结果缓存，已知数据不存在
+    BLOOM_FILTER,   // 布隆过滤器判定数据不存在
+    STALE,          // Redis 熔断或读取失败时返回的本地缓存旧值
+    NONE            // 各层均未命中
+}
@@ -0,0 +1,40 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.Data;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过期时间策略
+ * <p>
+ * 写入 Redis 的过期时间在基础过期时间上随机增加 [0, jitter] 比例的抖动，避免批量写入的 key 在同一时刻集中过期，
+ * 大量请求同时穿透到数据源。capLocalTtl 开启时，本地缓存中数据的过期时间不超过其在 Redis 中的剩余过期时间，
+ * 保证 Redis 中的数据过期后本地缓存不会继续返回旧值。
+ * </p>
+ */
+@Data
+public class TtlPolicy {
+
+    private double jitter;              // 随机抖动比例，0.1 表示在基础过期时间上最多增加 10%，0 表示不抖动
+    private boolean capLocalTtl; // 本地缓存的过期时间是否不超过 Redis 中的剩余过期时间，开启后从 Redis 读取时多一条 PTTL 命令
+
+    /**
+     * 计算实际写入的过期时间
+     *
+     * @param ttl  基础过期时间，小于等于 0 表示不过期
+     * @param unit 时间单位
+     * @return 增加抖动后的过期时间 单位毫秒，0 表示不过期
+     */
+    public long apply(long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            return 0;
+        }
+        long millis = unit.toMillis(ttl);
+        if (jitter <= 0) {
+            return millis;
+        }
+        long bound = (long) (millis * jitter);
+        return bound > 0 ? millis + ThreadLocalRandom.current().nextLong(bound + 1) : millis;
+    }
+}
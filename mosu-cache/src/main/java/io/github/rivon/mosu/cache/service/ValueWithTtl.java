@@ -0,0 +1,22 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 缓存值及其在 Redis 中的剩余过期时间，两者在同一次网络往返中读取
+ */
+@Data
+@AllArgsConstructor
+public class ValueWithTtl<T> {
+
+    private T value; // 缓存值，不存在时为 null
+    private long ttl; // 剩余过期时间 单位毫秒，-1 表示不过期，key 不存在时为 -2
+
+    /**
+     * @return 是否设置了过期时间
+     */
+    public boolean isExpiring() {
+        return ttl > 0;
+    }
+}
@@ -0,0 +1,442 @@
+package io.github.rivon.mosu.cache.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Redis 延迟写入（write-behind）服务
+ * <p>
+ * 写入请求先进入内存队列，由后台线程按固定间隔或队列达到批量大小时以 RBatch 管道批量写入 Redis。
+ * 同一个 key 在一个刷新周期内的多次写入只保留最后一次的值。队列达到上限时调用方最多等待 offerTimeout，
+ * 仍无空间则直接同步写入 Redis，以此形成背压。关闭时会把队列中剩余的数据全部写入 Redis。
+ * 通过 {@link #enqueue(String, Object, long)} 写入的 key 在刷新时带上各自的过期时间。
+ * </p>
+ * <p>
+ * 正在写入 Redis 的一批数据在写入确认之前仍可以通过 {@link #getPending(String)} 读到。写入期间被删除的 key 记为墓碑：
+ * 写入成功后再删除一次 Redis 中的值，避免本批的 SET 晚于调用方的 DEL 到达而使数据复活；写入失败时不再放回队列。
+ * </p>
+ */
+@Slf4j
+public class WriteBehindService {
+
+    private final RedissionService redissionService; // Redis 缓存服务
+    private final long flushInterval;   // 刷新间隔 单位毫秒
+    private final int batchSize;        // 每批写入的最大 key 数
+    private final int maxPending;       // 队列中待写入 key 的上限
+    private final long offerTimeout;    // 队列已满时等待的最长时间 单位毫秒
+
+    private final Map<String, Object> pending = new LinkedHashMap<>(); // 待写入数据，按首次写入顺序排列
+    private final Map<String, Long> pendingTtls = new HashMap<>(); // 待写入数据的过期时间 单位毫秒，不过期的 key 不在其中
+    private final Map<String, Object> inFlight = new HashMap<>(); // 正在写入 Redis、尚未确认的数据
+    private final Set<String> deletedInFlight = new HashSet<>(); // 正在写入期间被删除的 key
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock(); // 保证同一时刻只有一个线程在刷新
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private volatile Consumer<Collection<String>> flushListener; // 每批数据写入 Redis 后的回调
+
+    // 指标
+    private final LongAdder flushCount = new LongAdder();        // 刷新批次数
+    private final LongAdder flushedKeyCount = new LongAdder();   // 写入 Redis 的 key 数
+    private final LongAdder coalescedCount = new LongAdder();    // 被合并的重复写入次数
+    private final LongAdder failedFlushCount = new LongAdder();  // 失败的刷新批次数
+    private final LongAdder writeThroughCount = new LongAdder(); // 队列已满而直接同步写入的次数
+    private final LongAdder flushTotalNanos = new LongAdder();   // 刷新累计耗时 单位纳秒
+    private final AtomicLong lastFlushNanos = new AtomicLong();  // 最近一次刷新耗时 单位纳秒
+
+    /**
+     * 构造函数，创建后立即启动后台刷新线程
+     *
+     * @param redissionService Redis 缓存服务
+     * @param flushInterval    刷新间隔 单位毫秒
+     * @param batchSize        每批写入的最大 key 数
+     * @param maxPending       队列中待写入 key 的上限
+     * @param offerTimeout     队列已满时等待的最长时间 单位毫秒
+     */
+    public WriteBehindService(RedissionService redissionService, long flushInterval, int batchSize, int maxPending, long offerTimeout) {
+        this.redissionService = redissionService;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.offerTimeout = offerTimeout;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mosu-cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 设置每批数据写入 Redis 后的回调，参数为本批写入的 key
+     *
+     * @param flushListener 回调函数
+     */
+    public void setFlushListener(Consumer<Collection<String>> flushListener) {
+        this.flushListener = flushListener;
+    }
+
+    /**
+     * 将写入请求加入队列
+     * <p>
+     * 同一个 key 已在队列中时直接覆盖其值；队列已满时最多等待 offerTimeout，超时后同步写入 Redis。
+     * </p>
+     *
+     * @param key   缓存key
+     * @param value 缓存值
+     */
+    public void enqueue(String key, Object value) {
+        enqueue(key, value, 0);
+    }
+
+    /**
+     * 将带过期时间的写入请求加入队列
+     *
+     * @param key   缓存key
+     * @param value 缓存值
+     * @param ttl   过期时间 单位毫秒，小于等于 0 表示不过期
+     */
+    public void enqueue(String key, Object value, long ttl) {
+        boolean full = false;
+        lock.lock();
+        try {
+            if (pending.containsKey(key)) {
+                pending.put(key, value); // 合并同一 key 的多次写入
+                putTtl(key, ttl);
+                coalescedCount.increment();
+                return;
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(offerTimeout);
+            while (pending.size() >= maxPending) {
+                if (remaining <= 0) {
+                    full = true;
+                    break;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            if (!full) {
+                pending.put(key, value);
+                putTtl(key, ttl);
+                if (pending.size() >= batchSize) {
+                    requestFlush(); // 达到批量大小，提前刷新
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            full = true;
+        } finally {
+            lock.unlock();
+        }
+
+        if (full) {
+            // 队列已满，退化为同步写入
+            writeThroughCount.increment();
+            if (ttl > 0) {
+                redissionService.setWithExpire(key, value, ttl, TimeUnit.MILLISECONDS);
+            } else {
+                redissionService.setObject(key, value);
+            }
+            notifyFlushed(List.of(key));
+        }
+    }
+
+    /**
+     * 获取队列中尚未写入 Redis 的值
+     *
+     * @param key 缓存key
+     * @return 待写入的值，包括正在写入尚未确认的值，不在队列中时返回 null
+     */
+    public Object getPending(String key) {
+        lock.lock();
+        try {
+            Object value = pending.get(key);
+            return value != null ? value : inFlight.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从队列中移除 key，删除缓存时调用，避免已删除的数据被后续刷新写回 Redis
+     *
+     * @param key 缓存key
+     */
+    public void remove(String key) {
+        lock.lock();
+        try {
+            pendingTtls.remove(key);
+            if (inFlight.remove(key) != null) {
+                deletedInFlight.add(key); // 本批写入完成后再删除一次
+            }
+            if (pending.remove(key) != null) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从队列中移除指定前缀的全部 key，按前缀批量删除缓存时调用
+     *
+     * @param prefix key 前缀
+     */
+    public void removeByPrefix(String prefix) {
+        lock.lock();
+        try {
+            pendingTtls.keySet().removeIf(key -> key.startsWith(prefix));
+            inFlight.keySet().removeIf(key -> {
+                if (!key.startsWith(prefix)) {
+                    return false;
+                }
+                deletedInFlight.add(key); // 本批写入完成后再删除一次
+                return true;
+            });
+            if (pending.keySet().removeIf(key -> key.startsWith(prefix))) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 将队列中的全部数据写入 Redis
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Object> batch;
+            Map<String, Long> ttls = new HashMap<>();
+            while (!(batch = drain(ttls)).isEmpty()) {
+                long start = System.nanoTime();
+                try {
+                    if (ttls.isEmpty()) {
+                        redissionService.setObjects(batch);
+                    } else {
+                        redissionService.setObjects(batch, key -> ttls.getOrDefault(key, 0L), TimeUnit.MILLISECONDS);
+                    }
+                    deleteRemoved(batch);
+                } catch (RuntimeException e) {
+                    failedFlushCount.increment();
+                    requeue(batch, ttls);
+                    throw e;
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    lastFlushNanos.set(elapsed);
+                    flushTotalNanos.add(elapsed);
+                }
+                complete(batch);
+                flushCount.increment();
+                flushedKeyCount.add(batch.size());
+                notifyFlushed(batch.keySet());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 停止后台刷新线程，并将队列中剩余的数据写入 Redis，容器关闭时调用
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushInterval * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 获取队列中待写入的 key 数
+     *
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 刷新批次数
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * @return 已写入 Redis 的 key 数
+     */
+    public long getFlushedKeyCount() {
+        return flushedKeyCount.sum();
+    }
+
+    /**
+     * @return 被合并的重复写入次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return 失败的刷新批次数
+     */
+    public long getFailedFlushCount() {
+        return failedFlushCount.sum();
+    }
+
+    /**
+     * @return 队列已满而直接同步写入的次数
+     */
+    public long getWriteThroughCount() {
+        return writeThroughCount.sum();
+    }
+
+    /**
+     * @return 刷新累计耗时 单位纳秒
+     */
+    public long getFlushTotalNanos() {
+        return flushTotalNanos.sum();
+    }
+
+    /**
+     * @return 最近一次刷新耗时 单位纳秒
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos.get();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true) && !flusher.isShutdown()) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush write-behind queue, {} keys pending", getQueueDepth(), e);
+        }
+    }
+
+    private void putTtl(String key, long ttl) {
+        if (ttl > 0) {
+            pendingTtls.put(key, ttl);
+        } else {
+            pendingTtls.remove(key);
+        }
+    }
+
+    /**
+     * 从队列头部取出最多 batchSize 个待写入的数据移入 inFlight，其过期时间放入 ttls
+     */
+    private Map<String, Object> drain(Map<String, Long> ttls) {
+        lock.lock();
+        try {
+            ttls.clear();
+            Map<String, Object> batch = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, Object>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                Map.Entry<String, Object> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                inFlight.put(entry.getKey(), entry.getValue());
+                Long ttl = pendingTtls.remove(entry.getKey());
+                if (ttl != null) {
+                    ttls.put(entry.getKey(), ttl);
+                }
+                iterator.remove();
+            }
+            if (!batch.isEmpty()) {
+                notFull.signalAll();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除本批写入期间被删除的 key，本批的 SET 可能晚于调用方的 DEL 到达 Redis
+     */
+    private void deleteRemoved(Map<String, Object> batch) {
+        List<String> removed = new ArrayList<>();
+        lock.lock();
+        try {
+            for (String key : batch.keySet()) {
+                if (deletedInFlight.contains(key)) {
+                    removed.add(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        removed.forEach(redissionService::delete);
+    }
+
+    /**
+     * 本批写入确认后，从 inFlight 中移除并清除墓碑
+     */
+    private void complete(Map<String, Object> batch) {
+        lock.lock();
+        try {
+            for (String key : batch.keySet()) {
+                inFlight.remove(key);
+                deletedInFlight.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入失败时放回队列，期间已有新值写入或已被删除的 key 不再放回
+     */
+    private void requeue(Map<String, Object> batch, Map<String, Long> ttls) {
+        lock.lock();
+        try {
+            batch.forEach((key, value) -> {
+                boolean deleted = deletedInFlight.remove(key);
+                inFlight.remove(key);
+                if (!deleted && pending.putIfAbsent(key, value) == null && ttls.containsKey(key)) {
+                    pendingTtls.put(key, ttls.get(key));
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifyFlushed(Collection<String> keys) {
+        Consumer<Collection<String>> listener = flushListener;
+        if (listener != null) {
+            listener.accept(keys);
+        }
+    }
+}
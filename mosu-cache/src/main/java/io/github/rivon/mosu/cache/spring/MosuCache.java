@@ -0,0 +1,108 @@
+package io.github.rivon.mosu.cache.spring;
+
+import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 基于二级缓存的 Spring Cache 实现
+ * <p>
+ * 缓存名称对应同名的缓存区域，没有同名区域时使用默认区域。缓存 key 在本地缓存与 Redis 中统一为 {@code 缓存名称::key}，
+ * 不同缓存之间互不冲突。{@code @Cacheable(sync = true)} 调用 {@link #get(Object, Callable)}，
+ * 由二级缓存保证同一 key 在集群内只加载一次。过期时间由对应区域的配置决定。
+ * </p>
+ * <p>
+ * 允许缓存 null 时，null 以一个占位字符串存储，读取时再转换回 null。
+ * </p>
+ */
+public class MosuCache extends AbstractValueAdaptingCache {
+
+    static final String NULL_VALUE = "mosu:cache:null"; // null 值的存储形式
+    private static final String KEY_SEPARATOR = "::";
+
+    private final String name;
+    private final LocalCacheAndRedissonService cacheService;
+
+    /**
+     * 构造函数
+     *
+     * @param name            缓存名称
+     * @param cacheService    缓存名称对应区域的二级缓存服务
+     * @param allowNullValues 是否允许缓存 null
+     */
+    public MosuCache(String name, LocalCacheAndRedissonService cacheService, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.cacheService = cacheService;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LocalCacheAndRedissonService getNativeCache() {
+        return cacheService;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return cacheService.get(createKey(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object storeValue = cacheService.get(createKey(key), k -> {
+            try {
+                return toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        });
+        return (T) fromStoreValue(storeValue);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cacheService.put(createKey(key), toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        cacheService.delete(createKey(key));
+    }
+
+    /**
+     * 清空缓存，通过 SCAN 分批删除 Redis 中该缓存名称下的所有 key
+     */
+    @Override
+    public void clear() {
+        cacheService.deleteByPrefix(name + KEY_SEPARATOR);
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        if (userValue == null) {
+            if (!isAllowNullValues()) {
+                throw new IllegalArgumentException("Cache '" + name + "' is configured to not allow null values but null was provided");
+            }
+            return NULL_VALUE;
+        }
+        return userValue;
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        if (isAllowNullValues() && NULL_VALUE.equals(storeValue)) {
+            return null;
+        }
+        return storeValue;
+    }
+
+    private String createKey(Object key) {
+        return name + KEY_SEPARATOR + key;
+    }
+}
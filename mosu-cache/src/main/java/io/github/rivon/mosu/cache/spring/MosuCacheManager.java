@@ -0,0 +1,61 @@
+package io.github.rivon.mosu.cache.spring;
+
+import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 基于二级缓存的 Spring CacheManager
+ * <p>
+ * 使 {@code @Cacheable}、{@code @CachePut}、{@code @CacheEvict} 等注解使用本地缓存与 Redis 组成的二级缓存。
+ * 每个缓存名称对应 mosu.cache.regions 中的同名区域，从而拥有各自的本地缓存容量与过期时间；
+ * 没有同名区域时，dynamic 为 true 则使用默认区域，否则返回 null。
+ * </p>
+ */
+public class MosuCacheManager implements CacheManager {
+
+    private final LocalCacheAndRedissonService cacheService; // 默认区域的二级缓存服务
+    private final boolean allowNullValues;                   // 是否允许缓存 null
+    private final boolean dynamic;                           // 是否允许使用未配置区域的缓存名称
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param cacheService    默认区域的二级缓存服务
+     * @param allowNullValues 是否允许缓存 null
+     * @param dynamic         是否允许使用未配置区域的缓存名称
+     */
+    public MosuCacheManager(LocalCacheAndRedissonService cacheService, boolean allowNullValues, boolean dynamic) {
+        this.cacheService = cacheService;
+        this.allowNullValues = allowNullValues;
+        this.dynamic = dynamic;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        if (!cacheService.hasRegion(name) && !dynamic) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private Cache createCache(String name) {
+        LocalCacheAndRedissonService service = cacheService.hasRegion(name) ? cacheService.region(name) : cacheService;
+        return new MosuCache(name, service, allowNullValues);
+    }
+}
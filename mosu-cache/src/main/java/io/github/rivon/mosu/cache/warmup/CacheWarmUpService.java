@@ -0,0 +1,441 @@
+package io.github.rivon.mosu.cache.warmup;
+
+import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import io.github.rivon.mosu.cache.service.ValueWithTtl;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地缓存预热服务
+ * <p>
+ * 关闭时将每个区域访问频率最高的 snapshotSize 个缓存项编码后顺序写入本地快照文件，启动时读取快照，
+ * 按 loadThreads 个线程并行解码并放回对应区域，超过 snapshotMaxAge 的快照不再加载，避免恢复过旧的数据。
+ * 快照先写入临时文件再原子替换，进程在写入中途退出不会留下损坏的快照。
+ * </p>
+ * <p>
+ * 配置了 preloadPrefixes 时，启动时通过 SCAN 遍历 Redis 中这些前缀的 key，每 scanBatchSize 个 key 通过一次 MGET
+ * 读取并放入默认区域，每个前缀最多预加载 preloadMaxKeys 个 key。前缀下应只有对象类型的 key，
+ * 集合类型的 key 会使 MGET 失败，该前缀的预加载随之停止。
+ * </p>
+ * <p>
+ * 快照文件格式：魔数、版本号、创建时间，随后是若干条记录，每条记录依次为区域名称、key、剩余过期时间与编码后的值，
+ * 字符串与值均以 4 字节长度开头，最后以长度 -1 结束。
+ * </p>
+ */
+@Slf4j
+public class CacheWarmUpService {
+
+    private static final int MAGIC = 0x4D4F5355; // "MOSU"
+    private static final int VERSION = 2; // 版本 1 的快照未记录区域过期策略下的剩余存活时间
+    private static final int END = -1;
+    private static final int BUFFER_SIZE = 64 * 1024; // 写入快照时的缓冲区大小
+
+    private final LocalCacheService localCacheService; // 默认区域，命名区域通过 region(name) 获取
+    private final Codec codec; // 快照中缓存值的编解码器
+    @Setter
+    private RedissionService redissionService; // 从 Redis 预加载时使用，为 null 时不预加载
+    @Setter
+    private Path snapshotPath; // 快照文件路径，为 null 时不保存也不加载快照
+    @Setter
+    private int snapshotSize = 10000; // 每个区域写入快照的最大缓存项数
+    @Setter
+    private long snapshotMaxAge = 3600000; // 快照的最长有效期 单位毫秒
+    @Setter
+    private int loadThreads = Runtime.getRuntime().availableProcessors(); // 加载快照的并行线程数
+    @Setter
+    private List<String> preloadPrefixes = Collections.emptyList(); // 启动时从 Redis 预加载的 key 前缀
+    @Setter
+    private int preloadMaxKeys = 10000; // 每个前缀最多预加载的 key 数
+    @Setter
+    private int scanBatchSize = 500; // 每次 SCAN 与 MGET 的 key 数
+
+    // 指标
+    private volatile long warmUpNanos = -1; // 最近一次预热耗时，-1 表示尚未预热 单位纳秒
+    private final LongAdder snapshotLoadedCount = new LongAdder(); // 从快照恢复的缓存项数
+    private final LongAdder preloadedCount = new LongAdder();      // 从 Redis 预加载的缓存项数
+    private volatile long snapshotSavedCount;                      // 最近一次写入快照的缓存项数
+
+    /**
+     * 构造函数
+     *
+     * @param localCacheService 本地缓存服务
+     * @param codec             快照中缓存值的编解码器
+     */
+    public CacheWarmUpService(LocalCacheService localCacheService, Codec codec) {
+        this.localCacheService = localCacheService;
+        this.codec = codec;
+    }
+
+    /**
+     * 执行预热：先加载快照，再从 Redis 预加载配置的前缀，应在应用开始接收请求之前调用
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+        int loaded = loadSnapshot();
+        int preloaded = preload();
+        warmUpNanos = System.nanoTime() - start;
+        log.info("Local cache warmed up in {} ms, {} entries from snapshot, {} entries from Redis",
+                TimeUnit.NANOSECONDS.toMillis(warmUpNanos), loaded, preloaded);
+    }
+
+    /**
+     * 容器关闭时调用，保存本地缓存快照
+     */
+    public void shutdown() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            saveSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to save local cache snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * 将各区域访问频率最高的缓存项写入快照文件
+     *
+     * @return 写入的缓存项数
+     * @throws IOException 写入失败
+     */
+    public int saveSnapshot() throws IOException {
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+            for (LocalCacheService region : regions()) {
+                byte[] regionName = region.getName().getBytes(StandardCharsets.UTF_8);
+                for (Map.Entry<String, ValueWithTtl<Object>> entry : region.getHottest(snapshotSize).entrySet()) {
+                    byte[] value = encode(entry.getKey(), entry.getValue().getValue());
+                    if (value == null) {
+                        continue;
+                    }
+                    byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    write(channel, buffer, regionName);
+                    write(channel, buffer, key);
+                    ensure(channel, buffer, Long.BYTES);
+                    buffer.putLong(entry.getValue().getTtl());
+                    write(channel, buffer, value);
+                    count++;
+                }
+            }
+            ensure(channel, buffer, Integer.BYTES);
+            buffer.putInt(END);
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotSavedCount = count;
+        log.info("Saved {} local cache entries to snapshot {}", count, snapshotPath);
+        return count;
+    }
+
+    /**
+     * 加载快照文件，快照不存在、已过期或已损坏时不加载
+     *
+     * @return 恢复的缓存项数
+     */
+    public int loadSnapshot() {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath)) {
+            return 0;
+        }
+        List<SnapshotEntry> entries;
+        long age;
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES * 2 + Long.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignored local cache snapshot {} with unknown format", snapshotPath);
+                return 0;
+            }
+            age = System.currentTimeMillis() - buffer.getLong();
+            if (age > snapshotMaxAge) {
+                log.info("Ignored local cache snapshot {} created {} ms ago", snapshotPath, age);
+                return 0;
+            }
+            entries = read(buffer);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read local cache snapshot {}", snapshotPath, e);
+            return 0;
+        }
+        int loaded = restore(entries, age);
+        snapshotLoadedCount.add(loaded);
+        return loaded;
+    }
+
+    /**
+     * 通过 SCAN 从 Redis 预加载配置的前缀到默认区域
+     *
+     * @return 预加载的缓存项数
+     */
+    public int preload() {
+        if (redissionService == null || preloadPrefixes.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        for (String prefix : preloadPrefixes) {
+            int loaded = 0;
+            List<String> batch = new ArrayList<>(scanBatchSize);
+            try {
+                for (String key : redissionService.scanKeys(prefix, scanBatchSize)) {
+                    batch.add(key);
+                    if (batch.size() >= scanBatchSize || loaded + batch.size() >= preloadMaxKeys) {
+                        loaded += preloadBatch(batch);
+                        batch = new ArrayList<>(scanBatchSize);
+                        if (loaded >= preloadMaxKeys) {
+                            break;
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    loaded += preloadBatch(batch);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to preload local cache from Redis prefix {}", prefix, e);
+            }
+            total += loaded;
+        }
+        preloadedCount.add(total);
+        return total;
+    }
+
+    /**
+     * @return 最近一次预热耗时，尚未预热时为 -1 单位纳秒
+     */
+    public long getWarmUpNanos() {
+        return warmUpNanos;
+    }
+
+    /**
+     * @return 从快照恢复的缓存项数
+     */
+    public long getSnapshotLoadedCount() {
+        return snapshotLoadedCount.sum();
+    }
+
+    /**
+     * @return 从 Redis 预加载的缓存项数
+     */
+    public long getPreloadedCount() {
+        return preloadedCount.sum();
+    }
+
+    /**
+     * @return 最近一次写入快照的缓存项数
+     */
+    public long getSnapshotSavedCount() {
+        return snapshotSavedCount;
+    }
+
+    private int preloadBatch(List<String> keys) {
+        Map<String, Object> values = redissionService.getObjects(keys);
+        values.values().removeIf(LocalCacheAndRedissonService.NULL_VALUE::equals); // 空结果占位值不预加载
+        localCacheService.putAll(values);
+        return values.size();
+    }
+
+    private List<LocalCacheService> regions() {
+        List<LocalCacheService> regions = new ArrayList<>();
+        regions.add(localCacheService);
+        regions.addAll(localCacheService.getRegions().values());
+        return regions;
+    }
+
+    /**
+     * 顺序解析快照记录，只复制字节，解码留给加载线程并行执行
+     */
+    private List<SnapshotEntry> read(ByteBuffer buffer) {
+        List<SnapshotEntry> entries = new ArrayList<>();
+        Map<String, String> regionNames = new HashMap<>(); // 复用相同的区域名称字符串
+        int length;
+        while ((length = buffer.getInt()) != END) {
+            String region = regionNames.computeIfAbsent(new String(bytes(buffer, length), StandardCharsets.UTF_8), name -> name);
+            String key = new String(bytes(buffer, buffer.getInt()), StandardCharsets.UTF_8);
+            long ttl = buffer.getLong();
+            byte[] value = bytes(buffer, buffer.getInt());
+            entries.add(new SnapshotEntry(region, key, ttl, value));
+        }
+        return entries;
+    }
+
+    /**
+     * 按加载线程数将记录分片，并行解码后放回对应区域
+     */
+    private int restore(List<SnapshotEntry> entries, long age) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        int threads = Math.max(1, Math.min(loadThreads, entries.size()));
+        int chunk = (entries.size() + threads - 1) / threads;
+        AtomicInteger restored = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mosu-cache-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int from = 0; from < entries.size(); from += chunk) {
+                List<SnapshotEntry> part = entries.subList(from, Math.min(entries.size(), from + chunk));
+                futures.add(executor.submit(() -> part.forEach(entry -> {
+                    if (restore(entry, age)) {
+                        restored.incrementAndGet();
+                    }
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to restore local cache snapshot {}", snapshotPath, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return restored.get();
+    }
+
+    private boolean restore(SnapshotEntry entry, long age) {
+        if (!LocalCacheService.DEFAULT_REGION.equals(entry.region) && !localCacheService.getRegions().containsKey(entry.region)) {
+            return false; // 快照中的区域已不再配置
+        }
+        long ttl = entry.ttl; // 保存快照时的剩余存活时间，-1 表示不过期
+        if (ttl > 0) {
+            ttl -= age; // 扣除快照保存至今经过的时间
+            if (ttl <= 0) {
+                return false;
+            }
+        }
+        Object value = decode(entry);
+        if (value == null) {
+            return false;
+        }
+        LocalCacheService region = localCacheService.region(entry.region);
+        if (ttl > 0) {
+            region.put(entry.key, value, ttl, TimeUnit.MILLISECONDS);
+        } else {
+            region.put(entry.key, value);
+        }
+        return true;
+    }
+
+    private byte[] encode(String key, Object value) {
+        try {
+            ByteBuf buf = codec.getValueEncoder().encode(value);
+            try {
+                byte[] bytes = new byte[buf.readableBytes()];
+                buf.readBytes(bytes);
+                return bytes;
+            } finally {
+                buf.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Skipped local cache entry {} that cannot be encoded", key, e);
+            return null;
+        }
+    }
+
+    private Object decode(SnapshotEntry entry) {
+        ByteBuf buf = Unpooled.wrappedBuffer(entry.value);
+        try {
+            return codec.getValueDecoder().decode(buf, new State());
+        } catch (IOException | RuntimeException e) {
+            log.debug("Skipped snapshot entry {} that cannot be decoded", entry.key, e);
+            return null;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 写入带长度前缀的字节，超过缓冲区大小的值直接写入文件
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        ensure(channel, buffer, Integer.BYTES);
+        buffer.putInt(bytes.length);
+        if (bytes.length > buffer.capacity()) {
+            flush(channel, buffer);
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        ensure(channel, buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * 缓冲区剩余空间不足时先写入文件
+     */
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 快照中的一条记录，值保持编码后的字节
+     */
+    private static final class SnapshotEntry {
+
+        private final String region;
+        private final String key;
+        private final long ttl;
+        private final byte[] value;
+
+        private SnapshotEntry(String region, String key, long ttl, byte[] value) {
+            this.region = region;
+            this.key = key;
+            this.ttl = ttl;
+            this.value = value;
+        }
+    }
+}
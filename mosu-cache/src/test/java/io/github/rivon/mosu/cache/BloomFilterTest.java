@@ -0,0 +1,202 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.service.BloomFilterService;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBitSet;
+import org.redisson.api.RBitSetAsync;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.RedissonPromise;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试布隆过滤器的位置计算、位图加载与写入失败重试，使用内存中模拟的 RedissonClient，不依赖 Redis，可直接运行
+ */
+public class BloomFilterTest {
+
+    // 测试写入 Redis 的位置：每个 key 写入 hashIterations 个位置，都在位数组范围内，不同实例计算结果一致
+    @Test
+    public void testIndexes() {
+        FakeRedis redis = new FakeRedis();
+        BloomFilterService filter = new BloomFilterService(redis::client, "bloom", 1000, 0.01, 0);
+        assertTrue(filter.start());
+        assertEquals(9586, filter.getSize());
+        assertEquals(7, filter.getHashIterations());
+
+        filter.add("user:1");
+        List<Long> first = new ArrayList<>(redis.written);
+        assertEquals(filter.getHashIterations(), first.size());
+        first.forEach(index -> assertTrue(index >= 0 && index < filter.getSize()));
+
+        FakeRedis other = new FakeRedis();
+        BloomFilterService otherFilter = new BloomFilterService(other::client, "bloom", 1000, 0.01, 0);
+        assertTrue(otherFilter.start());
+        otherFilter.add("user:1");
+        assertEquals(first, other.written);
+
+        filter.add("user:1"); // 已确认写入的 key 不再写入
+        assertEquals(first, redis.written);
+    }
+
+    // 测试从 Redis 加载位图：Redis 位图第 i 位位于第 i / 8 个字节的最高位起第 i % 8 位
+    @Test
+    public void testReload() {
+        FakeRedis writer = new FakeRedis();
+        BloomFilterService source = new BloomFilterService(writer::client, "bloom", 1000, 0.01, 0);
+        assertTrue(source.start());
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add("user:" + i);
+        }
+        source.addAll(keys);
+
+        // 按 SETBIT 的位序构造位图
+        FakeRedis reader = new FakeRedis();
+        for (long index : writer.written) {
+            reader.setBit(index);
+        }
+        BloomFilterService filter = new BloomFilterService(reader::client, "bloom", 1000, 0.01, 0);
+        assertTrue(filter.start());
+        assertTrue(reader.written.isEmpty());
+        keys.forEach(key -> assertTrue(filter.mightContain(key)));
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (filter.mightContain("order:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50);
+    }
+
+    // 测试 Redis 不可达时启动失败，不做过滤，添加的 key 只置位本地镜像并等待启动后写入
+    @Test
+    public void testNotStarted() {
+        BloomFilterService filter = new BloomFilterService(() -> {
+            throw new IllegalStateException("Redis is unreachable");
+        }, "bloom", 1000, 0.01, 0);
+        assertFalse(filter.isStarted());
+        assertTrue(filter.mightContain("user:1"));
+        assertTrue(filter.mightContain("user:2"));
+
+        filter.addAll(List.of("user:1", "user:2"));
+        assertEquals(2, filter.getUnconfirmedCount());
+        assertFalse(filter.isStarted());
+    }
+
+    // 测试写入 Redis 失败的 key 保持未确认状态，再次添加时重新写入，成功后确认
+    @Test
+    public void testFailedBatch() {
+        FakeRedis redis = new FakeRedis();
+        BloomFilterService filter = new BloomFilterService(redis::client, "bloom", 1000, 0.01, 0);
+        assertTrue(filter.start());
+
+        redis.failBatch = true;
+        filter.addAll(List.of("user:1", "user:2", "user:3"));
+        assertEquals(3, filter.getUnconfirmedCount());
+        assertTrue(filter.mightContain("user:1")); // 本地镜像已置位
+
+        redis.failBatch = false;
+        redis.written.clear();
+        filter.addAll(List.of("user:1", "user:2", "user:3"));
+        assertEquals(0, filter.getUnconfirmedCount());
+        assertEquals(3 * filter.getHashIterations(), redis.written.size());
+    }
+
+    /**
+     * 内存中的 Redis 位图，只实现布隆过滤器用到的方法
+     */
+    private static class FakeRedis {
+
+        private byte[] bitmap = new byte[0];
+        private final List<Long> written = new ArrayList<>(); // 批量写入成功的位置
+        private boolean failBatch; // 批量写入是否失败
+
+        private void setBit(long index) {
+            int offset = (int) (index >>> 3);
+            if (offset >= bitmap.length) {
+                byte[] grown = new byte[offset + 1];
+                System.arraycopy(bitmap, 0, grown, 0, bitmap.length);
+                bitmap = grown;
+            }
+            bitmap[offset] |= (byte) (0x80 >>> (index & 7));
+        }
+
+        private RedissonClient client() {
+            return proxy(RedissonClient.class, (method, args) -> {
+                switch (method) {
+                    case "getTopic":
+                        return topic();
+                    case "getBitSet":
+                        return proxy(RBitSet.class, (bitSetMethod, bitSetArgs) ->
+                                "toByteArray".equals(bitSetMethod) ? bitmap.clone() : null);
+                    case "createBatch":
+                        return batch();
+                    default:
+                        throw new UnsupportedOperationException(method);
+                }
+            });
+        }
+
+        private RTopic topic() {
+            return proxy(RTopic.class, (method, args) -> {
+                switch (method) {
+                    case "addListener":
+                        return 1;
+                    case "publishAsync":
+                        return RedissonPromise.newSucceededFuture(0L);
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        private RBatch batch() {
+            List<Long> order = new ArrayList<>();
+            RBitSetAsync bitSet = proxy(RBitSetAsync.class, (method, args) -> {
+                if ("setAsync".equals(method) && args.length == 1) {
+                    order.add((Long) args[0]);
+                    return RedissonPromise.newSucceededFuture(false);
+                }
+                throw new UnsupportedOperationException(method);
+            });
+            return proxy(RBatch.class, (method, args) -> {
+                switch (method) {
+                    case "getBitSet":
+                        return bitSet;
+                    case "executeAsync":
+                        if (failBatch) {
+                            return RedissonPromise.newFailedFuture(new IllegalStateException("batch failed"));
+                        }
+                        order.forEach(this::setBit);
+                        written.addAll(order);
+                        return RedissonPromise.newSucceededFuture(null);
+                    default:
+                        throw new UnsupportedOperationException(method);
+                }
+            });
+        }
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(BloomFilterTest.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return "equals".equals(method.getName()) ? proxy == args[0] : method.invoke(handler, args);
+            }
+            return handler.invoke(method.getName(), args == null ? new Object[0] : args);
+        });
+    }
+}
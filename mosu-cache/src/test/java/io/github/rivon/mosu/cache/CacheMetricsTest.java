@@ -0,0 +1,61 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.metrics.MicrometerRedisCommandListener;
+import io.github.rivon.mosu.cache.metrics.MosuCacheMetrics;
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 测试缓存指标注册，不依赖 Redis，可直接运行
+ */
+public class CacheMetricsTest {
+
+    // 测试每个区域分别注册本地缓存命中率指标
+    @Test
+    public void testLocalCacheMetrics() {
+        LocalCacheService localCacheService = newLocalCache(LocalCacheService.DEFAULT_REGION);
+        localCacheService.addRegion(newLocalCache("config"));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MosuCacheMetrics(localCacheService).bindTo(registry);
+
+        localCacheService.put("metricKey", "value");
+        localCacheService.get("metricKey");
+        localCacheService.region("config").get("missingKey");
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "default", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "config", "result", "miss").functionCounter().count());
+    }
+
+    // 测试 Redis 命令耗时按操作类型记录
+    @Test
+    public void testRedisCommandMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerRedisCommandListener listener = new MicrometerRedisCommandListener(registry, true);
+        listener.onCommand(RedissionService.OP_GET, TimeUnit.MILLISECONDS.toNanos(2), true);
+        listener.onCommand(RedissionService.OP_GET, TimeUnit.MILLISECONDS.toNanos(4), true);
+        listener.onCommand(RedissionService.OP_MSET, TimeUnit.MILLISECONDS.toNanos(8), false);
+
+        Timer getTimer = registry.get("mosu.cache.redis.commands").tags("operation", "get", "outcome", "success").timer();
+        assertEquals(2, getTimer.count());
+        assertEquals(6, getTimer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertNotNull(registry.get("mosu.cache.redis.commands").tags("operation", "mset", "outcome", "failure").timer());
+    }
+
+    private LocalCacheService newLocalCache(String name) {
+        LocalCacheService localCacheService = new LocalCacheService();
+        localCacheService.setName(name);
+        localCacheService.setMaximumSize(100);
+        localCacheService.setTimeUnit(TimeUnit.SECONDS);
+        localCacheService.initCache();
+        return localCacheService;
+    }
+}
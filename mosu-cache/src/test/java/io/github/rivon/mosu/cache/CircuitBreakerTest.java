@@ -0,0 +1,86 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.breaker.RedisCircuitBreaker;
+import io.github.rivon.mosu.cache.metrics.MosuCacheMetrics;
+import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import io.github.rivon.mosu.cache.service.ServedFrom;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试 Redis 熔断与降级读取，不依赖 Redis，可直接运行
+ */
+public class CircuitBreakerTest {
+
+    // 测试连续失败后熔断，熔断结束后只放行一个探测请求，探测成功后恢复
+    @Test
+    public void testStateTransitions() throws InterruptedException {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(2, 100, 100);
+        breaker.onError(new IllegalStateException("timeout"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(200)); // 过慢的调用同样计为失败
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertTrue(breaker.allowRequest()); // 探测请求
+        assertFalse(breaker.allowRequest());
+        breaker.onError(new IllegalStateException("timeout"));
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState()); // 探测失败，重新熔断
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertEquals(2, breaker.getOpenCount());
+        assertEquals(1, breaker.getSlowCallCount());
+    }
+
+    // 测试 Redis 不可用时返回本地缓存中逻辑过期的旧值，熔断期间不再访问 Redis
+    @Test
+    public void testServeStale() throws InterruptedException {
+        LocalCacheService localCache = new LocalCacheService();
+        localCache.setMaximumSize(100);
+        localCache.setExpireAfterWrite(100);
+        localCache.setStaleTtl(60000);
+        localCache.setTimeUnit(TimeUnit.MILLISECONDS);
+        localCache.initCache();
+
+        // 未设置 RedissonClient，每次访问 Redis 都会失败
+        LocalCacheAndRedissonService service = new LocalCacheAndRedissonService(localCache, new RedissionService());
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, 0, 60000);
+        service.setCircuitBreaker(breaker);
+
+        localCache.put("staleKey", "staleValue");
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertNull(localCache.get("staleKey")); // 已逻辑过期
+
+        assertEquals("staleValue", service.get("staleKey")); // Redis 读取失败，返回旧值并熔断
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("staleValue", service.get("staleKey")); // 熔断期间直接返回旧值
+        assertEquals("staleValue", service.get("staleKey", key -> "loaded"));
+        assertEquals("loaded", service.get("missingKey", key -> "loaded")); // 没有旧值时直接调用加载函数
+        assertNull(service.get("unknownKey"));
+
+        assertEquals(3, service.getServedCount(ServedFrom.STALE));
+        assertEquals(3, breaker.getRejectedCount());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MosuCacheMetrics metrics = new MosuCacheMetrics(localCache);
+        metrics.setLocalCacheAndRedissonService(service);
+        metrics.setCircuitBreaker(breaker);
+        metrics.bindTo(registry);
+        assertEquals(1, registry.get("mosu.cache.breaker.state").tag("state", "open").gauge().value());
+        assertEquals(3, registry.get("mosu.cache.served").tags("region", "default", "source", "stale").functionCounter().count());
+    }
+}
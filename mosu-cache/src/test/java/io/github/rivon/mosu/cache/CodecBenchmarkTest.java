@@ -0,0 +1,199 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.codec.CodecFactory;
+import io.github.rivon.mosu.cache.codec.CompressionCodec;
+import io.github.rivon.mosu.cache.codec.CompressionStats;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 编解码器基准测试
+ * <p>
+ * 对比各编解码器对典型对象的编码、解码吞吐量和序列化后的体积，不依赖 Redis，可直接运行。
+ * 结果仅用于横向比较，精确测量请使用 JMH。吞吐量测试属于 benchmark 分组，默认构建中不运行，
+ * 需要时使用 {@code mvn test -Dtest.excludedGroups= -Dgroups=benchmark} 运行；编解码正确性测试在常规构建中运行。
+ * </p>
+ */
+public class CodecBenchmarkTest {
+
+    private static final String[] CODECS = {"json", "smile", "kryo", "marshalling", "jdk"};
+    private static final int WARMUP_ITERATIONS = 5000;
+    private static final int MEASURE_ITERATIONS = 20000;
+
+    // 测试各编解码器对典型对象编码后再解码的结果与原对象一致
+    @Test
+    public void roundTrip() throws IOException {
+        for (Object value : List.of(product(1), productList(50))) {
+            for (String name : CODECS) {
+                Codec codec = CodecFactory.create(name);
+                assertEquals(value, decode(codec, encode(codec, value)), name);
+            }
+        }
+    }
+
+    // 测试各编解码器的吞吐量与体积
+    @Test
+    @Tag("benchmark")
+    public void benchmark() throws IOException {
+        Map<String, Object> samples = new HashMap<>();
+        samples.put("product", product(1));
+        samples.put("productList", productList(50));
+
+        System.out.printf("%-12s %-12s %10s %14s %14s%n", "sample", "codec", "bytes", "encode ops/s", "decode ops/s");
+        for (Map.Entry<String, Object> sample : samples.entrySet()) {
+            for (String name : CODECS) {
+                Codec codec = CodecFactory.create(name);
+                Object value = sample.getValue();
+                int size = encode(codec, value).length;
+                int iterations = sample.getKey().equals("productList") ? MEASURE_ITERATIONS / 20 : MEASURE_ITERATIONS;
+                double encodeOps = measureEncode(codec, value, iterations);
+                double decodeOps = measureDecode(codec, encode(codec, value), iterations);
+                System.out.printf("%-12s %-12s %10d %14.0f %14.0f%n", sample.getKey(), name, size, encodeOps, decodeOps);
+            }
+        }
+    }
+
+    // 测试按阈值压缩：小值不压缩，大值压缩后体积减小，且都能正确解码
+    @Test
+    public void compression() throws IOException {
+        CompressionStats stats = new CompressionStats();
+        Codec codec = new CompressionCodec(CodecFactory.create("json"), 1024, stats);
+
+        Product small = product(1);
+        byte[] smallBytes = encode(codec, small);
+        assertEquals(CompressionCodec.RAW, smallBytes[0]);
+        assertEquals(small, decode(codec, smallBytes));
+
+        ArrayList<Product> large = productList(200);
+        byte[] largeBytes = encode(codec, large);
+        assertEquals(CompressionCodec.LZ4, largeBytes[0]);
+        assertTrue(largeBytes.length < encode(CodecFactory.create("json"), large).length);
+        assertEquals(large, decode(codec, largeBytes));
+
+        // 未带标记字节的旧数据按未压缩处理
+        assertEquals(small, decode(codec, encode(CodecFactory.create("json"), small)));
+
+        assertEquals(1, stats.getCompressedCount());
+        assertTrue(stats.getRatio() < 1);
+    }
+
+    // 测试二进制编解码器无法区分存量数据，只有不兼容存量数据时才能启用压缩
+    @Test
+    public void compressionOverBinaryCodec() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompressionCodec(CodecFactory.create("kryo"), 1024, new CompressionStats()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompressionCodec(CodecFactory.create("smile"), 1024, new CompressionStats(), true));
+
+        Codec codec = new CompressionCodec(CodecFactory.create("kryo"), 1024, new CompressionStats(), false);
+        Product small = product(1);
+        assertEquals(small, decode(codec, encode(codec, small)));
+        ArrayList<Product> large = productList(200);
+        assertEquals(large, decode(codec, encode(codec, large)));
+        // 没有标记字节的值解码失败，不会被当作存量数据错误解析
+        byte[] unmarked = encode(CodecFactory.create("kryo"), small);
+        assertThrows(IOException.class, () -> decode(codec, unmarked));
+    }
+
+    private double measureEncode(Codec codec, Object value, int iterations) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS / 10; i++) {
+            encode(codec, value);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            encode(codec, value);
+        }
+        return iterations * 1_000_000_000d / (System.nanoTime() - start);
+    }
+
+    private double measureDecode(Codec codec, byte[] bytes, int iterations) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS / 10; i++) {
+            decode(codec, bytes);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            decode(codec, bytes);
+        }
+        return iterations * 1_000_000_000d / (System.nanoTime() - start);
+    }
+
+    private byte[] encode(Codec codec, Object value) throws IOException {
+        ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return bytes;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private Object decode(Codec codec, byte[] bytes) throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+        try {
+            return codec.getValueDecoder().decode(buf, new State());
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setDescription("A representative cached product aggregate used to compare codec throughput");
+        product.setPrice(new BigDecimal("199.90"));
+        product.setStock(1000 + id);
+        product.setOnSale(true);
+        List<String> tags = new ArrayList<>();
+        tags.add("electronics");
+        tags.add("bestseller");
+        tags.add("free-shipping");
+        product.setTags(tags);
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("color", "black");
+        attributes.put("weight", "1.2kg");
+        attributes.put("warranty", "2 years");
+        product.setAttributes(attributes);
+        return product;
+    }
+
+    private static ArrayList<Product> productList(int size) {
+        ArrayList<Product> products = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Product implements Serializable {
+        private long id;
+        private String name;
+        private String description;
+        private BigDecimal price;
+        private long stock;
+        private boolean onSale;
+        private List<String> tags;
+        private Map<String, String> attributes;
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.hotkey.HotKey;
+import io.github.rivon.mosu.cache.hotkey.HotKeyDetector;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试热点 key 探测，不依赖 Redis，可直接运行
+ */
+public class HotKeyDetectorTest {
+
+    // 测试在大量冷 key 中找出少数热点 key
+    @Test
+    public void testTopKeys() {
+        HotKeyDetector detector = new HotKeyDetector(100, 1, 1000, 60000, 0, 0);
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextInt(10) < 3) {
+                detector.record("hot" + random.nextInt(3)); // 30% 的读取集中在 3 个 key 上
+            } else {
+                detector.record("cold" + random.nextInt(50000));
+            }
+        }
+
+        List<HotKey> topKeys = detector.getTopKeys(3);
+        Set<String> names = topKeys.stream().map(HotKey::getKey).collect(Collectors.toSet());
+        assertEquals(Set.of("hot0", "hot1", "hot2"), names);
+        assertTrue(topKeys.get(0).getCount() - topKeys.get(0).getError() >= 1000);
+        assertEquals(3, detector.getHotKeyCount());
+    }
+
+    // 测试热点 key 提升到本地缓存，写入时清除
+    @Test
+    public void testPromotion() {
+        HotKeyDetector detector = new HotKeyDetector(100, 1, 10, 60000, 60000, 100);
+        for (int i = 0; i < 9; i++) {
+            detector.onRead("promoteKey", "value");
+        }
+        assertNull(detector.getPromoted("promoteKey")); // 未达到阈值
+
+        detector.onRead("promoteKey", "value");
+        assertEquals("value", detector.getPromoted("promoteKey"));
+        assertEquals(1, detector.getPromotedHitCount());
+
+        detector.invalidate("promoteKey");
+        assertNull(detector.getPromoted("promoteKey"));
+    }
+
+    // 测试异步批量读取同样直接返回已提升的热点 key，全部命中时不访问 Redis
+    @Test
+    public void testPromotedAsyncBatch() throws Exception {
+        HotKeyDetector detector = new HotKeyDetector(100, 1, 1, 60000, 60000, 100);
+        detector.onRead("hotA", "a");
+        detector.onRead("hotB", "b");
+        RedissionService redissionService = new RedissionService(); // 未设置 RedissonClient，访问 Redis 会失败
+        redissionService.setHotKeyDetector(detector);
+
+        Map<String, Object> values = redissionService.getObjectsAsync(List.of("hotA", "hotB")).toCompletableFuture().get();
+        assertEquals(Map.of("hotA", "a", "hotB", "b"), values);
+        assertEquals(2, detector.getPromotedHitCount());
+    }
+}
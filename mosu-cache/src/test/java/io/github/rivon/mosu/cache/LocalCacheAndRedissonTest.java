@@ -3,6 +3,7 @@ package io.github.rivon.mosu.cache;
 import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
 import io.github.rivon.mosu.cache.service.LocalCacheService;
 import io.github.rivon.mosu.cache.service.RedissionService;
+import io.github.rivon.mosu.cache.service.WriteBehindService;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,8 +11,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * 测试二级缓存服务
@@ -97,4 +109,184 @@ public class LocalCacheAndRedissonTest {
         assertEquals(value, cachedValue); // 校验 Redis 是否存储成功
     }
 
+    // 测试删除缓存，本地缓存与 Redis 均被清除
+    @Test
+    public void testDelete() {
+        String key = "testDeleteKey";
+        String value = "testDeleteValue";
+
+        localCacheAndRedissonService.put(key, value);
+
+        // 删除后本地缓存与 Redis 中都不应再有数据
+        localCacheAndRedissonService.delete(key);
+        assertNull(localCacheService.get(key));
+        assertNull(redissionService.getObject(key));
+    }
+
+    // 测试并发未命中时 loader 只执行一次
+    @Test
+    public void testGetWithLoader() throws Exception {
+        String key = "testLoaderKey";
+        localCacheAndRedissonService.delete(key);
+
+        AtomicInteger loadCount = new AtomicInteger();
+        int threads = 20;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    start.await();
+                    return localCacheAndRedissonService.get(key, k -> {
+                        loadCount.incrementAndGet();
+                        return "loadedValue";
+                    });
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // 在测试线程上检查每个调用方的结果，工作线程中的异常由 get 抛出
+        for (Future<Object> result : results) {
+            assertEquals("loadedValue", result.get());
+        }
+        // 只有一个调用方执行了加载，结果已写入 Redis
+        assertEquals(1, loadCount.get());
+        assertEquals("loadedValue", redissionService.getObject(key));
+    }
+
+    // 测试批量存入与获取，部分命中本地缓存，其余从 Redis 获取
+    @Test
+    public void testPutAllAndGetAll() {
+        localCacheAndRedissonService.putAll(Map.of("batchKey1", "value1", "batchKey2", "value2"));
+
+        // 清除其中一个 key 的本地缓存，使其只能从 Redis 获取
+        localCacheService.invalidate("batchKey2");
+
+        Map<String, Object> values = localCacheAndRedissonService.getAll(List.of("batchKey1", "batchKey2", "batchKey3"));
+        assertEquals(2, values.size());
+        assertEquals("value1", values.get("batchKey1"));
+        assertEquals("value2", values.get("batchKey2"));
+
+        // Redis 中获取的数据已回填本地缓存
+        assertEquals("value2", localCacheService.get("batchKey2"));
+    }
+
+    // 测试异步存入与获取
+    @Test
+    public void testPutAndGetAsync() throws Exception {
+        String key = "testAsyncKey";
+        String value = "testAsyncValue";
+
+        localCacheAndRedissonService.putAsync(key, value).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(value, redissionService.getObject(key));
+
+        // 清除本地缓存后异步获取，应从 Redis 获取并回填本地缓存
+        localCacheService.invalidate(key);
+        Object cachedValue = localCacheAndRedissonService.getAsync(key).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(value, cachedValue);
+        assertEquals(value, localCacheService.get(key));
+    }
+
+    // 测试延迟写入：同一 key 的多次写入被合并，关闭时剩余数据全部写入 Redis
+    @Test
+    public void testWriteBehind() {
+        String key = "testWriteBehindKey";
+        redissionService.delete(key);
+
+        WriteBehindService writeBehindService = new WriteBehindService(redissionService, 60000, 500, 10000, 50);
+        writeBehindService.enqueue(key, "value1");
+        writeBehindService.enqueue(key, "value2");
+
+        // 刷新前数据只在队列中
+        assertEquals(1, writeBehindService.getQueueDepth());
+        assertEquals(1, writeBehindService.getCoalescedCount());
+        assertEquals("value2", writeBehindService.getPending(key));
+
+        writeBehindService.shutdown();
+        assertEquals(0, writeBehindService.getQueueDepth());
+        assertEquals("value2", redissionService.getObject(key));
+    }
+
+    // 测试命名区域：区域之间本地缓存互不影响，统计信息分别记录
+    @Test
+    public void testRegion() {
+        String key = "testRegionKey";
+        LocalCacheAndRedissonService configRegion = localCacheAndRedissonService.region("config");
+        configRegion.delete(key);
+        localCacheAndRedissonService.delete(key);
+
+        configRegion.put(key, "configValue");
+        assertEquals("configValue", configRegion.get(key));
+        assertEquals("configValue", localCacheService.region("config").get(key));
+        assertNull(localCacheService.get(key)); // 默认区域的本地缓存不受影响
+        assertEquals(2, localCacheService.getRegionStats().get("config").hitCount());
+
+        // 配置了 Redis 过期时间的区域
+        assertTrue(redissionService.getRedissonClient().getBucket(key).remainTimeToLive() > 0);
+        configRegion.delete(key);
+    }
+
+    // 测试空结果缓存：加载函数返回 null 后，过期前不再调用加载函数，写入后可以读取到新值
+    @Test
+    public void testNegativeCache() {
+        String key = "testNegativeKey";
+        localCacheAndRedissonService.delete(key);
+
+        AtomicInteger loadCount = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertNull(localCacheAndRedissonService.get(key, k -> {
+                loadCount.incrementAndGet();
+                return null;
+            }));
+        }
+        assertEquals(1, loadCount.get());
+        assertEquals(LocalCacheAndRedissonService.NULL_VALUE, redissionService.getObject(key));
+        assertTrue(redissionService.getRedissonClient().getBucket(key).remainTimeToLive() > 0);
+        assertNull(localCacheAndRedissonService.get(key));
+
+        localCacheAndRedissonService.put(key, "value");
+        assertEquals("value", localCacheAndRedissonService.get(key));
+        localCacheAndRedissonService.delete(key);
+    }
+
+    // 测试本地缓存异步刷新：共用的本地缓存中只写入本地的数据刷新后保留，独占时 Redis 中已删除的数据刷新后移除
+    @Test
+    public void testRefreshKeepsLocalOnlyEntries() throws InterruptedException {
+        LocalCacheService localCache = new LocalCacheService();
+        localCache.setMaximumSize(100);
+        localCache.setExpireAfterWrite(60000);
+        localCache.setRefreshAfterWrite(100);
+        localCache.setTimeUnit(TimeUnit.MILLISECONDS);
+        localCache.initCache();
+        LocalCacheAndRedissonService service = new LocalCacheAndRedissonService(localCache, redissionService);
+
+        String localKey = "testRefreshLocalOnly";
+        String sharedKey = "testRefreshShared";
+        redissionService.delete(localKey);
+        localCache.put(localKey, "local");
+        service.put(sharedKey, "shared");
+        redissionService.delete(sharedKey); // 模拟其他节点删除，没有失效消息
+        TimeUnit.MILLISECONDS.sleep(200);
+        localCache.get(localKey); // 触发异步刷新
+        localCache.get(sharedKey);
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals("local", localCache.get(localKey));
+        assertEquals("shared", localCache.get(sharedKey));
+
+        service.setLocalCacheExclusive(true);
+        service.put(sharedKey, "shared");
+        redissionService.delete(sharedKey);
+        TimeUnit.MILLISECONDS.sleep(200);
+        localCache.get(sharedKey);
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertNull(localCache.get(sharedKey));
+    }
+
 }
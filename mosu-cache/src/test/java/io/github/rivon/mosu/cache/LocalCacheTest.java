@@ -1,6 +1,7 @@
 package io.github.rivon.mosu.cache;
 
 import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.TtlPolicy;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,8 +10,10 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -141,4 +144,89 @@ public class LocalCacheTest {
         // 确认类型转换正确
         assertEquals(value, cachedValue);
     }
+
+    // 测试异步刷新：到达刷新时间后先返回旧值，后台刷新完成后返回新值
+    @Test
+    public void testRefreshAfterWrite() throws InterruptedException {
+        LocalCacheService refreshCache = new LocalCacheService();
+        refreshCache.setMaximumSize(100);
+        refreshCache.setExpireAfterWrite(60);
+        refreshCache.setExpireAfterAccess(60);
+        refreshCache.setRefreshAfterWrite(1);
+        refreshCache.setTimeUnit(TimeUnit.SECONDS);
+        refreshCache.initCache();
+
+        AtomicInteger version = new AtomicInteger();
+        refreshCache.setCacheLoader(key -> "value" + version.incrementAndGet());
+        refreshCache.put("refreshKey", "value0");
+
+        TimeUnit.MILLISECONDS.sleep(1100);
+
+        // 超过刷新时间后的第一次读取仍返回旧值，同时触发后台刷新
+        assertEquals("value0", refreshCache.get("refreshKey"));
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals("value1", refreshCache.get("refreshKey"));
+    }
+
+    // 测试按内存预算淘汰：写入超过预算的数据后，估算占用不超过预算
+    @Test
+    public void testMaximumWeight() {
+        LocalCacheService weightedCache = new LocalCacheService();
+        weightedCache.setMaximumWeight(1); // 1MB
+        weightedCache.setTimeUnit(TimeUnit.SECONDS);
+        weightedCache.initCache();
+
+        String value = "x".repeat(10 * 1024); // 每项约 20KB
+        for (int i = 0; i < 200; i++) {
+            weightedCache.put("weightKey" + i, value);
+        }
+        weightedCache.getCache().cleanUp();
+
+        assertTrue(weightedCache.getWeightedSize() <= 1024 * 1024);
+        assertTrue(weightedCache.estimatedSize() < 200);
+        assertTrue(weightedCache.getStats().evictionWeight() > 0);
+    }
+
+    // 测试单独设置过期时间的缓存项：早于区域统一过期时间过期，通过模板方法写入时同样生效
+    @Test
+    public void testPutWithTtl() throws InterruptedException {
+        LocalCacheService ttlCache = new LocalCacheService();
+        ttlCache.setMaximumSize(100);
+        ttlCache.setExpireAfterWrite(60);
+        ttlCache.setTimeUnit(TimeUnit.SECONDS);
+        ttlCache.initCache();
+
+        ttlCache.put("ttlKey", "ttlValue", 200, TimeUnit.MILLISECONDS);
+        ttlCache.put("plainKey", "plainValue");
+        ttlCache.put("loadedKey", key -> LocalCacheService.expiring("loadedValue", 200, TimeUnit.MILLISECONDS));
+        assertEquals("ttlValue", ttlCache.get("ttlKey"));
+        assertEquals("loadedValue", ttlCache.get("loadedKey"));
+        assertEquals(3, ttlCache.getAllPresent(List.of("ttlKey", "plainKey", "loadedKey")).size());
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertNull(ttlCache.get("ttlKey"));
+        assertNull(ttlCache.get("loadedKey"));
+        assertEquals("plainValue", ttlCache.get("plainKey"));
+        assertEquals("reloaded", ttlCache.put("loadedKey", key -> "reloaded"));
+    }
+
+    // 测试过期时间抖动：实际过期时间落在 [ttl, ttl * (1 + jitter)] 区间内
+    @Test
+    public void testTtlJitter() {
+        TtlPolicy ttlPolicy = new TtlPolicy();
+        assertEquals(60000, ttlPolicy.apply(60, TimeUnit.SECONDS));
+        assertEquals(0, ttlPolicy.apply(0, TimeUnit.SECONDS));
+
+        ttlPolicy.setJitter(0.2);
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long ttl = ttlPolicy.apply(60, TimeUnit.SECONDS);
+            min = Math.min(min, ttl);
+            max = Math.max(max, ttl);
+        }
+        assertTrue(min >= 60000);
+        assertTrue(max <= 72000);
+        assertTrue(max > min); // 同一批写入的过期时间不完全相同
+    }
 }
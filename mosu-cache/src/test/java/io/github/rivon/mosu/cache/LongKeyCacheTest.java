@@ -0,0 +1,142 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.breaker.RedisCircuitBreaker;
+import io.github.rivon.mosu.cache.service.LocalCacheAndRedissonService;
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.LongKeyCacheAndRedissonService;
+import io.github.rivon.mosu.cache.service.LongKeyCacheService;
+import io.github.rivon.mosu.cache.service.LongKeyEncoder;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试 long 类型 key 的本地缓存，不依赖 Redis，可直接运行
+ */
+public class LongKeyCacheTest {
+
+    // 测试随机放入与删除后的结果与 HashMap 一致，删除后移的缓存项仍能找到
+    @Test
+    public void testPutAndRemove() {
+        LongKeyCacheService cache = new LongKeyCacheService(4096, 0, TimeUnit.SECONDS, 4);
+        Map<Long, Object> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(1000) * 1024L; // 等间隔的 ID
+            if (random.nextInt(3) == 0) {
+                cache.invalidate(key);
+                expected.remove(key);
+            } else {
+                cache.put(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+        }
+        for (long key = 0; key < 1000 * 1024L; key += 1024) {
+            assertEquals(expected.get(key), cache.get(key));
+        }
+        assertEquals(expected.size(), cache.size());
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1024));
+    }
+
+    // 测试写满后按 CLOCK 淘汰，被读取过的缓存项得到第二次机会
+    @Test
+    public void testClockEviction() {
+        LongKeyCacheService cache = new LongKeyCacheService(100, 0, TimeUnit.SECONDS, 1);
+        for (long id = 0; id < 100; id++) {
+            cache.put(id, id);
+        }
+        for (long id = 0; id < 10; id++) {
+            assertEquals(id, cache.get(id));
+        }
+        for (long id = 100; id < 150; id++) {
+            cache.put(id, id);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(50, cache.getEvictionCount());
+        for (long id = 0; id < 10; id++) {
+            assertEquals(id, cache.get(id)); // 被读取过，未被淘汰
+        }
+        assertEquals(149L, cache.get(149));
+    }
+
+    // 测试过期后读取按未命中处理，过期的旧值仍可通过 getStale 读取
+    @Test
+    public void testExpire() throws InterruptedException {
+        LongKeyCacheService cache = new LongKeyCacheService(100, 60, TimeUnit.SECONDS);
+        cache.put(1, "short", 50, TimeUnit.MILLISECONDS);
+        cache.put(2, "long");
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertNull(cache.get(1));
+        assertEquals("short", cache.getStale(1));
+        assertEquals("long", cache.get(2));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    // 测试二级缓存：Redis 熔断时调用加载函数并返回本地旧值，key 编码器只匹配数值 ID
+    @Test
+    public void testTwoLevel() {
+        LocalCacheService localCacheService = new LocalCacheService();
+        LocalCacheAndRedissonService multilevel = new LocalCacheAndRedissonService(localCacheService, new RedissionService());
+        multilevel.setCircuitBreaker(new RedisCircuitBreaker(1, 0, 60000)); // 未设置 RedissonClient，访问 Redis 都会失败
+        LongKeyCacheAndRedissonService users = multilevel.longKeyCache(LongKeyEncoder.prefix("user:"),
+                new LongKeyCacheService(100, 50, TimeUnit.MILLISECONDS));
+
+        assertEquals("user-1", users.get(1, id -> "user-" + id));
+        assertEquals("user-1", users.get(1)); // 本地缓存命中
+        assertNull(users.get(2));
+        assertEquals("user-2", users.get(2, id -> "user-" + id));
+
+        LongKeyEncoder encoder = LongKeyEncoder.prefix("user:");
+        assertEquals("user:1001", encoder.encode(1001));
+        assertTrue(encoder.matches("user:-5"));
+        assertEquals(-5, encoder.decode("user:-5"));
+        assertFalse(encoder.matches("user:profile"));
+        assertFalse(encoder.matches("order:1"));
+    }
+
+    // 测试同一节点中字符串 key 与 long key 两种方式写入或删除时互相失效本地缓存，不依赖失效消息
+    @Test
+    public void testSameNodeInvalidation() {
+        LocalCacheService localCacheService = new LocalCacheService();
+        localCacheService.setMaximumSize(100);
+        localCacheService.setTimeUnit(TimeUnit.SECONDS);
+        localCacheService.initCache();
+        LocalCacheAndRedissonService multilevel = new LocalCacheAndRedissonService(localCacheService, new RedissionService());
+        multilevel.setRedisEnable(false); // 只使用本地缓存，也没有失效同步服务
+        LongKeyCacheAndRedissonService users = multilevel.longKeyCache(LongKeyEncoder.prefix("user:"),
+                new LongKeyCacheService(100, 0, TimeUnit.SECONDS));
+
+        users.put(1, "old");
+        multilevel.put("user:1", "new");
+        assertNull(users.get(1)); // 字符串 key 写入后 long key 的旧值失效
+
+        users.put(1, "newer");
+        assertNull(localCacheService.get("user:1")); // long key 写入后字符串 key 的旧值失效
+        assertEquals("newer", users.get(1));
+
+        multilevel.delete("user:1");
+        assertNull(users.get(1));
+
+        users.put(2, "value");
+        multilevel.putAll(Map.of("user:2", "batch"));
+        assertNull(users.get(2));
+
+        users.put(3, "value");
+        multilevel.deleteByPrefix("user:");
+        assertNull(users.get(3));
+    }
+}
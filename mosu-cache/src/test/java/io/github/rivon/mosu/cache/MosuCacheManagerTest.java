@@ -0,0 +1,105 @@
+package io.github.rivon.mosu.cache;
+
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 测试基于二级缓存的 Spring CacheManager
+ */
+@WebAppConfiguration
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class MosuCacheManagerTest {
+
+    @Resource
+    private CacheManager cacheManager;
+
+    // 测试放入、获取与删除
+    @Test
+    public void testPutAndEvict() {
+        Cache cache = cacheManager.getCache("config");
+        assertNotNull(cache);
+        cache.put("name", "mosu");
+        assertEquals("mosu", cache.get("name", String.class));
+
+        cache.evict("name");
+        assertNull(cache.get("name"));
+    }
+
+    // 测试缓存 null 值：null 被缓存后不再调用加载函数
+    @Test
+    public void testNullValue() {
+        Cache cache = cacheManager.getCache("product");
+        cache.evict("missing");
+        AtomicInteger loadCount = new AtomicInteger();
+        assertNull(cache.get("missing", () -> {
+            loadCount.incrementAndGet();
+            return null;
+        }));
+        assertNotNull(cache.get("missing")); // 命中缓存的 null
+        assertNull(cache.get("missing").get());
+        cache.get("missing", loadCount::incrementAndGet);
+        assertEquals(1, loadCount.get());
+        cache.evict("missing");
+    }
+
+    // 测试 sync 加载：并发请求只调用一次加载函数
+    @Test
+    public void testSyncLoad() throws InterruptedException {
+        Cache cache = cacheManager.getCache("product");
+        cache.evict("syncKey");
+        AtomicInteger loadCount = new AtomicInteger();
+        int threads = 20;
+        CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    cache.get("syncKey", () -> {
+                        loadCount.incrementAndGet();
+                        TimeUnit.MILLISECONDS.sleep(200);
+                        return "loaded";
+                    });
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(1, loadCount.get());
+        assertEquals("loaded", cache.get("syncKey", String.class));
+    }
+
+    // 测试清空缓存：只删除该缓存名称下的数据
+    @Test
+    public void testClear() {
+        Cache users = cacheManager.getCache("users");
+        Cache orders = cacheManager.getCache("orders");
+        for (int i = 0; i < 10; i++) {
+            users.put(i, "user" + i);
+        }
+        orders.put(1, "order1");
+
+        users.clear();
+        assertNull(users.get(1));
+        assertEquals("order1", orders.get(1, String.class));
+        orders.clear();
+    }
+}
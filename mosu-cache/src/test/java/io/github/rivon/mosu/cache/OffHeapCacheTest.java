@@ -0,0 +1,130 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.OffHeapCacheService;
+import io.github.rivon.mosu.cache.service.ValueWithTtl;
+import org.junit.jupiter.api.Test;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试堆外缓存服务，不依赖 Redis，可直接运行
+ */
+public class OffHeapCacheTest {
+
+    // 测试放入、获取与移除
+    @Test
+    public void testPutAndGet() {
+        OffHeapCacheService offHeap = new OffHeapCacheService(1024 * 1024, 64 * 1024, 4, new JsonJacksonCodec());
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", "mosu");
+        offHeap.put("offHeapKey", map);
+        assertEquals(map, offHeap.get("offHeapKey"));
+
+        // 覆盖写入后读取新值
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3));
+        offHeap.put("offHeapKey", list);
+        assertEquals(list, offHeap.get("offHeapKey"));
+        assertEquals(1, offHeap.estimatedSize());
+
+        offHeap.invalidate("offHeapKey");
+        assertNull(offHeap.get("offHeapKey"));
+        assertEquals(0, offHeap.getLiveBytes());
+        offHeap.shutdown();
+    }
+
+    // 测试超过预算时按段淘汰，占用的直接内存不超过预算
+    @Test
+    public void testEviction() {
+        OffHeapCacheService offHeap = new OffHeapCacheService(256 * 1024, 16 * 1024, 2, new JsonJacksonCodec());
+        String value = "x".repeat(1000);
+        for (int i = 0; i < 1000; i++) {
+            offHeap.put("evictKey" + i, value);
+        }
+
+        assertTrue(offHeap.getAllocatedBytes() <= offHeap.getCapacity());
+        assertTrue(offHeap.getEvictionCount() > 0);
+        assertEquals(value, offHeap.get("evictKey999")); // 最近写入的数据仍然存在
+        assertNull(offHeap.get("evictKey0"));
+
+        // 超过段大小的值不缓存
+        offHeap.put("largeKey", "x".repeat(32 * 1024));
+        assertNull(offHeap.get("largeKey"));
+        assertEquals(1, offHeap.getRejectedCount());
+        offHeap.shutdown();
+    }
+
+    // 测试本地缓存因容量不足淘汰的数据降级存入堆外缓存
+    @Test
+    public void testDemotion() {
+        OffHeapCacheService offHeap = new OffHeapCacheService(1024 * 1024, 64 * 1024, 4, new JsonJacksonCodec());
+        LocalCacheService localCache = new LocalCacheService();
+        localCache.setMaximumSize(10);
+        localCache.setTimeUnit(TimeUnit.SECONDS);
+        localCache.initCache();
+        localCache.setEvictionListener(offHeap::put);
+
+        for (int i = 0; i < 100; i++) {
+            localCache.put("demoteKey" + i, "value" + i);
+        }
+        awaitEviction(localCache);
+
+        assertTrue(offHeap.estimatedSize() >= 90);
+        for (int i = 0; i < 100; i++) {
+            Object value = localCache.get("demoteKey" + i);
+            assertEquals("value" + i, value != null ? value : offHeap.get("demoteKey" + i));
+        }
+        offHeap.shutdown();
+    }
+
+    // 测试降级到堆外缓存的缓存项保留在本地缓存中的剩余存活时间，到期后不再返回
+    @Test
+    public void testDemotionKeepsTtl() throws InterruptedException {
+        OffHeapCacheService offHeap = new OffHeapCacheService(1024 * 1024, 64 * 1024, 4, new JsonJacksonCodec());
+        LocalCacheService localCache = new LocalCacheService();
+        localCache.setMaximumSize(1);
+        localCache.setExpireAfterWrite(60);
+        localCache.setTimeUnit(TimeUnit.SECONDS);
+        localCache.initCache();
+        localCache.setEvictionListener(offHeap::put);
+
+        localCache.put("ttlKey", "value", 200, TimeUnit.MILLISECONDS);
+        localCache.put("regionKey", "value");
+        localCache.put("otherKey", "value");
+        awaitEviction(localCache);
+
+        // 单独设置了过期时间的缓存项带着剩余时间降级，其余的按区域的写入过期时间
+        ValueWithTtl<Object> demoted = offHeap.getWithTtl("ttlKey");
+        if (demoted != null) {
+            assertTrue(demoted.getTtl() > 0 && demoted.getTtl() <= 200);
+        }
+        ValueWithTtl<Object> regionDemoted = offHeap.getWithTtl("regionKey");
+        assertTrue(demoted != null || regionDemoted != null); // 容量为 1，三个缓存项中两个被淘汰
+        if (regionDemoted != null) {
+            assertTrue(regionDemoted.getTtl() > 0 && regionDemoted.getTtl() <= 60000);
+        }
+
+        offHeap.put("expiringKey", "value", 100);
+        Thread.sleep(150);
+        assertNull(offHeap.get("expiringKey"));
+        offHeap.shutdown();
+    }
+
+    /**
+     * 等待本地缓存在公共线程池中异步执行的维护任务结束，再执行一次淘汰，使降级结果确定
+     */
+    private static void awaitEviction(LocalCacheService localCache) {
+        ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+        localCache.getCache().cleanUp();
+    }
+}
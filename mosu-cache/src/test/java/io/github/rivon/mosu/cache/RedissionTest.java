@@ -1,5 +1,8 @@
 package io.github.rivon.mosu.cache;
 
+import io.github.rivon.mosu.cache.lock.LockTemplate;
+import io.github.rivon.mosu.cache.service.BloomFilterService;
+import io.github.rivon.mosu.cache.service.LocalCachedMapService;
 import io.github.rivon.mosu.cache.service.RedissionService;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Test;
@@ -9,6 +12,15 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * 测试Redission缓存服务
@@ -23,6 +35,10 @@ public class RedissionTest {
 
     @Resource
     private RedissionService redissionService;
+    @Resource
+    private LockTemplate lockTemplate;
+    @Resource
+    private LocalCachedMapService localCachedMapService;
 
     // 测试字符串缓存
     @Test
@@ -157,4 +173,147 @@ public class RedissionTest {
         boolean isLockAcquired = redissionService.tryLock("lockKeyWithTimeout", 10, 30); // 10 秒等待，30 秒锁过期
         System.out.println("Lock acquired with timeout: " + isLockAcquired);
     }
+
+    // 测试锁模板：同一 JVM 内的并发线程在本地排队，回调互斥执行且锁总能释放
+    @Test
+    public void testLockTemplate() throws Exception {
+        int threads = 10;
+        int[] counter = new int[1];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    lockTemplate.execute("lockTemplateKey", () -> counter[0]++);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(threads, counter[0]);
+
+        // 持有锁期间同一 key 的另一个线程在本地排队
+        long queued = lockTemplate.getLocalQueuedCount();
+        Future<String> waiter = lockTemplate.execute("lockTemplateKey", () -> {
+            Future<String> future = executor.submit(() -> lockTemplate.execute("lockTemplateKey", () -> "waited"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (lockTemplate.getLocalQueuedCount() == queued && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return future;
+        });
+        assertTrue(lockTemplate.getLocalQueuedCount() > queued);
+        assertEquals("waited", waiter.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals("done", lockTemplate.executeMulti(List.of("lockTemplateKey", "lockTemplateKey2"), () -> "done"));
+        assertEquals("read", lockTemplate.executeRead("lockTemplateRwKey", () -> "read"));
+
+        // 只有一个分段时所有 key 落在同一分段，读锁回调中嵌套获取其他 key 的写锁不会等待到超时
+        LockTemplate singleStripe = new LockTemplate(redissionService, 1);
+        assertEquals("nested", singleStripe.executeRead("lockTemplateOuter", 1, -1, TimeUnit.SECONDS,
+                () -> singleStripe.executeWrite("lockTemplateInner", 1, -1, TimeUnit.SECONDS, () -> "nested")));
+        assertEquals("nested", singleStripe.executeRead("lockTemplateOuter", 1, -1, TimeUnit.SECONDS,
+                () -> singleStripe.execute("lockTemplateInner", 1, -1, TimeUnit.SECONDS, () -> "nested")));
+    }
+
+    // 测试分页流式读取 List、Set、Map 与按字段读取 Map
+    @Test
+    public void testStream() {
+        String listKey = "streamList";
+        String setKey = "streamSet";
+        String mapKey = "streamMap";
+        redissionService.delete(listKey);
+        redissionService.delete(setKey);
+        redissionService.delete(mapKey);
+
+        List<Integer> numbers = new ArrayList<>();
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 2500; i++) {
+            numbers.add(i);
+            map.put("field" + i, i);
+        }
+        redissionService.setList(listKey, numbers);
+        redissionService.setSet(setKey, new HashSet<>(numbers));
+        redissionService.setMap(mapKey, map);
+
+        assertEquals(numbers, redissionService.streamList(listKey, Integer.class, 1000).collect(Collectors.toList()));
+        assertEquals(2500, redissionService.streamSet(setKey, Integer.class, 100).distinct().count());
+        assertEquals(map.keySet(), redissionService.streamMap(mapKey, String.class, Integer.class, 100)
+                .map(Map.Entry::getKey).collect(Collectors.toSet()));
+
+        Map<String, Integer> fields = redissionService.getMapFields(mapKey, Set.of("field1", "field2", "missing"), String.class, Integer.class);
+        assertEquals(Map.of("field1", 1, "field2", 2), fields);
+    }
+
+    // 测试替换集合：替换后只包含新数据，且设置了过期时间
+    @Test
+    public void testReplace() {
+        String listKey = "replaceList";
+        redissionService.delete(listKey);
+        redissionService.setList(listKey, List.of("old1", "old2"));
+
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            values.add("new" + i);
+        }
+        redissionService.replaceList(listKey, values, 60);
+        assertEquals(values, redissionService.getList(listKey, String.class));
+        assertTrue(redissionService.getRedissonClient().getList(listKey).remainTimeToLive() > 0);
+
+        String mapKey = "replaceMap";
+        redissionService.setMap(mapKey, Map.of("old", 0));
+        redissionService.replaceMap(mapKey, Map.of("a", 1, "b", 2));
+        assertEquals(Map.of("a", 1, "b", 2), redissionService.getMap(mapKey, String.class, Integer.class));
+        assertEquals(-1, redissionService.getRedissonClient().getMap(mapKey).remainTimeToLive());
+    }
+
+    // 测试本地缓存 Map：读取过的字段保存在本地副本中，写入后读取到新值
+    @Test
+    public void testLocalCachedMap() {
+        String key = "featureFlags";
+        localCachedMapService.putAll(key, Map.of("newCheckout", true, "darkMode", false));
+        assertEquals(Boolean.TRUE, localCachedMapService.get(key, "newCheckout"));
+        assertTrue(localCachedMapService.getCachedSize(key) > 0);
+
+        localCachedMapService.put(key, "newCheckout", false);
+        assertEquals(Boolean.FALSE, localCachedMapService.get(key, "newCheckout"));
+        assertEquals(Map.of("darkMode", false), localCachedMapService.getAll(key, Set.of("darkMode", "missing")));
+        localCachedMapService.remove(key, "newCheckout", "darkMode");
+    }
+
+    // 测试布隆过滤器：一个节点通过 SETBIT 写入的位，另一个节点从 Redis 加载位图后能按相同的位序读取
+    @Test
+    public void testBloomFilterReload() throws InterruptedException {
+        String name = "testBloomFilter";
+        redissionService.getRedissonClient().getBitSet(name).delete();
+        BloomFilterService writer = new BloomFilterService(redissionService.getRedissonClient(), name, 1000, 0.01, 0);
+        BloomFilterService reader = new BloomFilterService(redissionService.getRedissonClient(), name, 1000, 0.01, 0);
+        try {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                keys.add("user:" + i);
+            }
+            writer.addAll(keys);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (writer.getUnconfirmedCount() > 0 && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertEquals(0, writer.getUnconfirmedCount());
+
+            reader.reload();
+            keys.forEach(key -> assertTrue(reader.mightContain(key)));
+            assertTrue(redissionService.getRedissonClient().getBitSet(name).cardinality() > 0);
+        } finally {
+            writer.shutdown();
+            reader.shutdown();
+            redissionService.getRedissonClient().getBitSet(name).delete();
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.config.CacheAutoConfiguration;
+import io.github.rivon.mosu.cache.config.CacheProperties;
+import io.github.rivon.mosu.cache.config.RedissonConfigFactory;
+import io.github.rivon.mosu.cache.config.RedissonConnectionWarmUp;
+import io.github.rivon.mosu.cache.service.BloomFilterService;
+import io.github.rivon.mosu.cache.service.CacheSyncService;
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.service.RedissionService;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.config.ClusterServersConfig;
+import org.redisson.config.Config;
+import org.redisson.config.MasterSlaveServersConfig;
+import org.redisson.config.ReadMode;
+import org.redisson.config.SentinelServersConfig;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试按部署方式创建 Redisson 配置，不依赖 Redis，可直接运行
+ */
+public class RedissonConfigTest {
+
+    // 测试集群模式：种子节点补全协议，从从节点读取
+    @Test
+    public void testCluster() {
+        CacheProperties.Redission redission = new CacheProperties.Redission();
+        redission.setMode("cluster");
+        redission.setNodes(List.of("127.0.0.1:7000", "redis://127.0.0.1:7001"));
+        redission.setReadMode("slave");
+        redission.getPool().setSlaveConnectionPoolSize(32);
+
+        Config config = RedissonConfigFactory.create(redission, new JsonJacksonCodec());
+        assertTrue(config.isClusterConfig());
+        ClusterServersConfig cluster = config.useClusterServers();
+        assertEquals(List.of("redis://127.0.0.1:7000", "redis://127.0.0.1:7001"), cluster.getNodeAddresses());
+        assertEquals(ReadMode.SLAVE, cluster.getReadMode());
+        assertEquals(32, cluster.getSlaveConnectionPoolSize());
+    }
+
+    // 测试哨兵模式与主从模式
+    @Test
+    public void testSentinelAndMasterSlave() {
+        CacheProperties.Redission redission = new CacheProperties.Redission();
+        redission.setMode("sentinel");
+        redission.setNodes(List.of("127.0.0.1:26379"));
+        redission.setSsl(true);
+        assertThrows(IllegalArgumentException.class, () -> RedissonConfigFactory.create(redission, new JsonJacksonCodec()));
+
+        redission.setMasterName("mymaster");
+        Config config = RedissonConfigFactory.create(redission, new JsonJacksonCodec());
+        assertTrue(config.isSentinelConfig());
+        SentinelServersConfig sentinel = config.useSentinelServers();
+        assertEquals("mymaster", sentinel.getMasterName());
+        assertEquals(List.of("rediss://127.0.0.1:26379"), sentinel.getSentinelAddresses());
+
+        redission.setMode("master-slave");
+        redission.setSsl(false);
+        redission.setHost("127.0.0.1");
+        redission.setPort(6379);
+        redission.setNodes(List.of("127.0.0.1:6380"));
+        redission.setReadMode("MASTER_SLAVE");
+        MasterSlaveServersConfig masterSlave = RedissonConfigFactory.create(redission, new JsonJacksonCodec()).useMasterSlaveServers();
+        assertEquals("redis://127.0.0.1:6379", masterSlave.getMasterAddress());
+        assertEquals(ReadMode.MASTER_SLAVE, masterSlave.getReadMode());
+        assertTrue(masterSlave.getSlaveAddresses().contains("redis://127.0.0.1:6380"));
+
+        redission.setMode("unknown");
+        assertThrows(IllegalArgumentException.class, () -> RedissonConfigFactory.create(redission, new JsonJacksonCodec()));
+    }
+
+    // 测试管道选项
+    @Test
+    public void testBatchOptions() {
+        CacheProperties.Pipeline pipeline = new CacheProperties.Pipeline();
+        pipeline.setResponseTimeout(2000);
+        pipeline.setSkipResult(true);
+        BatchOptions options = RedissonConfigFactory.createBatchOptions(pipeline);
+        assertEquals(2000, options.getResponseTimeout());
+        assertTrue(options.isSkipResult());
+        assertEquals(BatchOptions.ExecutionMode.IN_MEMORY, options.getExecutionMode());
+
+        // 批量读取需要执行结果，不受 skipResult 影响
+        BatchOptions readOptions = RedissonConfigFactory.createReadBatchOptions(pipeline);
+        assertEquals(2000, readOptions.getResponseTimeout());
+        assertFalse(readOptions.isSkipResult());
+    }
+
+    // 测试本地缓存 Map 选项
+    @Test
+    public void testLocalCachedMapOptions() {
+        CacheProperties.LocalCachedMap localCachedMap = new CacheProperties.LocalCachedMap();
+        localCachedMap.setCacheSize(500);
+        localCachedMap.setEvictionPolicy("lfu");
+        localCachedMap.setSyncStrategy("update");
+        localCachedMap.setReconnectionStrategy("load");
+        localCachedMap.setTimeToLive(60000);
+        LocalCachedMapOptions<Object, Object> options = RedissonConfigFactory.createLocalCachedMapOptions(localCachedMap);
+        assertEquals(500, options.getCacheSize());
+        assertEquals(LocalCachedMapOptions.EvictionPolicy.LFU, options.getEvictionPolicy());
+        assertEquals(LocalCachedMapOptions.SyncStrategy.UPDATE, options.getSyncStrategy());
+        assertEquals(LocalCachedMapOptions.ReconnectionStrategy.LOAD, options.getReconnectionStrategy());
+        assertEquals(60000, options.getTimeToLiveInMillis());
+    }
+
+    // 测试未启用 Redis 时不创建 RedissonClient，只使用本地缓存
+    @Test
+    public void testRedisDisabled() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(CacheAutoConfiguration.class))
+                .withPropertyValues("mosu.cache.redission.enable=false", "mosu.cache.multilevel.sync-enable=true")
+                .run(context -> {
+                    assertTrue(context.getBeansOfType(RedissonClient.class).isEmpty());
+                    assertTrue(context.getBeansOfType(RedissonConnectionWarmUp.class).isEmpty());
+                    assertNull(context.getBean(RedissionService.class).getRedissonClient());
+                    assertNotNull(context.getBean(LocalCacheService.class));
+                });
+    }
+
+    // 测试启用 Redis 时延迟创建 RedissonClient，Redis 不可达也不影响启动
+    @Test
+    public void testLazyRedissonClient() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(CacheAutoConfiguration.class))
+                .withPropertyValues("mosu.cache.redission.enable=true", "mosu.cache.redission.host=127.0.0.1",
+                        "mosu.cache.redission.port=1", "mosu.cache.redission.connect-warm-up=false",
+                        "mosu.cache.multilevel.sync-enable=true", "mosu.cache.multilevel.bloom-filter.enable=true")
+                .run(context -> {
+                    assertTrue(context.getStartupFailure() == null);
+                    assertNotNull(context.getBean(RedissionService.class).getRedissonClient()); // 延迟解析的代理
+                    assertTrue(context.getBeansOfType(RedissonConnectionWarmUp.class).isEmpty());
+                    // 失效同步与布隆过滤器在创建时不访问 Redis，布隆过滤器加载之前不做过滤
+                    assertFalse(context.getBean(CacheSyncService.class).isStarted());
+                    assertFalse(context.getBean(BloomFilterService.class).isStarted());
+                });
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.service.RedissionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试替换集合时使用的临时 key 与原 key 位于同一槽位，不依赖 Redis，可直接运行
+ */
+public class TempKeyTest {
+
+    // 测试槽位计算与 Redis 的 CLUSTER KEYSLOT 一致：只对非空 hash tag 哈希，空 hash tag 时对整个 key 哈希
+    @Test
+    public void testSlot() {
+        assertEquals(12182, RedissionService.slot("foo"));
+        assertEquals(5061, RedissionService.slot("bar"));
+        assertEquals(RedissionService.slot("user1000"), RedissionService.slot("{user1000}.following"));
+        assertEquals(RedissionService.slot("user1000"), RedissionService.slot("foo{user1000}{bar}"));
+        assertNotEquals(RedissionService.slot("abc"), RedissionService.slot("{}abc"));
+    }
+
+    // 测试各种形式的 key 生成的临时 key 都与原 key 位于同一槽位，且每次生成的临时 key 不同
+    @Test
+    public void testTempKeySlot() {
+        List<String> keys = List.of("list:1", "{order}:items", "a{b", "{}abc", "abc{}", "a}b", "}{x}", "{{}}", "{}");
+        for (String key : keys) {
+            String tempKey = RedissionService.tempKey(key);
+            assertEquals(RedissionService.slot(key), RedissionService.slot(tempKey), key + " -> " + tempKey);
+            assertTrue(tempKey.contains(":tmp:"));
+            assertNotEquals(tempKey, RedissionService.tempKey(key));
+        }
+    }
+}
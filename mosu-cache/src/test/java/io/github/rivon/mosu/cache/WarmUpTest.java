@@ -0,0 +1,108 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.service.LocalCacheService;
+import io.github.rivon.mosu.cache.warmup.CacheWarmUpService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试本地缓存快照的保存与加载，不依赖 Redis，可直接运行
+ */
+public class WarmUpTest {
+
+    @TempDir
+    Path tempDir;
+
+    // 测试关闭时保存快照，重启后从快照恢复各区域的缓存项与剩余过期时间
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        Path snapshot = tempDir.resolve("mosu-cache.snapshot");
+        LocalCacheService before = newCache();
+        before.put("user:1", "Tom");
+        before.put("user:2", "Jerry");
+        before.put("expired", "value", 1, TimeUnit.MILLISECONDS);
+        before.region("config").put("config:1", "on", 60, TimeUnit.SECONDS);
+        TimeUnit.MILLISECONDS.sleep(10);
+
+        CacheWarmUpService saver = new CacheWarmUpService(before, new JsonJacksonCodec());
+        saver.setSnapshotPath(snapshot);
+        saver.shutdown();
+        assertEquals(3, saver.getSnapshotSavedCount()); // 已过期的缓存项不写入快照
+
+        LocalCacheService after = newCache();
+        CacheWarmUpService loader = new CacheWarmUpService(after, new JsonJacksonCodec());
+        loader.setSnapshotPath(snapshot);
+        loader.setLoadThreads(2);
+        loader.warmUp();
+        assertEquals("Tom", after.get("user:1"));
+        assertEquals("Jerry", after.get("user:2"));
+        assertNull(after.get("expired"));
+        assertEquals("on", after.region("config").get("config:1"));
+        assertEquals(3, loader.getSnapshotLoadedCount());
+        assertTrue(loader.getWarmUpNanos() >= 0);
+
+        // 超过最长有效期的快照不加载
+        LocalCacheService stale = newCache();
+        CacheWarmUpService staleLoader = new CacheWarmUpService(stale, new JsonJacksonCodec());
+        staleLoader.setSnapshotPath(snapshot);
+        staleLoader.setSnapshotMaxAge(0);
+        assertEquals(0, staleLoader.loadSnapshot());
+        assertNull(stale.get("user:1"));
+    }
+
+    // 测试未单独设置过期时间的缓存项按区域过期策略保存剩余存活时间，恢复后不会重新获得完整的过期时间
+    @Test
+    public void testSnapshotKeepsRegionTtl() throws Exception {
+        Path snapshot = tempDir.resolve("mosu-cache.snapshot");
+        LocalCacheService before = newShortLivedCache();
+        before.put("short:1", "value");
+        TimeUnit.MILLISECONDS.sleep(1200);
+        long ttl = before.getHottest(10).get("short:1").getTtl();
+        assertTrue(ttl > 0 && ttl <= 800);
+
+        CacheWarmUpService saver = new CacheWarmUpService(before, new JsonJacksonCodec());
+        saver.setSnapshotPath(snapshot);
+        saver.shutdown();
+
+        LocalCacheService after = newShortLivedCache();
+        CacheWarmUpService loader = new CacheWarmUpService(after, new JsonJacksonCodec());
+        loader.setSnapshotPath(snapshot);
+        assertEquals(1, loader.loadSnapshot());
+        assertEquals("value", after.get("short:1"));
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertNull(after.get("short:1")); // 首次写入后已超过 2 秒，按完整过期时间恢复时仍会存在
+    }
+
+    private static LocalCacheService newShortLivedCache() {
+        LocalCacheService localCache = new LocalCacheService();
+        localCache.setMaximumSize(100);
+        localCache.setExpireAfterWrite(2000);
+        localCache.setTimeUnit(TimeUnit.MILLISECONDS);
+        localCache.initCache();
+        return localCache;
+    }
+
+    private static LocalCacheService newCache() {
+        LocalCacheService localCache = new LocalCacheService();
+        localCache.setMaximumSize(100);
+        localCache.setExpireAfterWrite(60);
+        localCache.setTimeUnit(TimeUnit.SECONDS);
+        localCache.initCache();
+        LocalCacheService region = new LocalCacheService();
+        region.setName("config");
+        region.setMaximumSize(100);
+        region.setExpireAfterWrite(60);
+        region.setTimeUnit(TimeUnit.SECONDS);
+        region.initCache();
+        localCache.addRegion(region);
+        return localCache;
+    }
+}
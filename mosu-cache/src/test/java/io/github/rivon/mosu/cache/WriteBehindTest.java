@@ -0,0 +1,108 @@
+package io.github.rivon.mosu.cache;
+
+import io.github.rivon.mosu.cache.service.RedissionService;
+import io.github.rivon.mosu.cache.service.WriteBehindService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试延迟写入在写入 Redis 期间的读取与删除，使用记录命令的 RedissionService，不依赖 Redis，可直接运行
+ */
+public class WriteBehindTest {
+
+    // 测试写入期间的值仍可读到，写入期间删除的 key 在写入完成后再次删除
+    @Test
+    public void testDeleteDuringFlush() throws Exception {
+        BlockingRedissionService redis = new BlockingRedissionService(false);
+        WriteBehindService writeBehind = new WriteBehindService(redis, 60000, 100, 1000, 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            writeBehind.enqueue("wbKey", "value");
+            Future<?> flush = executor.submit(writeBehind::flush);
+            assertTrue(redis.started.await(10, TimeUnit.SECONDS));
+
+            assertEquals("value", writeBehind.getPending("wbKey")); // 写入尚未确认
+            writeBehind.remove("wbKey");
+            assertNull(writeBehind.getPending("wbKey"));
+
+            redis.release.countDown();
+            flush.get(10, TimeUnit.SECONDS);
+            assertEquals(List.of("set:wbKey", "del:wbKey"), redis.commands);
+            assertEquals(0, writeBehind.getQueueDepth());
+        } finally {
+            executor.shutdownNow();
+            writeBehind.shutdown();
+        }
+    }
+
+    // 测试写入失败时，写入期间删除的 key 不再放回队列，其他 key 放回队列等待重试
+    @Test
+    public void testFailedFlushSkipsDeletedKeys() throws Exception {
+        BlockingRedissionService redis = new BlockingRedissionService(true);
+        WriteBehindService writeBehind = new WriteBehindService(redis, 60000, 100, 1000, 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            writeBehind.enqueue("wbDeleted", "value");
+            writeBehind.enqueue("wbKept", "value");
+            Future<?> flush = executor.submit(writeBehind::flush);
+            assertTrue(redis.started.await(10, TimeUnit.SECONDS));
+            writeBehind.remove("wbDeleted");
+
+            redis.release.countDown();
+            assertThrows(Exception.class, () -> flush.get(10, TimeUnit.SECONDS));
+            assertNull(writeBehind.getPending("wbDeleted"));
+            assertEquals("value", writeBehind.getPending("wbKept"));
+            assertEquals(1, writeBehind.getQueueDepth());
+            assertEquals(1, writeBehind.getFailedFlushCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 第一次批量写入阻塞到 release 之后才返回，记录执行的命令
+     */
+    private static class BlockingRedissionService extends RedissionService {
+
+        private final boolean fail;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<String> commands = new CopyOnWriteArrayList<>();
+
+        BlockingRedissionService(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public <T> void setObjects(Map<String, T> map) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) {
+                throw new IllegalStateException("Redis unavailable");
+            }
+            map.keySet().forEach(key -> commands.add("set:" + key));
+        }
+
+        @Override
+        public void delete(String key) {
+            commands.add("del:" + key);
+        }
+    }
+}